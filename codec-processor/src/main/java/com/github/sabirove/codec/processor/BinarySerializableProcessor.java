@@ -0,0 +1,110 @@
+/*
+ * Copyright 2020 Sabirov Evgenii (sabirov.e@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.sabirove.codec.processor;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.UncheckedIOException;
+import java.util.*;
+
+import javax.annotation.processing.*;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.*;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+
+/**
+ * Annotation processor generating the {@code <Type>BinaryCodec} classes for the types annotated with
+ * {@code com.github.sabirove.codec.function.BinarySerializable}: the straight-line
+ * {@code StateOutputStream}/{@code StateInputStream} based serialization code with no reflection involved.
+ */
+@SupportedAnnotationTypes(BinarySerializableProcessor.ANNOTATION)
+public final class BinarySerializableProcessor extends AbstractProcessor {
+    static final String ANNOTATION = "com.github.sabirove.codec.function.BinarySerializable";
+    static final String CODEC_SUFFIX = "BinaryCodec";
+    private static final String FIXED_ANNOTATION = ANNOTATION + ".Fixed";
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        for (TypeElement annotation : annotations) {
+            for (TypeElement type : ElementFilter.typesIn(roundEnv.getElementsAnnotatedWith(annotation))) {
+                try {
+                    CodecModel model = new CodecModel(processingEnv, type);
+                    write(type, model.render());
+                } catch (ProcessingException e) {
+                    processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, e.getMessage(), e.element);
+                }
+            }
+        }
+        return true;
+    }
+
+    private void write(TypeElement type, String source) {
+        PackageElement pkg = processingEnv.getElementUtils().getPackageOf(type);
+        String name = pkg.isUnnamed() ? codecName(type) : pkg.getQualifiedName() + "." + codecName(type);
+        try (PrintWriter writer = new PrintWriter(processingEnv.getFiler().createSourceFile(name, type).openWriter())) {
+            writer.print(source);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Name of the generated class: nested type names are joined with the underscore.
+     */
+    static String codecName(TypeElement type) {
+        StringBuilder name = new StringBuilder(type.getSimpleName());
+        Element enclosing = type.getEnclosingElement();
+        while (enclosing instanceof TypeElement) {
+            name.insert(0, '_').insert(0, enclosing.getSimpleName());
+            enclosing = enclosing.getEnclosingElement();
+        }
+        return name.append(CODEC_SUFFIX).toString();
+    }
+
+    static boolean isFixed(Element element) {
+        return element.getAnnotationMirrors().stream()
+                .anyMatch(a -> ((TypeElement) a.getAnnotationType().asElement())
+                        .getQualifiedName().contentEquals(FIXED_ANNOTATION));
+    }
+
+    static boolean isBinarySerializable(TypeMirror type) {
+        return type.getKind() == TypeKind.DECLARED
+                && ((DeclaredType) type).asElement().getAnnotationMirrors().stream()
+                .anyMatch(a -> ((TypeElement) a.getAnnotationType().asElement())
+                        .getQualifiedName().contentEquals(ANNOTATION));
+    }
+
+    static final class ProcessingException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        final transient Element element;
+
+        ProcessingException(Element element, String message, Object... args) {
+            super(String.format(message, args));
+            this.element = element;
+        }
+    }
+}
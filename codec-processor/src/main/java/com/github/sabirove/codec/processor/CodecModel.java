@@ -0,0 +1,383 @@
+/*
+ * Copyright 2020 Sabirov Evgenii (sabirov.e@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.sabirove.codec.processor;
+
+import java.util.*;
+
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.element.*;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.PrimitiveType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+
+import com.github.sabirove.codec.processor.BinarySerializableProcessor.ProcessingException;
+
+/*
+ * Model of the single annotated type: the serialized properties in the declaration order along with
+ * the matching constructor, rendered to the generated codec class source.
+ */
+final class CodecModel {
+    private static final Map<String, String> VALUE_TYPES = new HashMap<>();
+    private static final Map<String, String> COLLECTION_FACTORIES = new HashMap<>();
+    private static final Map<String, String> MAP_FACTORIES = new HashMap<>();
+
+    static {
+        VALUE_TYPES.put("java.lang.String", "String");
+        VALUE_TYPES.put("java.util.UUID", "UUID");
+        VALUE_TYPES.put("java.util.Date", "Date");
+        VALUE_TYPES.put("java.util.BitSet", "BitSet");
+        VALUE_TYPES.put("java.math.BigInteger", "BigInteger");
+        VALUE_TYPES.put("java.math.BigDecimal", "BigDecimal");
+        VALUE_TYPES.put("java.time.LocalTime", "LocalTime");
+        VALUE_TYPES.put("java.time.LocalDate", "LocalDate");
+        VALUE_TYPES.put("java.time.LocalDateTime", "LocalDateTime");
+        VALUE_TYPES.put("java.time.ZonedDateTime", "ZonedDateTime");
+        VALUE_TYPES.put("java.time.ZoneOffset", "ZoneOffset");
+        VALUE_TYPES.put("java.time.Instant", "Instant");
+
+        COLLECTION_FACTORIES.put("java.util.Collection", "java.util.ArrayList::new");
+        COLLECTION_FACTORIES.put("java.util.List", "java.util.ArrayList::new");
+        COLLECTION_FACTORIES.put("java.util.ArrayList", "java.util.ArrayList::new");
+        COLLECTION_FACTORIES.put("java.util.LinkedList", "size -> new java.util.LinkedList<>()");
+        COLLECTION_FACTORIES.put("java.util.Set", "java.util.HashSet::new");
+        COLLECTION_FACTORIES.put("java.util.HashSet", "java.util.HashSet::new");
+        COLLECTION_FACTORIES.put("java.util.LinkedHashSet", "java.util.LinkedHashSet::new");
+        COLLECTION_FACTORIES.put("java.util.SortedSet", "size -> new java.util.TreeSet<>()");
+        COLLECTION_FACTORIES.put("java.util.NavigableSet", "size -> new java.util.TreeSet<>()");
+        COLLECTION_FACTORIES.put("java.util.TreeSet", "size -> new java.util.TreeSet<>()");
+
+        MAP_FACTORIES.put("java.util.Map", "java.util.HashMap::new");
+        MAP_FACTORIES.put("java.util.HashMap", "java.util.HashMap::new");
+        MAP_FACTORIES.put("java.util.LinkedHashMap", "java.util.LinkedHashMap::new");
+        MAP_FACTORIES.put("java.util.SortedMap", "size -> new java.util.TreeMap<>()");
+        MAP_FACTORIES.put("java.util.NavigableMap", "size -> new java.util.TreeMap<>()");
+        MAP_FACTORIES.put("java.util.TreeMap", "size -> new java.util.TreeMap<>()");
+    }
+
+    private final Types types;
+    private final Elements elements;
+    private final TypeElement type;
+    private final List<Property> properties = new ArrayList<>();
+    private int lambdaDepth;
+
+    CodecModel(ProcessingEnvironment env, TypeElement type) {
+        this.types = env.getTypeUtils();
+        this.elements = env.getElementUtils();
+        this.type = type;
+        validateType();
+        validateSuperclasses();
+        for (VariableElement field : ElementFilter.fieldsIn(type.getEnclosedElements())) {
+            Set<Modifier> modifiers = field.getModifiers();
+            if (!modifiers.contains(Modifier.STATIC) && !modifiers.contains(Modifier.TRANSIENT)) {
+                properties.add(property(field));
+            }
+        }
+        validateConstructor();
+    }
+
+    String render() {
+        String typeName = type.getQualifiedName().toString();
+        String codecName = BinarySerializableProcessor.codecName(type);
+        PackageElement pkg = elements.getPackageOf(type);
+        boolean serializable = types.isAssignable(type.asType(),
+                elements.getTypeElement("java.io.Serializable").asType());
+        boolean isPublic = type.getModifiers().contains(Modifier.PUBLIC);
+
+        StringBuilder src = new StringBuilder();
+        if (!pkg.isUnnamed()) {
+            src.append("package ").append(pkg.getQualifiedName()).append(";\n\n");
+        }
+        src.append("import com.github.sabirove.codec.function.CodecFunction;\n")
+                .append("import com.github.sabirove.codec.function.CodecFunctions;\n")
+                .append("import com.github.sabirove.codec.util.StateInputStream;\n")
+                .append("import com.github.sabirove.codec.util.StateOutputStream;\n\n")
+                .append("/**\n * Binary serialization code for {@link ").append(typeName)
+                .append("} generated by the codec-processor.\n */\n")
+                .append(isPublic ? "public " : "").append("final class ").append(codecName).append(" {\n");
+        if (serializable) {
+            src.append("    private static final CodecFunction<").append(typeName).append("> FUNCTION =\n")
+                    .append("            CodecFunctions.binarySerializing(").append(codecName).append("::write, ")
+                    .append(codecName).append("::read);\n\n");
+        }
+        src.append("    private ").append(codecName).append("() { }\n\n");
+        if (serializable) {
+            src.append("    public static CodecFunction<").append(typeName).append("> function() {\n")
+                    .append("        return FUNCTION;\n    }\n\n");
+        }
+
+        src.append("    public static void write(StateOutputStream out, ").append(typeName).append(" value) {\n");
+        for (Property property : properties) {
+            src.append("        ").append(property.coder.write("out", "value." + property.accessor)).append(";\n");
+        }
+        src.append("    }\n\n");
+
+        src.append("    public static ").append(typeName).append(" read(StateInputStream in) {\n");
+        StringJoiner args = new StringJoiner(", ");
+        for (Property property : properties) {
+            String local = property.name + "$";
+            src.append("        ").append(property.type).append(' ').append(local).append(" = ")
+                    .append(property.coder.read("in")).append(";\n");
+            args.add(local);
+        }
+        src.append("        return new ").append(typeName).append('(').append(args).append(");\n    }\n}\n");
+        return src.toString();
+    }
+
+    private void validateType() {
+        String kind = type.getKind().name();
+        if (!kind.equals("CLASS") && !kind.equals("RECORD")) {
+            throw new ProcessingException(type, "@BinarySerializable is only applicable to classes and records");
+        }
+        Set<Modifier> modifiers = type.getModifiers();
+        if (modifiers.contains(Modifier.ABSTRACT) || modifiers.contains(Modifier.PRIVATE)) {
+            throw new ProcessingException(type, "@BinarySerializable type should be neither abstract nor private");
+        }
+        if (type.getNestingKind() == NestingKind.MEMBER && !modifiers.contains(Modifier.STATIC)) {
+            throw new ProcessingException(type, "@BinarySerializable nested type should be static");
+        }
+        if (!type.getTypeParameters().isEmpty()) {
+            throw new ProcessingException(type, "@BinarySerializable type should not declare type parameters");
+        }
+    }
+
+    /*
+     * Inherited state is not serialized: reject the types inheriting the instance fields rather than
+     * silently dropping them.
+     */
+    private void validateSuperclasses() {
+        TypeMirror superclass = type.getSuperclass();
+        while (superclass.getKind() == TypeKind.DECLARED) {
+            TypeElement element = (TypeElement) ((DeclaredType) superclass).asElement();
+            for (VariableElement field : ElementFilter.fieldsIn(element.getEnclosedElements())) {
+                Set<Modifier> modifiers = field.getModifiers();
+                if (!modifiers.contains(Modifier.STATIC) && !modifiers.contains(Modifier.TRANSIENT)) {
+                    throw new ProcessingException(type,
+                            "@BinarySerializable type should not inherit the instance fields: %s.%s",
+                            element.getQualifiedName(), field.getSimpleName());
+                }
+            }
+            superclass = element.getSuperclass();
+        }
+    }
+
+    private void validateConstructor() {
+        for (ExecutableElement constructor : ElementFilter.constructorsIn(type.getEnclosedElements())) {
+            List<? extends VariableElement> params = constructor.getParameters();
+            if (constructor.getModifiers().contains(Modifier.PRIVATE) || params.size() != properties.size()) {
+                continue;
+            }
+            boolean matches = true;
+            for (int i = 0; i < params.size() && matches; i++) {
+                matches = types.isSameType(params.get(i).asType(), properties.get(i).type);
+            }
+            if (matches) {
+                return;
+            }
+        }
+        throw new ProcessingException(type,
+                "@BinarySerializable type should declare non-private constructor accepting all the fields in the declaration order");
+    }
+
+    private Property property(VariableElement field) {
+        String name = field.getSimpleName().toString();
+        TypeMirror fieldType = field.asType();
+        boolean fixed = BinarySerializableProcessor.isFixed(field);
+        String accessor = name;
+        if (field.getModifiers().contains(Modifier.PRIVATE)) {
+            ExecutableElement method = findAccessor(name, fieldType);
+            if (method == null) {
+                throw new ProcessingException(field,
+                        "private field '%s' should have the non-private accessor method", name);
+            }
+            accessor = method.getSimpleName() + "()";
+            fixed |= BinarySerializableProcessor.isFixed(method);
+        }
+        return new Property(name, fieldType, accessor, coder(fieldType, fixed, field));
+    }
+
+    private ExecutableElement findAccessor(String name, TypeMirror fieldType) {
+        String capitalized = Character.toUpperCase(name.charAt(0)) + name.substring(1);
+        List<String> candidates = Arrays.asList(name, "get" + capitalized, "is" + capitalized);
+        for (ExecutableElement method : ElementFilter.methodsIn(type.getEnclosedElements())) {
+            Set<Modifier> modifiers = method.getModifiers();
+            if (candidates.contains(method.getSimpleName().toString())
+                    && method.getParameters().isEmpty()
+                    && !modifiers.contains(Modifier.PRIVATE)
+                    && !modifiers.contains(Modifier.STATIC)
+                    && types.isSameType(method.getReturnType(), fieldType)) {
+                return method;
+            }
+        }
+        return null;
+    }
+
+    /*
+     * Pick the encoding for the provided type (recursively for the container element types).
+     */
+    private Coder coder(TypeMirror type, boolean fixed, Element site) {
+        if (type.getKind().isPrimitive()) {
+            return primitiveCoder((PrimitiveType) type, fixed);
+        }
+        if (type.getKind() == TypeKind.ARRAY) {
+            return arrayCoder((ArrayType) type, fixed, site);
+        }
+        if (type.getKind() != TypeKind.DECLARED) {
+            throw new ProcessingException(site, "unsupported type: %s", type);
+        }
+        DeclaredType declared = (DeclaredType) type;
+        TypeElement element = (TypeElement) declared.asElement();
+        String name = element.getQualifiedName().toString();
+        try {
+            return primitiveCoder(types.unboxedType(type), fixed);
+        } catch (IllegalArgumentException e) {
+            //not a box type
+        }
+        if (VALUE_TYPES.containsKey(name)) {
+            String suffix = VALUE_TYPES.get(name);
+            return new Coder("%1$s.put" + suffix + "(%2$s)", "%1$s.get" + suffix + "()");
+        }
+        if (element.getKind() == ElementKind.ENUM) {
+            return new Coder("%1$s.putEnum(%2$s)", "%1$s.getEnum(" + name + ".class)");
+        }
+        if (BinarySerializableProcessor.isBinarySerializable(type)) {
+            PackageElement pkg = elements.getPackageOf(element);
+            String codec = (pkg.isUnnamed() ? "" : pkg.getQualifiedName() + ".")
+                    + BinarySerializableProcessor.codecName(element);
+            return new Coder(codec + ".write(%1$s, %2$s)", codec + ".read(%1$s)");
+        }
+        List<? extends TypeMirror> args = declared.getTypeArguments();
+        if (COLLECTION_FACTORIES.containsKey(name) && args.size() == 1) {
+            return collectionCoder(type, args.get(0), COLLECTION_FACTORIES.get(name), fixed, site);
+        }
+        if (MAP_FACTORIES.containsKey(name) && args.size() == 2) {
+            return mapCoder(type, args.get(0), args.get(1), MAP_FACTORIES.get(name), fixed, site);
+        }
+        throw new ProcessingException(site, "unsupported type: %s", type);
+    }
+
+    private static Coder primitiveCoder(PrimitiveType type, boolean fixed) {
+        switch (type.getKind()) {
+            case BOOLEAN: return Coder.of("Boolean");
+            case BYTE: return Coder.of("Byte");
+            case SHORT: return Coder.of("Short");
+            case CHAR: return Coder.of("Char");
+            case INT: return Coder.of(fixed ? "Int" : "SignedVarInt");
+            case LONG: return Coder.of(fixed ? "Long" : "SignedVarLong");
+            case FLOAT: return Coder.of("Float");
+            case DOUBLE: return Coder.of("Double");
+            default: throw new IllegalStateException("unexpected primitive type: " + type);
+        }
+    }
+
+    private Coder arrayCoder(ArrayType type, boolean fixed, Element site) {
+        TypeMirror component = type.getComponentType();
+        if (component.getKind().isPrimitive()) {
+            String name = primitiveCoder((PrimitiveType) component, true).suffix;
+            switch (name) {
+                case "Byte": return Coder.of("Bytes");
+                case "Boolean": return Coder.of("PackedBooleans");
+                default: return Coder.of(name + "s");
+            }
+        }
+        String componentName = types.erasure(component).toString();
+        if (!types.isSameType(component, types.erasure(component))) {
+            throw new ProcessingException(site, "generic array types are not supported: %s", type);
+        }
+        int depth = ++lambdaDepth;
+        Coder element = coder(component, fixed, site);
+        lambdaDepth--;
+        String o = "o$" + depth, e = "e$" + depth, i = "i$" + depth;
+        return new Coder(
+                "%1$s.putArray(%2$s, (" + o + ", " + e + ") -> " + element.write(o, e) + ")",
+                "%1$s.getArray(" + componentName + "[]::new, " + i + " -> " + element.read(i) + ")");
+    }
+
+    private Coder collectionCoder(TypeMirror type, TypeMirror elementType, String factory, boolean fixed, Element site) {
+        int depth = ++lambdaDepth;
+        Coder element = coder(elementType, fixed, site);
+        lambdaDepth--;
+        String o = "o$" + depth, e = "e$" + depth, i = "i$" + depth;
+        return new Coder(
+                "%1$s.putCollection(%2$s, (" + o + ", " + e + ") -> " + element.write(o, e) + ")",
+                "%1$s.<" + elementType + ", " + type + ">getCollection(" + factory + ", "
+                        + i + " -> " + element.read(i) + ")");
+    }
+
+    private Coder mapCoder(TypeMirror type, TypeMirror keyType, TypeMirror valueType, String factory,
+                           boolean fixed, Element site) {
+        int depth = ++lambdaDepth;
+        Coder key = coder(keyType, fixed, site);
+        Coder value = coder(valueType, fixed, site);
+        lambdaDepth--;
+        String o = "o$" + depth, k = "k$" + depth, v = "v$" + depth, i = "i$" + depth;
+        return new Coder(
+                "%1$s.putMap(%2$s, (" + o + ", " + k + ") -> " + key.write(o, k)
+                        + ", (" + o + ", " + v + ") -> " + value.write(o, v) + ")",
+                "%1$s.<" + keyType + ", " + valueType + ", " + type + ">getMap(" + factory + ", "
+                        + i + " -> " + key.read(i) + ", " + i + " -> " + value.read(i) + ")");
+    }
+
+    private static final class Property {
+        final String name;
+        final TypeMirror type;
+        final String accessor;
+        final Coder coder;
+
+        Property(String name, TypeMirror type, String accessor, Coder coder) {
+            this.name = name;
+            this.type = type;
+            this.accessor = accessor;
+            this.coder = coder;
+        }
+    }
+
+    /*
+     * Pair of the write/read expression templates: %1$s stands for the state stream, %2$s for the value to write.
+     */
+    private static final class Coder {
+        final String suffix;
+        final String writeTemplate;
+        final String readTemplate;
+
+        private Coder(String suffix, String writeTemplate, String readTemplate) {
+            this.suffix = suffix;
+            this.writeTemplate = writeTemplate;
+            this.readTemplate = readTemplate;
+        }
+
+        Coder(String writeTemplate, String readTemplate) {
+            this(null, writeTemplate, readTemplate);
+        }
+
+        static Coder of(String suffix) {
+            return new Coder(suffix, "%1$s.put" + suffix + "(%2$s)", "%1$s.get" + suffix + "()");
+        }
+
+        String write(String out, String value) {
+            return String.format(writeTemplate, out, value);
+        }
+
+        String read(String in) {
+            return String.format(readTemplate, in);
+        }
+    }
+}
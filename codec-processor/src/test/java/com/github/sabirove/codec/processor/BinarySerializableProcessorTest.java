@@ -0,0 +1,285 @@
+/*
+ * Copyright 2020 Sabirov Evgenii (sabirov.e@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.sabirove.codec.processor;
+
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.stream.Collectors;
+
+import javax.lang.model.SourceVersion;
+import javax.tools.*;
+
+import com.github.sabirove.codec.Codec;
+import com.github.sabirove.codec.CodecBuilder;
+import com.github.sabirove.codec.function.CodecFunction;
+import org.junit.jupiter.api.Test;
+
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class BinarySerializableProcessorTest {
+
+    private static final String ORDER = String.join("\n",
+            "package sample;",
+            "",
+            "import java.util.*;",
+            "import com.github.sabirove.codec.function.BinarySerializable;",
+            "",
+            "@BinarySerializable",
+            "public class Order implements java.io.Serializable {",
+            "    public enum Status { NEW, DONE }",
+            "",
+            "    static final int IGNORED = 1;",
+            "    final String id;",
+            "    final int quantity;",
+            "    @BinarySerializable.Fixed final long hash;",
+            "    final Status status;",
+            "    private final List<Line> lines;",
+            "    final Map<String, Set<Integer>> tags;",
+            "    final double[] prices;",
+            "    final boolean[] flags;",
+            "    final Line[] extra;",
+            "    final Integer boxed;",
+            "    transient int cached;",
+            "",
+            "    Order(String id, int quantity, long hash, Status status, List<Line> lines,",
+            "          Map<String, Set<Integer>> tags, double[] prices, boolean[] flags, Line[] extra,",
+            "          Integer boxed) {",
+            "        this.id = id; this.quantity = quantity; this.hash = hash; this.status = status;",
+            "        this.lines = lines; this.tags = tags; this.prices = prices; this.flags = flags;",
+            "        this.extra = extra; this.boxed = boxed;",
+            "    }",
+            "",
+            "    public List<Line> getLines() { return lines; }",
+            "",
+            "    public static Order sample() {",
+            "        Map<String, Set<Integer>> tags = new HashMap<>();",
+            "        tags.put(\"a\", new HashSet<>(Arrays.asList(1, -2, 3)));",
+            "        tags.put(\"b\", new HashSet<>());",
+            "        return new Order(\"order-1\", -42, Long.MIN_VALUE, Status.DONE,",
+            "                Arrays.asList(new Line(\"sku-1\", 3), new Line(\"sku-2\", -7)), tags,",
+            "                new double[]{1.5, -2.25}, new boolean[]{true, false, true},",
+            "                new Line[]{new Line(\"x\", Long.MAX_VALUE)}, 7);",
+            "    }",
+            "",
+            "    @Override",
+            "    public boolean equals(Object o) {",
+            "        if (!(o instanceof Order)) return false;",
+            "        Order that = (Order) o;",
+            "        return id.equals(that.id) && quantity == that.quantity && hash == that.hash",
+            "                && status == that.status && lines.equals(that.lines) && tags.equals(that.tags)",
+            "                && Arrays.equals(prices, that.prices) && Arrays.equals(flags, that.flags)",
+            "                && Arrays.equals(extra, that.extra)",
+            "                && boxed.equals(that.boxed);",
+            "    }",
+            "",
+            "    @Override",
+            "    public int hashCode() { return id.hashCode(); }",
+            "}");
+
+    private static final String LINE = String.join("\n",
+            "package sample;",
+            "",
+            "import com.github.sabirove.codec.function.BinarySerializable;",
+            "",
+            "@BinarySerializable",
+            "public final class Line implements java.io.Serializable {",
+            "    private final String sku;",
+            "    private final long amount;",
+            "",
+            "    public Line(String sku, long amount) { this.sku = sku; this.amount = amount; }",
+            "",
+            "    public String sku() { return sku; }",
+            "    public long getAmount() { return amount; }",
+            "",
+            "    @Override",
+            "    public boolean equals(Object o) {",
+            "        return o instanceof Line && sku.equals(((Line) o).sku) && amount == ((Line) o).amount;",
+            "    }",
+            "",
+            "    @Override",
+            "    public int hashCode() { return sku.hashCode(); }",
+            "}");
+
+    @Test
+    void testGeneratedCodecRoundTrip() throws Exception {
+        Compilation compilation = compile(source("sample.Order", ORDER), source("sample.Line", LINE));
+        assertTrue(compilation.success, compilation::toString);
+
+        String generated = compilation.generated("sample/OrderBinaryCodec.java");
+        assertTrue(generated.contains("out.putSignedVarInt(value.quantity)"));
+        assertTrue(generated.contains("out.putLong(value.hash)"));
+        assertTrue(generated.contains("out.putPackedBooleans(value.flags)"));
+        assertTrue(generated.contains("value.getLines()"));
+        assertTrue(compilation.generated("sample/LineBinaryCodec.java").contains("out.putString(value.sku())"));
+        assertFalse(generated.contains("IGNORED"));
+        assertFalse(generated.contains("cached"));
+
+        try (URLClassLoader loader = new URLClassLoader(new URL[]{compilation.output.toUri().toURL()},
+                getClass().getClassLoader())) {
+            Object order = loader.loadClass("sample.Order").getMethod("sample").invoke(null);
+            @SuppressWarnings("unchecked")
+            CodecFunction<Object> function = (CodecFunction<Object>) loader.loadClass("sample.OrderBinaryCodec")
+                    .getMethod("function")
+                    .invoke(null);
+            Codec<Object> codec = CodecBuilder.withFunction(function).build();
+            assertEquals(order, codec.decode(codec.encode(order)));
+        }
+    }
+
+    @Test
+    void testRecordRoundTrip() throws Exception {
+        assumeTrue(SourceVersion.latest().ordinal() >= 16, "records are not supported by the current JDK");
+        Compilation compilation = compile(source("sample.Entry", String.join("\n",
+                "package sample;",
+                "import com.github.sabirove.codec.function.BinarySerializable;",
+                "@BinarySerializable",
+                "public record Entry(String key, @BinarySerializable.Fixed int hash, java.util.List<Long> values)",
+                "        implements java.io.Serializable {",
+                "    public static Entry sample() { return new Entry(\"k\", -1, java.util.Arrays.asList(1L, -2L)); }",
+                "}")));
+        assertTrue(compilation.success, compilation::toString);
+        String generated = compilation.generated("sample/EntryBinaryCodec.java");
+        assertTrue(generated.contains("out.putInt(value.hash())"));
+
+        try (URLClassLoader loader = new URLClassLoader(new URL[]{compilation.output.toUri().toURL()},
+                getClass().getClassLoader())) {
+            Object entry = loader.loadClass("sample.Entry").getMethod("sample").invoke(null);
+            @SuppressWarnings("unchecked")
+            CodecFunction<Object> function = (CodecFunction<Object>) loader.loadClass("sample.EntryBinaryCodec")
+                    .getMethod("function")
+                    .invoke(null);
+            Codec<Object> codec = CodecBuilder.withFunction(function).build();
+            assertEquals(entry, codec.decode(codec.encode(entry)));
+        }
+    }
+
+    @Test
+    void testNonSerializableTypeHasNoFunction() throws IOException {
+        Compilation compilation = compile(source("sample.Point", String.join("\n",
+                "package sample;",
+                "@com.github.sabirove.codec.function.BinarySerializable",
+                "class Point {",
+                "    final int x, y;",
+                "    Point(int x, int y) { this.x = x; this.y = y; }",
+                "}")));
+        assertTrue(compilation.success, compilation::toString);
+        String generated = compilation.generated("sample/PointBinaryCodec.java");
+        assertTrue(generated.startsWith("package sample;"));
+        assertTrue(generated.contains("\nfinal class PointBinaryCodec"));
+        assertFalse(generated.contains("function()"));
+    }
+
+    @Test
+    void testErrors() throws IOException {
+        assertError("unsupported type: java.lang.Object",
+                "final Object value;", "Invalid(Object value) { this.value = value; }");
+        assertError("private field 'value' should have the non-private accessor method",
+                "private final String value;", "Invalid(String value) { this.value = value; }");
+        assertError("should declare non-private constructor accepting all the fields",
+                "final String value; final int count;", "Invalid(int count, String value) { this(value, count, 0); }",
+                "private Invalid(String value, int count, int ignored) { this.value = value; this.count = count; }");
+        assertError("generic array types are not supported",
+                "final List<String>[] value;", "Invalid(List<String>[] value) { this.value = value; }");
+        assertError("should not inherit the instance fields: sample.Base.tenant", source("sample.Invalid",
+                String.join("\n",
+                        "package sample;",
+                        "class Base { final String tenant; Base(String tenant) { this.tenant = tenant; } }",
+                        "@com.github.sabirove.codec.function.BinarySerializable",
+                        "class Invalid extends Base {",
+                        "    final String value;",
+                        "    Invalid(String value) { super(value); this.value = value; }",
+                        "}")));
+    }
+
+    private static void assertError(String expectedMessage, String... members) throws IOException {
+        assertError(expectedMessage, source("sample.Invalid", String.join("\n",
+                "package sample;",
+                "import java.util.List;",
+                "@com.github.sabirove.codec.function.BinarySerializable",
+                "class Invalid {",
+                String.join("\n", members),
+                "}")));
+    }
+
+    private static void assertError(String expectedMessage, JavaFileObject source) throws IOException {
+        Compilation compilation = compile(source);
+        assertFalse(compilation.success);
+        assertTrue(compilation.diagnostics.stream()
+                        .filter(d -> d.getKind() == Diagnostic.Kind.ERROR)
+                        .anyMatch(d -> d.getMessage(Locale.ROOT).contains(expectedMessage)),
+                compilation::toString);
+    }
+
+    private static JavaFileObject source(String className, String code) {
+        return new SimpleJavaFileObject(
+                java.net.URI.create("string:///" + className.replace('.', '/') + JavaFileObject.Kind.SOURCE.extension),
+                JavaFileObject.Kind.SOURCE) {
+            @Override
+            public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+                return code;
+            }
+        };
+    }
+
+    private static Compilation compile(JavaFileObject... sources) throws IOException {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        Path output = Files.createTempDirectory("codec-processor");
+        try (StandardJavaFileManager fileManager = compiler.getStandardFileManager(diagnostics, Locale.ROOT,
+                StandardCharsets.UTF_8)) {
+            List<String> options = Arrays.asList(
+                    "-classpath", System.getProperty("java.class.path"),
+                    "-d", output.toString(),
+                    "-s", output.toString());
+            JavaCompiler.CompilationTask task = compiler.getTask(null, fileManager, diagnostics, options, null,
+                    Arrays.asList(sources));
+            task.setProcessors(Collections.singletonList(new BinarySerializableProcessor()));
+            boolean success = task.call();
+            return new Compilation(success, diagnostics.getDiagnostics(), output);
+        }
+    }
+
+    private static final class Compilation {
+        final boolean success;
+        final List<Diagnostic<? extends JavaFileObject>> diagnostics;
+        final Path output;
+
+        Compilation(boolean success, List<Diagnostic<? extends JavaFileObject>> diagnostics, Path output) {
+            this.success = success;
+            this.diagnostics = diagnostics;
+            this.output = output;
+        }
+
+        String generated(String path) throws IOException {
+            return new String(Files.readAllBytes(output.resolve(path)), StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public String toString() {
+            return diagnostics.stream()
+                    .map(d -> d.getKind() + ": " + d.getMessage(Locale.ROOT))
+                    .collect(Collectors.joining("\n"));
+        }
+    }
+}
@@ -17,8 +17,10 @@
 package com.github.sabirove.codec;
 
 import com.github.sabirove.codec.function.CodecFunction;
+import com.github.sabirove.codec.util.ByteBufferInputStream;
 
 import java.io.*;
+import java.nio.ByteBuffer;
 
 /**
  * Bidirectional IO function suitable to encode/decode values of the specific type
@@ -58,14 +60,29 @@ public interface Codec<T> {
     }
 
     /**
-     * Decode single value from bytes.
+     * Decode single value from bytes (same as {@link #decode(ByteBuffer)} of the wrapped array).
      *
      * @param in bytes containing the value previously encoded by this codec
      * @throws UncheckedIOException wrapping the original {@link IOException} when IO operation fails
      */
     default T decode(byte[] in) {
+        return decode(ByteBuffer.wrap(in));
+    }
+
+    /**
+     * Decode single value from the remaining bytes of the buffer (its position is not affected).
+     *
+     * @param in buffer containing the value previously encoded by this codec
+     * @throws UncheckedIOException  wrapping the original {@link IOException} when IO operation fails
+     * @throws IllegalStateException when the value is a lazy view that can't outlive the decoder stream
+     *                               (e.g. {@link com.github.sabirove.codec.function.CodecFunctions#streaming()}
+     *                               with the filters applied)
+     * @apiNote functions like {@link com.github.sabirove.codec.function.CodecFunctions#binaryView()}
+     * decode into the zero-copy views of the buffer when the codec has no filters.
+     */
+    default T decode(ByteBuffer in) {
         @SuppressWarnings("resource")
-        ByteArrayInputStream bais = new ByteArrayInputStream(in);
-        return wrap(bais).readAndClose();
+        ByteBufferInputStream bbis = new ByteBufferInputStream(in);
+        return wrap(bbis).readAndClose();
     }
 }
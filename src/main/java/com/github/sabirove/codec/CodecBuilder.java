@@ -84,6 +84,6 @@ public final class CodecBuilder<T> {
 
     public Codec<T> build() {
         CodecFilter chain = bufferSpec == CodecBufferSpec.noBuffer() ? filter : filter.chain(bufferSpec);
-        return new CodecImpl<>(function, chain);
+        return new CodecImpl<>(function, chain, filter == CodecFilters.noOp());
     }
 }
@@ -18,41 +18,111 @@ package com.github.sabirove.codec;
 
 import com.github.sabirove.codec.filter.CodecFilter;
 import com.github.sabirove.codec.function.CodecFunction;
+import com.github.sabirove.codec.function.CodecFunctions;
 import com.github.sabirove.codec.util.SafeInputStream;
 
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
 
+import static com.github.sabirove.codec.util.CodecUtil.checkState;
 import static com.github.sabirove.codec.util.CodecUtil.throwUnchecked;
 
 final class CodecImpl<T> implements Codec<T> {
     private final CodecFunction<T> function;
     private final CodecFilter filter;
+    //whether the filter passes the bytes as is (buffering only)
+    private final boolean passThrough;
 
-    CodecImpl(CodecFunction<T> function, CodecFilter filter) {
+    CodecImpl(CodecFunction<T> function, CodecFilter filter, boolean passThrough) {
         this.function = function;
         this.filter = filter;
+        this.passThrough = passThrough;
     }
 
     @Override
     public EncoderStream<T> wrap(OutputStream os) {
         try {
             OutputStream filtered = filter.filter(os);
-            return new EncoderStream<>(filtered, function);
+            return new EncoderStream<>(filtered, function.forStream());
         } catch (IOException e) {
             return throwUnchecked(e);
         }
     }
 
+    /**
+     * Allocate the output array exactly once when the encoded size is known upfront
+     * and the bytes are not transformed by the filter.
+     */
+    @Override
+    public byte[] encode(T value) {
+        if (passThrough) {
+            CodecFunction<T> fn = function.forStream();
+            int size = fn.sizeOf(value);
+            if (size >= 0) {
+                ExactOutputStream out = new ExactOutputStream(size);
+                try {
+                    fn.write(value, out);
+                    fn.flush(out);
+                } catch (IOException e) {
+                    return throwUnchecked(e);
+                }
+                return out.toByteArray();
+            }
+        }
+        return Codec.super.encode(value);
+    }
+
     @Override
     public DecoderStream<T> wrap(InputStream is) {
         try {
             InputStream filtered = filter.filter(is);
             InputStream filteredSafe = SafeInputStream.wrap(filtered);
-            return new DecoderStream<>(filteredSafe, function);
+            return new DecoderStream<>(filteredSafe, function.forStream());
         } catch (IOException e) {
             return throwUnchecked(e);
         }
     }
+
+    /**
+     * Fail fast for the lazy {@link CodecFunctions#streaming()} views: they keep reading from the decoder stream
+     * which is closed on return, so the filtered (e.g. inflated) bytes can't be read afterwards.
+     */
+    @Override
+    public T decode(ByteBuffer in) {
+        checkState(passThrough || function != CodecFunctions.streaming(),
+                "streaming value can't be decoded as a single value with filters: read it through wrap(InputStream)");
+        return Codec.super.decode(in);
+    }
+
+    /**
+     * Output stream over the array of the exact expected size.
+     */
+    private static final class ExactOutputStream extends OutputStream {
+        private final byte[] buf;
+        private int count;
+
+        ExactOutputStream(int size) {
+            buf = new byte[size];
+        }
+
+        @Override
+        public void write(int b) {
+            checkState(count < buf.length, "encoded size exceeds the computed size");
+            buf[count++] = (byte) b;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            checkState(len <= buf.length - count, "encoded size exceeds the computed size");
+            System.arraycopy(b, off, buf, count, len);
+            count += len;
+        }
+
+        byte[] toByteArray() {
+            checkState(count == buf.length, "encoded size=%s is less than the computed size=%s", count, buf.length);
+            return buf;
+        }
+    }
 }
@@ -18,7 +18,11 @@ package com.github.sabirove.codec;
 
 import java.io.*;
 
+import com.github.sabirove.codec.function.BinaryChunkedCodecFunction;
 import com.github.sabirove.codec.function.CodecFunction;
+import com.github.sabirove.codec.function.DoubleCodecFunction;
+import com.github.sabirove.codec.function.IntCodecFunction;
+import com.github.sabirove.codec.function.LongCodecFunction;
 import com.github.sabirove.codec.util.CodecUtil;
 
 /**
@@ -47,6 +51,106 @@ public final class DecoderStream<T> implements AutoCloseable {
         }
     }
 
+    /**
+     * Read and decode the value into the provided mutable instance when supported by the codec function
+     * allowing to reuse a single instance across the reads.
+     *
+     * @return the {@code reuse} instance filled with the decoded value or a new instance when the function
+     * doesn't support reading into the existing instances
+     * @throws UncheckedIOException wrapping the original {@link IOException} when IO operation fails
+     * @see CodecFunction#readInto(InputStream, Object)
+     */
+    public T read(T reuse) {
+        try {
+            return function.readInto(is, CodecUtil.checkNotNull(reuse));
+        } catch (IOException e) {
+            return CodecUtil.throwUnchecked(e);
+        }
+    }
+
+    /**
+     * Advance past the next {@code n} values without materializing them (as far as the codec function allows).
+     *
+     * @throws UncheckedIOException wrapping the original {@link IOException} when IO operation fails
+     *                              (e.g. {@link EOFException} when there are less than {@code n} values left)
+     */
+    public void skip(long n) {
+        CodecUtil.checkArgument(n >= 0, "n should be non-negative");
+        try {
+            for (long i = 0; i < n; i++) {
+                function.skip(is);
+            }
+        } catch (IOException e) {
+            CodecUtil.throwUnchecked(e);
+        }
+    }
+
+    /**
+     * Read the next chunk into the provided buffer without allocating a new array.
+     *
+     * @return number of bytes read, {@code -1} when the end of the stream is reached
+     * @throws IllegalStateException    when the codec function is not a {@link BinaryChunkedCodecFunction}
+     * @throws IllegalArgumentException when the buffer has no room for the chunk at the {@code off} position
+     * @throws UncheckedIOException     wrapping the original {@link IOException} when IO operation fails
+     * @see BinaryChunkedCodecFunction#readChunk(InputStream, byte[], int)
+     */
+    public int readChunk(byte[] buf, int off) {
+        try {
+            return specificFunction(BinaryChunkedCodecFunction.class).readChunk(is, buf, off);
+        } catch (IOException e) {
+            return CodecUtil.throwUnchecked(e);
+        }
+    }
+
+    /**
+     * Shortcut for {@link #readChunk(byte[], int)} reading into the buffer from its start.
+     */
+    public int readChunk(byte[] buf) {
+        return readChunk(buf, 0);
+    }
+
+    /**
+     * Read the primitive {@code int} value without boxing.
+     *
+     * @throws IllegalStateException when the codec function is not an {@link IntCodecFunction}
+     * @throws UncheckedIOException  wrapping the original {@link IOException} when IO operation fails
+     */
+    public int readInt() {
+        try {
+            return specificFunction(IntCodecFunction.class).readInt(is);
+        } catch (IOException e) {
+            return CodecUtil.throwUnchecked(e);
+        }
+    }
+
+    /**
+     * Read the primitive {@code long} value without boxing.
+     *
+     * @throws IllegalStateException when the codec function is not a {@link LongCodecFunction}
+     * @throws UncheckedIOException  wrapping the original {@link IOException} when IO operation fails
+     */
+    public long readLong() {
+        try {
+            return specificFunction(LongCodecFunction.class).readLong(is);
+        } catch (IOException e) {
+            return CodecUtil.throwUnchecked(e);
+        }
+    }
+
+    /**
+     * Read the primitive {@code double} value without boxing.
+     *
+     * @throws IllegalStateException when the codec function is not a {@link DoubleCodecFunction}
+     * @throws UncheckedIOException  wrapping the original {@link IOException} when IO operation fails
+     */
+    public double readDouble() {
+        try {
+            return specificFunction(DoubleCodecFunction.class).readDouble(is);
+        } catch (IOException e) {
+            return CodecUtil.throwUnchecked(e);
+        }
+    }
+
     /**
      * Shortcut for {@link #read()} and then {@link #close()}.
      *
@@ -70,4 +174,9 @@ public final class DecoderStream<T> implements AutoCloseable {
             CodecUtil.throwUnchecked(e);
         }
     }
+
+    private <F> F specificFunction(Class<F> type) {
+        CodecUtil.checkState(type.isInstance(function), "operation is not supported by the codec function");
+        return type.cast(function);
+    }
 }
@@ -17,6 +17,9 @@
 package com.github.sabirove.codec;
 
 import com.github.sabirove.codec.function.CodecFunction;
+import com.github.sabirove.codec.function.DoubleCodecFunction;
+import com.github.sabirove.codec.function.IntCodecFunction;
+import com.github.sabirove.codec.function.LongCodecFunction;
 import com.github.sabirove.codec.util.CodecUtil;
 
 import java.io.Flushable;
@@ -49,6 +52,48 @@ public final class EncoderStream<T> implements AutoCloseable, Flushable {
         }
     }
 
+    /**
+     * Write the primitive {@code int} value without boxing.
+     *
+     * @throws IllegalStateException when the codec function is not an {@link IntCodecFunction}
+     * @throws UncheckedIOException  wrapping the original {@link IOException} when IO operation fails
+     */
+    public void writeInt(int value) {
+        try {
+            specificFunction(IntCodecFunction.class).writeInt(value, os);
+        } catch (IOException e) {
+            CodecUtil.throwUnchecked(e);
+        }
+    }
+
+    /**
+     * Write the primitive {@code long} value without boxing.
+     *
+     * @throws IllegalStateException when the codec function is not a {@link LongCodecFunction}
+     * @throws UncheckedIOException  wrapping the original {@link IOException} when IO operation fails
+     */
+    public void writeLong(long value) {
+        try {
+            specificFunction(LongCodecFunction.class).writeLong(value, os);
+        } catch (IOException e) {
+            CodecUtil.throwUnchecked(e);
+        }
+    }
+
+    /**
+     * Write the primitive {@code double} value without boxing.
+     *
+     * @throws IllegalStateException when the codec function is not a {@link DoubleCodecFunction}
+     * @throws UncheckedIOException  wrapping the original {@link IOException} when IO operation fails
+     */
+    public void writeDouble(double value) {
+        try {
+            specificFunction(DoubleCodecFunction.class).writeDouble(value, os);
+        } catch (IOException e) {
+            CodecUtil.throwUnchecked(e);
+        }
+    }
+
     /**
      * Shortcut for {@link #write(Object)} and then {@link #flush()}.
      *
@@ -71,13 +116,15 @@ public final class EncoderStream<T> implements AutoCloseable, Flushable {
     }
 
     /**
-     * Flushes the underlying {@link OutputStream} as per the {@link Flushable} contract.
+     * Flushes the underlying {@link OutputStream} as per the {@link Flushable} contract
+     * (any state buffered by the {@link CodecFunction} is written out first).
      *
      * @throws UncheckedIOException wrapping the original {@link IOException} when IO operation fails
      */
     @Override
     public void flush() {
         try {
+            function.flush(os);
             os.flush();
         } catch (IOException e) {
             CodecUtil.throwUnchecked(e);
@@ -92,9 +139,15 @@ public final class EncoderStream<T> implements AutoCloseable, Flushable {
     @Override
     public void close() {
         try (OutputStream os = this.os) {
+            function.flush(os);
             os.flush();
         } catch (IOException e) {
             CodecUtil.throwUnchecked(e);
         }
     }
+
+    private <F> F specificFunction(Class<F> type) {
+        CodecUtil.checkState(type.isInstance(function), "operation is not supported by the codec function");
+        return type.cast(function);
+    }
 }
@@ -0,0 +1,179 @@
+/*
+ * Copyright 2019 Sabirov Evgenii (sabirov.e@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.sabirove.codec.container;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Predicate;
+import java.util.zip.Deflater;
+
+import com.github.sabirove.codec.Codec;
+
+
+import static com.github.sabirove.codec.util.CodecUtil.checkArgument;
+import static com.github.sabirove.codec.util.CodecUtil.checkNotNull;
+
+/**
+ * Block compressed container format: the values encoded by the {@link Codec} are grouped into the blocks
+ * of up to {@code maxBlockRecords} records or (approximately) {@code maxBlockBytes} encoded bytes,
+ * each block is compressed independently and carries its record count and checksum. The block index footer
+ * written at the end allows to locate the blocks without scanning the file, so that the blocks can be
+ * skipped or decompressed in parallel (see {@link BlockFile}).
+ * <p>
+ * Layout:
+ * <ul>
+ * <li>header: {@code [4 bytes: magic][1 byte: version]}</li>
+ * <li>block: {@code [unsigned varint: record count > 0][unsigned varint: raw length]
+ * [unsigned varint: compressed length][4 bytes: CRC32C of the block]
+ * [unsigned varint: statistics length][statistics][compressed bytes]}
+ * where the raw bytes are the values written with the fresh {@link com.github.sabirove.codec.EncoderStream}
+ * and compressed with raw 'Deflate', the statistics are the summaries of the configured {@link BlockStatistic}s
+ * (empty when none are configured), the checksum covers the rest of the block (the header fields included)</li>
+ * <li>end of blocks: {@code [unsigned varint: 0]}</li>
+ * <li>footer: {@code [unsigned varint: block count]} followed by the block entries:
+ * {@code [unsigned varlong: offset][unsigned varint: length][unsigned varint: record count]}</li>
+ * <li>trailer: {@code [8 bytes: footer offset][4 bytes: magic]}</li>
+ * </ul>
+ *
+ * @apiNote instances are immutable and thread safe; the streams are used as is, so the buffered ones
+ * are expected for the file IO.
+ */
+public final class BlockContainer<T> {
+    static final int MAGIC = 0x43444342; //"CDCB"
+    static final int VERSION = 1;
+    static final int HEADER_LENGTH = 5;
+    static final int TRAILER_LENGTH = 12;
+
+    private static final int DEFAULT_MAX_BLOCK_RECORDS = 10_000;
+    private static final int DEFAULT_MAX_BLOCK_BYTES = 1024 * 1024;
+
+    final Codec<T> codec;
+    final int maxBlockRecords;
+    final int maxBlockBytes;
+    final int compressionLevel;
+    final List<BlockStatistic<T, ?>> statistics;
+
+    private BlockContainer(Codec<T> codec,
+                           int maxBlockRecords,
+                           int maxBlockBytes,
+                           int compressionLevel,
+                           List<BlockStatistic<T, ?>> statistics) {
+        this.codec = codec;
+        this.maxBlockRecords = maxBlockRecords;
+        this.maxBlockBytes = maxBlockBytes;
+        this.compressionLevel = compressionLevel;
+        this.statistics = statistics;
+    }
+
+    /**
+     * Container of the values encoded by the provided codec with the blocks of up to 10000 records or 1 MB
+     * compressed with the default 'Deflate' compression level.
+     */
+    public static <T> BlockContainer<T> of(Codec<T> codec) {
+        return new BlockContainer<>(checkNotNull(codec), DEFAULT_MAX_BLOCK_RECORDS, DEFAULT_MAX_BLOCK_BYTES,
+                Deflater.DEFAULT_COMPRESSION, Collections.emptyList());
+    }
+
+    /**
+     * Get the copy of this instance limiting the number of records per block.
+     */
+    public BlockContainer<T> withMaxBlockRecords(int records) {
+        checkArgument(records > 0, "max block records should be positive");
+        return new BlockContainer<>(codec, records, maxBlockBytes, compressionLevel, statistics);
+    }
+
+    /**
+     * Get the copy of this instance limiting the (uncompressed) block size: the block is completed
+     * once the encoded records exceed the limit.
+     */
+    public BlockContainer<T> withMaxBlockBytes(int bytes) {
+        checkArgument(bytes > 0, "max block bytes should be positive");
+        return new BlockContainer<>(codec, maxBlockRecords, bytes, compressionLevel, statistics);
+    }
+
+    /**
+     * Get the copy of this instance with the specified 'Deflate' compression level ({@code 0} stores the blocks
+     * uncompressed, see {@link Deflater}).
+     */
+    public BlockContainer<T> withCompressionLevel(int level) {
+        checkArgument(level >= 0 && level <= 9 || level == Deflater.DEFAULT_COMPRESSION,
+                "compression level should be in the [0, 9] range");
+        return new BlockContainer<>(codec, maxBlockRecords, maxBlockBytes, level, statistics);
+    }
+
+    /**
+     * Get the copy of this instance recording the summaries of the provided statistics per block
+     * (the same statistics in the same order should be configured to read them back).
+     *
+     * @see BlockStatistics
+     */
+    @SafeVarargs
+    public final BlockContainer<T> withStatistics(BlockStatistic<T, ?>... statistics) {
+        List<BlockStatistic<T, ?>> list = new ArrayList<>(checkNotNull(statistics).length);
+        for (BlockStatistic<T, ?> statistic : statistics) {
+            list.add(checkNotNull(statistic));
+        }
+        return new BlockContainer<>(codec, maxBlockRecords, maxBlockBytes, compressionLevel,
+                Collections.unmodifiableList(list));
+    }
+
+    /**
+     * Write the container header to the provided stream and wrap it to write the records.
+     *
+     * @throws UncheckedIOException wrapping the original {@link IOException} when IO operation fails
+     */
+    public BlockWriter<T> writer(OutputStream out) {
+        return new BlockWriter<>(this, checkNotNull(out));
+    }
+
+    /**
+     * Wrap the provided stream to read the blocks sequentially from the start.
+     *
+     * @throws UncheckedIOException wrapping the original {@link IOException} when IO operation fails
+     *                              (e.g. the stream doesn't start with the valid header)
+     */
+    public BlockReader<T> reader(InputStream in) {
+        return new BlockReader<>(this, checkNotNull(in), stats -> true);
+    }
+
+    /**
+     * Wrap the provided stream to read the records of the blocks matching the predicate over the block
+     * statistics: the rest of the blocks are skipped without decompression.
+     *
+     * @throws UncheckedIOException wrapping the original {@link IOException} when IO operation fails
+     *                              (e.g. the stream doesn't start with the valid header)
+     */
+    public BlockReader<T> reader(InputStream in, Predicate<BlockStats> filter) {
+        return new BlockReader<>(this, checkNotNull(in), checkNotNull(filter));
+    }
+
+    /**
+     * Open the whole container held by the remaining bytes of the buffer (e.g. memory mapped file)
+     * for the random access to its blocks (the buffer position is not affected).
+     *
+     * @throws UncheckedIOException wrapping the original {@link IOException} when the footer is malformed
+     */
+    public BlockFile<T> open(ByteBuffer container) {
+        return BlockFile.open(this, checkNotNull(container).slice());
+    }
+}
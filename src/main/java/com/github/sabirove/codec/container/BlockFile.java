@@ -0,0 +1,157 @@
+/*
+ * Copyright 2019 Sabirov Evgenii (sabirov.e@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.sabirove.codec.container;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.zip.Inflater;
+
+import com.github.sabirove.codec.DecoderStream;
+import com.github.sabirove.codec.util.ByteBufferInputStream;
+import com.github.sabirove.codec.util.CodecUtil;
+import com.github.sabirove.codec.util.Crc32c;
+
+
+import static com.github.sabirove.codec.container.BlockContainer.HEADER_LENGTH;
+import static com.github.sabirove.codec.container.BlockContainer.MAGIC;
+import static com.github.sabirove.codec.container.BlockContainer.TRAILER_LENGTH;
+
+/**
+ * Random access view of the whole {@link BlockContainer} held by the {@link ByteBuffer}: the blocks are located
+ * with the block index footer and can be decompressed independently, e.g.
+ * {@code file.blocks().parallelStream().map(file::read)}.
+ *
+ * @apiNote safe to be accessed concurrently.
+ */
+public final class BlockFile<T> {
+    private final BlockContainer<T> container;
+    private final ByteBuffer buffer;
+    private final List<BlockInfo> blocks;
+
+    private BlockFile(BlockContainer<T> container, ByteBuffer buffer, List<BlockInfo> blocks) {
+        this.container = container;
+        this.buffer = buffer;
+        this.blocks = Collections.unmodifiableList(blocks);
+    }
+
+    static <T> BlockFile<T> open(BlockContainer<T> container, ByteBuffer buffer) {
+        try {
+            int limit = buffer.limit();
+            if (limit < HEADER_LENGTH + 1 + TRAILER_LENGTH || buffer.getInt(limit - 4) != MAGIC) {
+                throw new IOException("not a block container: malformed trailer");
+            }
+            Blocks.readHeader(new ByteBufferInputStream(buffer));
+            long footerOffset = buffer.getLong(limit - TRAILER_LENGTH);
+            if (footerOffset <= HEADER_LENGTH || footerOffset > limit - TRAILER_LENGTH) {
+                throw new IOException("corrupted block index: footer offset=" + footerOffset);
+            }
+            ByteBuffer footer = buffer.duplicate();
+            //through Buffer: the covariant ByteBuffer overloads (JDK 9+) are missing on the Java 8 runtime
+            ((Buffer) footer).limit(limit - TRAILER_LENGTH);
+            ((Buffer) footer).position((int) footerOffset);
+            List<BlockInfo> blocks = Blocks.readFooter(new ByteBufferInputStream(footer));
+            for (int i = 0; i < blocks.size(); i++) {
+                BlockInfo block = blocks.get(i);
+                if (block.offset() < HEADER_LENGTH || block.offset() + block.length() >= footerOffset) {
+                    throw new IOException("corrupted block index: " + block);
+                }
+                Blocks.BlockHeader header = readHeader(blockStream(buffer, block), block);
+                blocks.set(i, block.withStats(BlockStats.read(container.statistics, header.stats)));
+            }
+            return new BlockFile<>(container, buffer, blocks);
+        } catch (IOException e) {
+            return CodecUtil.throwUnchecked(e);
+        }
+    }
+
+    /**
+     * Get the blocks of the container in the order they were written.
+     */
+    public List<BlockInfo> blocks() {
+        return blocks;
+    }
+
+    /**
+     * Get the blocks matching the predicate over the block statistics (their records are not read).
+     */
+    public List<BlockInfo> blocks(Predicate<BlockStats> filter) {
+        return blocks.stream().filter(b -> filter.test(b.stats())).collect(Collectors.toList());
+    }
+
+    /**
+     * Get the total number of records in the container.
+     */
+    public long recordCount() {
+        if (blocks.isEmpty()) {
+            return 0;
+        }
+        BlockInfo last = blocks.get(blocks.size() - 1);
+        return last.firstRecord() + last.recordCount();
+    }
+
+    /**
+     * Decompress and decode the records of the block.
+     *
+     * @param block one of the {@link #blocks()}
+     * @throws UncheckedIOException wrapping the original {@link IOException} when the block is corrupted
+     */
+    public List<T> read(BlockInfo block) {
+        Inflater inflater = new Inflater(true);
+        try {
+            ByteBufferInputStream in = blockStream(buffer, block);
+            Blocks.BlockHeader header = readHeader(in, block);
+            byte[] compressed = new byte[header.compressedLength];
+            in.read(compressed, 0, compressed.length);
+            byte[] raw = Blocks.decompress(header, compressed, Crc32c.create(), inflater);
+            List<T> records = new ArrayList<>(header.records);
+            DecoderStream<T> decoder = container.codec.wrap(new ByteBufferInputStream(raw));
+            for (int i = 0; i < header.records; i++) {
+                records.add(decoder.read());
+            }
+            return records;
+        } catch (IOException e) {
+            return CodecUtil.throwUnchecked(e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private static ByteBufferInputStream blockStream(ByteBuffer buffer, BlockInfo block) {
+        ByteBuffer bytes = buffer.duplicate();
+        ((Buffer) bytes).limit((int) (block.offset() + block.length()));
+        ((Buffer) bytes).position((int) block.offset());
+        return new ByteBufferInputStream(bytes);
+    }
+
+    /*
+     * Read the header of the block leaving the stream positioned at the compressed bytes.
+     */
+    private static Blocks.BlockHeader readHeader(ByteBufferInputStream in, BlockInfo block) throws IOException {
+        Blocks.BlockHeader header = Blocks.BlockHeader.read(in);
+        if (header == null || header.records != block.recordCount() || header.compressedLength != in.available()) {
+            throw new IOException("corrupted block: header doesn't match the block index: " + block);
+        }
+        return header;
+    }
+}
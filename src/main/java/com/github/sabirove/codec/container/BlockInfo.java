@@ -0,0 +1,78 @@
+/*
+ * Copyright 2019 Sabirov Evgenii (sabirov.e@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.sabirove.codec.container;
+
+/**
+ * Location of the block within the {@link BlockContainer} as recorded in the block index footer.
+ */
+public final class BlockInfo {
+    private final long offset;
+    private final int length;
+    private final int recordCount;
+    private final long firstRecord;
+    private final BlockStats stats;
+
+    BlockInfo(long offset, int length, int recordCount, long firstRecord, BlockStats stats) {
+        this.offset = offset;
+        this.length = length;
+        this.recordCount = recordCount;
+        this.firstRecord = firstRecord;
+        this.stats = stats;
+    }
+
+    BlockInfo withStats(BlockStats stats) {
+        return new BlockInfo(offset, length, recordCount, firstRecord, stats);
+    }
+
+    /**
+     * Offset of the block relative to the start of the container.
+     */
+    public long offset() {
+        return offset;
+    }
+
+    /**
+     * Length of the block in bytes (header included).
+     */
+    public int length() {
+        return length;
+    }
+
+    public int recordCount() {
+        return recordCount;
+    }
+
+    /**
+     * Index of the first record of the block within the container.
+     */
+    public long firstRecord() {
+        return firstRecord;
+    }
+
+    /**
+     * Statistics of the block records (see {@link BlockContainer#withStatistics(BlockStatistic[])}).
+     */
+    public BlockStats stats() {
+        return stats;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("BlockInfo{offset=%s, length=%s, recordCount=%s, firstRecord=%s}",
+                offset, length, recordCount, firstRecord);
+    }
+}
@@ -0,0 +1,160 @@
+/*
+ * Copyright 2019 Sabirov Evgenii (sabirov.e@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.sabirove.codec.container;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.NoSuchElementException;
+import java.util.function.Predicate;
+import java.util.zip.Checksum;
+import java.util.zip.Inflater;
+
+import com.github.sabirove.codec.DecoderStream;
+import com.github.sabirove.codec.util.CodecUtil;
+import com.github.sabirove.codec.util.Crc32c;
+import com.github.sabirove.codec.util.SafeInputStream;
+
+/**
+ * Reads the records of the {@link BlockContainer} sequentially block by block: the block is decompressed
+ * only when its records are read, so the skipped blocks (including the ones not matching the statistics
+ * predicate) are never decompressed.
+ */
+public final class BlockReader<T> implements AutoCloseable {
+    private final BlockContainer<T> container;
+    private final InputStream in;
+    private final Predicate<BlockStats> filter;
+    private final Inflater inflater = new Inflater(true);
+    private final Checksum checksum = Crc32c.create();
+    private byte[] compressed = new byte[0];
+    //header of the next block read ahead, its body isn't read yet
+    private Blocks.BlockHeader pending;
+    private DecoderStream<T> decoder;
+    private int remaining;
+    private boolean end;
+
+    BlockReader(BlockContainer<T> container, InputStream in, Predicate<BlockStats> filter) {
+        this.container = container;
+        this.in = SafeInputStream.wrap(in);
+        this.filter = filter;
+        try {
+            Blocks.readHeader(this.in);
+        } catch (IOException e) {
+            CodecUtil.throwUnchecked(e);
+        }
+    }
+
+    /**
+     * Check whether there are more records to read.
+     *
+     * @throws UncheckedIOException wrapping the original {@link IOException} when IO operation fails
+     */
+    public boolean hasNext() {
+        if (remaining > 0 || pending != null) {
+            return true;
+        }
+        if (end) {
+            return false;
+        }
+        try {
+            Blocks.BlockHeader header;
+            while ((header = Blocks.BlockHeader.read(in)) != null
+                    && !filter.test(BlockStats.read(container.statistics, header.stats))) {
+                SafeInputStream.skipFully(in, header.compressedLength);
+            }
+            pending = header;
+        } catch (IOException e) {
+            CodecUtil.throwUnchecked(e);
+        }
+        end = pending == null;
+        return !end;
+    }
+
+    /**
+     * Read and decode the next record (decompressing the next block when the current one is exhausted).
+     *
+     * @throws NoSuchElementException when there are no more records
+     * @throws UncheckedIOException   wrapping the original {@link IOException} when IO operation fails
+     *                                (e.g. the block checksum doesn't match)
+     */
+    public T read() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        if (remaining == 0) {
+            loadBlock();
+        }
+        remaining--;
+        return decoder.read();
+    }
+
+    /**
+     * Skip the rest of the current block or the whole next matching block (without decompressing it)
+     * when no records of the current block are left.
+     *
+     * @return number of records skipped ({@code 0} when there are no more records)
+     * @throws UncheckedIOException wrapping the original {@link IOException} when IO operation fails
+     */
+    public int skipBlock() {
+        if (remaining > 0) {
+            int skipped = remaining;
+            remaining = 0;
+            decoder = null;
+            return skipped;
+        }
+        if (!hasNext()) {
+            return 0;
+        }
+        try {
+            SafeInputStream.skipFully(in, pending.compressedLength);
+        } catch (IOException e) {
+            CodecUtil.throwUnchecked(e);
+        }
+        int skipped = pending.records;
+        pending = null;
+        return skipped;
+    }
+
+    /**
+     * Closes the underlying {@link InputStream} as per the {@link AutoCloseable} contract.
+     *
+     * @throws UncheckedIOException wrapping the original {@link IOException} when IO operation fails
+     */
+    @Override
+    public void close() {
+        inflater.end();
+        try {
+            in.close();
+        } catch (IOException e) {
+            CodecUtil.throwUnchecked(e);
+        }
+    }
+
+    private void loadBlock() {
+        Blocks.BlockHeader header = pending;
+        pending = null;
+        try {
+            compressed = Blocks.readBytes(in, compressed, header.compressedLength);
+            byte[] raw = Blocks.decompress(header, compressed, checksum, inflater);
+            decoder = container.codec.wrap(new ByteArrayInputStream(raw));
+            remaining = header.records;
+        } catch (IOException e) {
+            CodecUtil.throwUnchecked(e);
+        }
+    }
+}
@@ -0,0 +1,45 @@
+/*
+ * Copyright 2019 Sabirov Evgenii (sabirov.e@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.sabirove.codec.container;
+
+import com.github.sabirove.codec.util.StateInputStream;
+import com.github.sabirove.codec.util.StateOutputStream;
+
+/**
+ * Per-block statistic of the {@link BlockContainer} records: the summary of type {@code S} is accumulated over
+ * the records of the block as they are written and stored in the block header, so that the readers can skip
+ * the blocks not matching the predicate over the summaries (see {@link BlockStats}) without decompressing them.
+ *
+ * @param <T> record type
+ * @param <S> summary type
+ * @apiNote use {@link BlockStatistics} factory to obtain an instance.
+ */
+public abstract class BlockStatistic<T, S> {
+
+    BlockStatistic() { }
+
+    abstract S newSummary();
+
+    abstract void accumulate(S summary, T value);
+
+    abstract void write(S summary, StateOutputStream out);
+
+    /**
+     * @param length byte length of the serialized summaries (bounds the sizes read from the possibly corrupted bytes)
+     */
+    abstract S read(StateInputStream in, int length);
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright 2019 Sabirov Evgenii (sabirov.e@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.sabirove.codec.container;
+
+import java.util.function.ToLongFunction;
+
+import com.github.sabirove.codec.util.StateInputStream;
+import com.github.sabirove.codec.util.StateOutputStream;
+
+
+import static com.github.sabirove.codec.util.CodecUtil.checkArgument;
+import static com.github.sabirove.codec.util.CodecUtil.checkNotNull;
+
+/**
+ * Factory of the {@link BlockStatistic} implementations.
+ */
+public final class BlockStatistics {
+
+    private BlockStatistics() { }
+
+    /**
+     * Min/max range of the {@code long} key extracted from the records (e.g. the timestamp)
+     * allowing to skip the blocks out of the range of interest:
+     * {@code stats -> stats.get(range).overlaps(from, to)}.
+     */
+    public static <T> BlockStatistic<T, LongRange> longRange(ToLongFunction<? super T> key) {
+        return new LongRangeStatistic<>(checkNotNull(key));
+    }
+
+    /**
+     * Bloom filter of the {@code long} key extracted from the records (e.g. the id)
+     * allowing to skip the blocks which definitely don't contain the key:
+     * {@code stats -> stats.get(bloom).mightContain(id)}.
+     *
+     * @param expectedRecords   number of the records per block the filter is sized for
+     * @param falsePositiveRate desired false positive probability at the expected number of records
+     */
+    public static <T> BlockStatistic<T, LongBloomFilter> bloomFilter(ToLongFunction<? super T> key,
+                                                                     int expectedRecords,
+                                                                     double falsePositiveRate) {
+        checkArgument(expectedRecords > 0, "expected records should be positive");
+        checkArgument(falsePositiveRate > 0 && falsePositiveRate < 1, "false positive rate should be in (0, 1)");
+        double ln2 = Math.log(2);
+        long bits = (long) Math.ceil(-expectedRecords * Math.log(falsePositiveRate) / (ln2 * ln2));
+        int words = (int) Math.min(Integer.MAX_VALUE / 64, Math.max(1, (bits + 63) / 64));
+        int hashes = (int) Math.max(1, Math.round((double) words * 64 / expectedRecords * ln2));
+        return new BloomFilterStatistic<>(checkNotNull(key), words, hashes);
+    }
+
+    private static final class LongRangeStatistic<T> extends BlockStatistic<T, LongRange> {
+        private final ToLongFunction<? super T> key;
+
+        LongRangeStatistic(ToLongFunction<? super T> key) {
+            this.key = key;
+        }
+
+        @Override
+        LongRange newSummary() {
+            return new LongRange();
+        }
+
+        @Override
+        void accumulate(LongRange summary, T value) {
+            summary.add(key.applyAsLong(value));
+        }
+
+        @Override
+        void write(LongRange summary, StateOutputStream out) {
+            out.putSignedVarLong(summary.min()).putSignedVarLong(summary.max());
+        }
+
+        @Override
+        LongRange read(StateInputStream in, int length) {
+            return new LongRange(in.getSignedVarLong(), in.getSignedVarLong());
+        }
+    }
+
+    private static final class BloomFilterStatistic<T> extends BlockStatistic<T, LongBloomFilter> {
+        private final ToLongFunction<? super T> key;
+        private final int words;
+        private final int hashes;
+
+        BloomFilterStatistic(ToLongFunction<? super T> key, int words, int hashes) {
+            this.key = key;
+            this.words = words;
+            this.hashes = hashes;
+        }
+
+        @Override
+        LongBloomFilter newSummary() {
+            return new LongBloomFilter(new long[words], hashes);
+        }
+
+        @Override
+        void accumulate(LongBloomFilter summary, T value) {
+            summary.put(key.applyAsLong(value));
+        }
+
+        @Override
+        void write(LongBloomFilter summary, StateOutputStream out) {
+            out.putUnsignedVarInt(summary.hashes()).putLongs(summary.bits());
+        }
+
+        @Override
+        LongBloomFilter read(StateInputStream in, int length) {
+            int hashes = in.getUnsignedVarInt();
+            int size = in.getUnsignedVarInt();
+            if (size == 0 || size > length / Long.BYTES) {
+                throw new IllegalStateException("malformed bloom filter");
+            }
+            long[] bits = new long[size];
+            for (int i = 0; i < size; i++) {
+                bits[i] = in.getLong();
+            }
+            return new LongBloomFilter(bits, hashes);
+        }
+    }
+}
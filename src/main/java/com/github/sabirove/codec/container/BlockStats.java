@@ -0,0 +1,93 @@
+/*
+ * Copyright 2019 Sabirov Evgenii (sabirov.e@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.sabirove.codec.container;
+
+import java.io.IOException;
+import java.util.List;
+
+import com.github.sabirove.codec.util.ByteBufferInputStream;
+import com.github.sabirove.codec.util.StateInputStream;
+import com.github.sabirove.codec.util.StateOutputStream;
+
+/**
+ * Summaries of the {@link BlockStatistic}s configured for the {@link BlockContainer} read from the block header.
+ */
+public final class BlockStats {
+    private final List<? extends BlockStatistic<?, ?>> statistics;
+    private final Object[] summaries;
+
+    private BlockStats(List<? extends BlockStatistic<?, ?>> statistics, Object[] summaries) {
+        this.statistics = statistics;
+        this.summaries = summaries;
+    }
+
+    /**
+     * Get the summary of the statistic for the block.
+     *
+     * @param statistic one of the statistics the container is configured with
+     * @return summary or {@code null} when the statistic is not recorded for the block
+     * (e.g. the container was written without it)
+     */
+    public <S> S get(BlockStatistic<?, S> statistic) {
+        int index = statistics.indexOf(statistic);
+        @SuppressWarnings("unchecked")
+        S summary = index < 0 ? null : (S) summaries[index];
+        return summary;
+    }
+
+    static <T> Object[] newSummaries(List<BlockStatistic<T, ?>> statistics) {
+        Object[] summaries = new Object[statistics.size()];
+        for (int i = 0; i < summaries.length; i++) {
+            summaries[i] = statistics.get(i).newSummary();
+        }
+        return summaries;
+    }
+
+    @SuppressWarnings("unchecked")
+    static <T> void accumulate(List<BlockStatistic<T, ?>> statistics, Object[] summaries, T value) {
+        for (int i = 0; i < summaries.length; i++) {
+            ((BlockStatistic<T, Object>) statistics.get(i)).accumulate(summaries[i], value);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    static <T> void write(List<BlockStatistic<T, ?>> statistics, Object[] summaries, StateOutputStream out) {
+        for (int i = 0; i < summaries.length; i++) {
+            ((BlockStatistic<T, Object>) statistics.get(i)).write(summaries[i], out);
+        }
+    }
+
+    /**
+     * Parse the summaries serialized in the block header (empty bytes when the block has no statistics).
+     *
+     * @throws IOException when the bytes are malformed: the header is parsed before the block checksum is verified
+     */
+    static <T> BlockStats read(List<BlockStatistic<T, ?>> statistics, byte[] bytes) throws IOException {
+        Object[] summaries = new Object[statistics.size()];
+        if (bytes.length > 0) {
+            StateInputStream in = new StateInputStream(new ByteBufferInputStream(bytes));
+            try {
+                for (int i = 0; i < summaries.length; i++) {
+                    summaries[i] = statistics.get(i).read(in, bytes.length);
+                }
+            } catch (RuntimeException e) {
+                throw new IOException("corrupted block statistics", e);
+            }
+        }
+        return new BlockStats(statistics, summaries);
+    }
+}
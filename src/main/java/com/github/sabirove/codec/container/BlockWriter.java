@@ -0,0 +1,199 @@
+/*
+ * Copyright 2019 Sabirov Evgenii (sabirov.e@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.sabirove.codec.container;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.Checksum;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+import com.github.sabirove.codec.EncoderStream;
+import com.github.sabirove.codec.util.CodecUtil;
+import com.github.sabirove.codec.util.Crc32c;
+import com.github.sabirove.codec.util.StateOutputStream;
+import com.github.sabirove.codec.util.Varint;
+
+
+import static com.github.sabirove.codec.container.BlockContainer.HEADER_LENGTH;
+
+/**
+ * Writes the records grouped into the compressed blocks according to the {@link BlockContainer} format.
+ * <p>
+ * The container is complete only after the writer is closed (the last block and the block index footer
+ * are written out on close).
+ */
+public final class BlockWriter<T> implements AutoCloseable, Flushable {
+    private static final int COMPRESS_BUFFER_SIZE = 8192;
+    private static final byte[] EMPTY = new byte[0];
+
+    private final BlockContainer<T> container;
+    private final OutputStream out;
+    //plain ByteArrayOutputStream: excluded from the codec buffering, so that the size is up to date
+    private final ByteArrayOutputStream raw = new ByteArrayOutputStream();
+    private final CompressedBuffer compressed = new CompressedBuffer();
+    private final Deflater deflater;
+    private final Checksum checksum = Crc32c.create();
+    private final List<BlockInfo> blocks = new ArrayList<>();
+    private EncoderStream<T> encoder;
+    private Object[] summaries;
+    private int records;
+    private long recordCount;
+    private long position;
+    private boolean closed;
+
+    BlockWriter(BlockContainer<T> container, OutputStream out) {
+        this.container = container;
+        this.out = out;
+        this.deflater = new Deflater(container.compressionLevel, true);
+        try {
+            Blocks.writeHeader(out);
+        } catch (IOException e) {
+            CodecUtil.throwUnchecked(e);
+        }
+        this.position = HEADER_LENGTH;
+    }
+
+    /**
+     * Encode the record into the current block (the block is compressed and written out once full).
+     *
+     * @throws UncheckedIOException wrapping the original {@link IOException} when IO operation fails
+     */
+    public void write(T value) {
+        CodecUtil.checkState(!closed, "writer is closed");
+        if (encoder == null) {
+            encoder = container.codec.wrap(raw);
+            summaries = BlockStats.newSummaries(container.statistics);
+        }
+        encoder.write(value);
+        BlockStats.accumulate(container.statistics, summaries, value);
+        records++;
+        if (records >= container.maxBlockRecords || raw.size() >= container.maxBlockBytes) {
+            writeBlock();
+        }
+    }
+
+    /**
+     * Complete the current block right away (if any records are pending).
+     *
+     * @throws UncheckedIOException wrapping the original {@link IOException} when IO operation fails
+     */
+    public void writeBlock() {
+        if (records == 0) {
+            return;
+        }
+        //close to let the codec filters (if any) complete the block bytes
+        encoder.close();
+        encoder = null;
+        try {
+            compress();
+            int compressedLength = compressed.size();
+            byte[] stats = writeStats();
+            int crc = Blocks.checksum(checksum, records, raw.size(), stats, compressed.buffer(), compressedLength);
+            Blocks.BlockHeader header = new Blocks.BlockHeader(records, raw.size(), compressedLength, crc, stats);
+            header.write(out);
+            out.write(compressed.buffer(), 0, compressedLength);
+            blocks.add(new BlockInfo(position, header.size() + compressedLength, records, recordCount, null));
+            recordCount += records;
+            position += header.size() + compressedLength;
+        } catch (IOException e) {
+            CodecUtil.throwUnchecked(e);
+        } finally {
+            raw.reset();
+            records = 0;
+        }
+    }
+
+    /**
+     * Get the number of the blocks written so far.
+     */
+    public int blockCount() {
+        return blocks.size();
+    }
+
+    /**
+     * Flush the underlying stream (the pending block is not completed: see {@link #writeBlock()}).
+     *
+     * @throws UncheckedIOException wrapping the original {@link IOException} when IO operation fails
+     */
+    @Override
+    public void flush() {
+        try {
+            out.flush();
+        } catch (IOException e) {
+            CodecUtil.throwUnchecked(e);
+        }
+    }
+
+    /**
+     * Write the pending block and the block index footer out and close the underlying stream.
+     *
+     * @throws UncheckedIOException wrapping the original {@link IOException} when IO operation fails
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try (OutputStream os = out) {
+            writeBlock();
+            Varint.writeUnsignedVarInt(0, os);
+            long footerOffset = position + 1;
+            Blocks.writeFooter(blocks, os);
+            for (int i = 56; i >= 0; i -= 8) {
+                os.write((int) (footerOffset >>> i));
+            }
+            Blocks.writeInt(BlockContainer.MAGIC, os);
+            os.flush();
+        } catch (IOException e) {
+            CodecUtil.throwUnchecked(e);
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private byte[] writeStats() {
+        if (summaries.length == 0) {
+            return EMPTY;
+        }
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        StateOutputStream sos = new StateOutputStream(bos);
+        BlockStats.write(container.statistics, summaries, sos);
+        sos.flush();
+        return bos.toByteArray();
+    }
+
+    private void compress() throws IOException {
+        deflater.reset();
+        compressed.reset();
+        DeflaterOutputStream dos = new DeflaterOutputStream(compressed, deflater, COMPRESS_BUFFER_SIZE);
+        raw.writeTo(dos);
+        dos.finish();
+    }
+
+    private static final class CompressedBuffer extends ByteArrayOutputStream {
+        byte[] buffer() {
+            return buf;
+        }
+    }
+}
@@ -0,0 +1,241 @@
+/*
+ * Copyright 2019 Sabirov Evgenii (sabirov.e@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.sabirove.codec.container;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.Checksum;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+import com.github.sabirove.codec.util.Varint;
+
+
+import static com.github.sabirove.codec.container.BlockContainer.MAGIC;
+import static com.github.sabirove.codec.container.BlockContainer.VERSION;
+
+/*
+ * Block format routines shared by the sequential and the random access readers.
+ */
+final class Blocks {
+    private static final int READ_CHUNK_SIZE = 8192;
+    private static final byte[] EMPTY = new byte[0];
+
+    private Blocks() { }
+
+    static void writeInt(int value, OutputStream out) throws IOException {
+        out.write(value >>> 24);
+        out.write(value >>> 16);
+        out.write(value >>> 8);
+        out.write(value);
+    }
+
+    static int readInt(InputStream in) throws IOException {
+        int value = 0;
+        for (int i = 0; i < 4; i++) {
+            int b = in.read();
+            if (b == -1) {
+                throw new EOFException();
+            }
+            value = value << 8 | b;
+        }
+        return value;
+    }
+
+    static void writeHeader(OutputStream out) throws IOException {
+        writeInt(MAGIC, out);
+        out.write(VERSION);
+    }
+
+    static void readHeader(InputStream in) throws IOException {
+        if (readInt(in) != MAGIC || in.read() != VERSION) {
+            throw new IOException("not a block container: malformed header");
+        }
+    }
+
+    /**
+     * Block header: the compressed bytes follow.
+     */
+    static final class BlockHeader {
+        final int records;
+        final int rawLength;
+        final int compressedLength;
+        final int checksum;
+        final byte[] stats;
+
+        BlockHeader(int records, int rawLength, int compressedLength, int checksum, byte[] stats) {
+            this.records = records;
+            this.rawLength = rawLength;
+            this.compressedLength = compressedLength;
+            this.checksum = checksum;
+            this.stats = stats;
+        }
+
+        void write(OutputStream out) throws IOException {
+            Varint.writeUnsignedVarInt(records, out);
+            Varint.writeUnsignedVarInt(rawLength, out);
+            Varint.writeUnsignedVarInt(compressedLength, out);
+            writeInt(checksum, out);
+            Varint.writeUnsignedVarInt(stats.length, out);
+            out.write(stats);
+        }
+
+        int size() {
+            return Varint.unsignedVarIntSize(records) + Varint.unsignedVarIntSize(rawLength)
+                    + Varint.unsignedVarIntSize(compressedLength) + 4
+                    + Varint.unsignedVarIntSize(stats.length) + stats.length;
+        }
+
+        /**
+         * @param in 'safe' stream reading fully (see {@link com.github.sabirove.codec.util.SafeInputStream})
+         * @return {@code null} when the end of blocks marker is read
+         */
+        static BlockHeader read(InputStream in) throws IOException {
+            int records = readLength(in);
+            if (records == 0) {
+                return null;
+            }
+            int rawLength = readLength(in);
+            int compressedLength = readLength(in);
+            int checksum = readInt(in);
+            int statsLength = readLength(in);
+            byte[] stats = statsLength == 0 ? EMPTY : Arrays.copyOf(readBytes(in, EMPTY, statsLength), statsLength);
+            return new BlockHeader(records, rawLength, compressedLength, checksum, stats);
+        }
+
+        private static int readLength(InputStream in) throws IOException {
+            int value;
+            try {
+                value = Varint.readUnsignedVarInt(in);
+            } catch (IllegalArgumentException e) {
+                throw new IOException("corrupted block header: malformed length", e);
+            }
+            if (value < 0) {
+                throw new IOException("corrupted block header: negative length");
+            }
+            return value;
+        }
+    }
+
+    /**
+     * Compute the checksum of the block: the header fields, the statistics and the compressed bytes.
+     */
+    static int checksum(Checksum checksum, int records, int rawLength, byte[] stats, byte[] compressed,
+                        int compressedLength) {
+        checksum.reset();
+        update(checksum, records);
+        update(checksum, rawLength);
+        update(checksum, compressedLength);
+        update(checksum, stats.length);
+        checksum.update(stats, 0, stats.length);
+        checksum.update(compressed, 0, compressedLength);
+        return (int) checksum.getValue();
+    }
+
+    private static void update(Checksum checksum, int value) {
+        checksum.update(value >>> 24);
+        checksum.update(value >>> 16);
+        checksum.update(value >>> 8);
+        checksum.update(value);
+    }
+
+    /**
+     * Read the {@code length} bytes into the buffer growing it in chunks as the bytes arrive: the (unchecked)
+     * length read from the stream doesn't cause the allocation up front.
+     *
+     * @param in 'safe' stream reading fully (see {@link com.github.sabirove.codec.util.SafeInputStream})
+     * @return the provided buffer or the grown copy of it
+     */
+    static byte[] readBytes(InputStream in, byte[] buffer, int length) throws IOException {
+        int off = 0;
+        while (off < length) {
+            if (off == buffer.length) {
+                buffer = Arrays.copyOf(buffer, (int) Math.min(length, Math.max(2L * off, READ_CHUNK_SIZE)));
+            }
+            int n = Math.min(length, buffer.length) - off;
+            if (in.read(buffer, off, n) < n) {
+                throw new EOFException();
+            }
+            off += n;
+        }
+        return buffer;
+    }
+
+    /**
+     * Validate the checksum of the block and inflate the compressed bytes: the raw length is trusted
+     * only once the checksum (covering the header fields as well) matches.
+     */
+    static byte[] decompress(BlockHeader header, byte[] compressed, Checksum checksum, Inflater inflater)
+            throws IOException {
+        int actual = checksum(checksum, header.records, header.rawLength, header.stats, compressed,
+                header.compressedLength);
+        if (actual != header.checksum) {
+            throw new IOException("corrupted block: CRC32C checksum mismatch");
+        }
+        byte[] raw = new byte[header.rawLength];
+        inflater.reset();
+        inflater.setInput(compressed, 0, header.compressedLength);
+        try {
+            int inflated = 0;
+            while (inflated < raw.length && !inflater.finished()) {
+                int n = inflater.inflate(raw, inflated, raw.length - inflated);
+                if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                inflated += n;
+            }
+            if (inflated != raw.length) {
+                throw new IOException("corrupted block: raw length mismatch");
+            }
+        } catch (DataFormatException e) {
+            throw new IOException("corrupted block: " + e.getMessage(), e);
+        }
+        return raw;
+    }
+
+    static void writeFooter(List<BlockInfo> blocks, OutputStream out) throws IOException {
+        Varint.writeUnsignedVarInt(blocks.size(), out);
+        for (BlockInfo block : blocks) {
+            Varint.writeUnsignedVarLong(block.offset(), out);
+            Varint.writeUnsignedVarInt(block.length(), out);
+            Varint.writeUnsignedVarInt(block.recordCount(), out);
+        }
+    }
+
+    static List<BlockInfo> readFooter(InputStream in) throws IOException {
+        try {
+            int count = Varint.readUnsignedVarInt(in);
+            List<BlockInfo> blocks = new ArrayList<>(Math.min(count, 1024));
+            long firstRecord = 0;
+            for (int i = 0; i < count; i++) {
+                long offset = Varint.readUnsignedVarLong(in);
+                int length = Varint.readUnsignedVarInt(in);
+                int records = Varint.readUnsignedVarInt(in);
+                blocks.add(new BlockInfo(offset, length, records, firstRecord, null));
+                firstRecord += records;
+            }
+            return blocks;
+        } catch (IllegalArgumentException e) {
+            throw new IOException("corrupted block index: malformed length", e);
+        }
+    }
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright 2019 Sabirov Evgenii (sabirov.e@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.sabirove.codec.container;
+
+/**
+ * Min/max range of the {@code long} keys of the block records (see {@link BlockStatistics#longRange}).
+ */
+public final class LongRange {
+    private long min = Long.MAX_VALUE;
+    private long max = Long.MIN_VALUE;
+
+    LongRange() { }
+
+    LongRange(long min, long max) {
+        this.min = min;
+        this.max = max;
+    }
+
+    void add(long value) {
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+    }
+
+    public long min() {
+        return min;
+    }
+
+    public long max() {
+        return max;
+    }
+
+    public boolean contains(long value) {
+        return value >= min && value <= max;
+    }
+
+    /**
+     * Check whether the range overlaps with the {@code [from, to]} range (both ends inclusive).
+     */
+    public boolean overlaps(long from, long to) {
+        return from <= max && to >= min;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("LongRange{min=%s, max=%s}", min, max);
+    }
+}
@@ -0,0 +1,135 @@
+/*
+ * Copyright 2019 Sabirov Evgenii (sabirov.e@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.sabirove.codec.container;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.security.SecureRandom;
+import java.util.Random;
+
+import com.github.sabirove.codec.Codec;
+
+
+import static com.github.sabirove.codec.util.CodecUtil.checkArgument;
+import static com.github.sabirove.codec.util.CodecUtil.checkNotNull;
+
+/**
+ * Framed record container format: a self-delimiting sequence of the values encoded by the {@link Codec}
+ * allowing to skip the records without decoding them, re-synchronize after the corruption and start
+ * reading from an arbitrary byte offset (e.g. to split the file across the workers).
+ * <p>
+ * Layout:
+ * <ul>
+ * <li>header: {@code [4 bytes: magic][1 byte: version][16 bytes: random sync marker]}</li>
+ * <li>record frame: {@code [1 byte: flags][unsigned varint: length][length bytes: encoded value]}</li>
+ * <li>sync point: {@code [1 byte: 0x80][16 bytes: sync marker]}, written before the record frame
+ * once at least {@code syncInterval} bytes have been written since the previous sync point</li>
+ * </ul>
+ * Record flags are the user defined values in the {@code [0, 127]} range (the highest bit is reserved).
+ * <p>
+ * Splitting: the reader of the {@code [start, end)} range is obtained with
+ * {@link #reader(InputStream, byte[], long)} over the stream positioned at {@code start} and reads the records
+ * while {@code reader.hasNext() && reader.lastSyncPosition() < end}. This way every record is read exactly once
+ * across the adjacent ranges.
+ *
+ * @apiNote instances are immutable and thread safe; the streams are used as is, so the buffered ones
+ * are expected for the file IO.
+ */
+public final class RecordContainer<T> {
+    static final int MAGIC = 0x43444352; //"CDCR"
+    static final int VERSION = 1;
+    static final int SYNC_MARKER_LENGTH = 16;
+    static final int SYNC_FLAG = 0x80;
+    static final int MAX_USER_FLAGS = 0x7F;
+    static final int HEADER_LENGTH = 5 + SYNC_MARKER_LENGTH;
+
+    private static final int DEFAULT_SYNC_INTERVAL = 64 * 1024;
+    private static final int DEFAULT_MAX_RECORD_SIZE = 64 * 1024 * 1024;
+    private static final Random SYNC_MARKER_RANDOM = new SecureRandom();
+
+    final Codec<T> codec;
+    final int syncInterval;
+    final int maxRecordSize;
+
+    private RecordContainer(Codec<T> codec, int syncInterval, int maxRecordSize) {
+        this.codec = codec;
+        this.syncInterval = syncInterval;
+        this.maxRecordSize = maxRecordSize;
+    }
+
+    /**
+     * Container of the values encoded by the provided codec with the default sync interval of 64 KB
+     * and the default max record size of 64 MB.
+     */
+    public static <T> RecordContainer<T> of(Codec<T> codec) {
+        return new RecordContainer<>(checkNotNull(codec), DEFAULT_SYNC_INTERVAL, DEFAULT_MAX_RECORD_SIZE);
+    }
+
+    /**
+     * Get the copy of this instance writing the sync points every {@code bytes} bytes (approximately).
+     */
+    public RecordContainer<T> withSyncInterval(int bytes) {
+        checkArgument(bytes > 0, "sync interval should be positive");
+        return new RecordContainer<>(codec, bytes, maxRecordSize);
+    }
+
+    /**
+     * Get the copy of this instance limiting the size of the encoded record: larger records are rejected
+     * by the writer, larger frames are reported as corrupted by the reader (bounding the allocation).
+     */
+    public RecordContainer<T> withMaxRecordSize(int bytes) {
+        checkArgument(bytes > 0, "max record size should be positive");
+        return new RecordContainer<>(codec, syncInterval, bytes);
+    }
+
+    /**
+     * Write the container header to the provided stream and wrap it to write the records.
+     *
+     * @throws UncheckedIOException wrapping the original {@link IOException} when IO operation fails
+     */
+    public RecordWriter<T> writer(OutputStream out) {
+        byte[] syncMarker = new byte[SYNC_MARKER_LENGTH];
+        SYNC_MARKER_RANDOM.nextBytes(syncMarker);
+        return new RecordWriter<>(this, checkNotNull(out), syncMarker);
+    }
+
+    /**
+     * Read the container header from the provided stream and wrap it to read the records from the start.
+     *
+     * @throws UncheckedIOException wrapping the original {@link IOException} when IO operation fails
+     *                              (e.g. the stream doesn't start with the valid header)
+     */
+    public RecordReader<T> reader(InputStream in) {
+        return RecordReader.fromStart(this, checkNotNull(in));
+    }
+
+    /**
+     * Wrap the provided stream positioned at the arbitrary {@code offset} within the container
+     * to read the records starting from the first sync point found at or after the {@code offset}.
+     *
+     * @param syncMarker the sync marker of the container (see {@link RecordReader#syncMarker()})
+     * @param offset     current position of the stream relative to the start of the container
+     * @throws UncheckedIOException wrapping the original {@link IOException} when IO operation fails
+     */
+    public RecordReader<T> reader(InputStream in, byte[] syncMarker, long offset) {
+        checkArgument(checkNotNull(syncMarker).length == SYNC_MARKER_LENGTH, "sync marker should be 16 bytes long");
+        checkArgument(offset >= 0, "offset should be non-negative");
+        return RecordReader.fromOffset(this, checkNotNull(in), syncMarker.clone(), offset);
+    }
+}
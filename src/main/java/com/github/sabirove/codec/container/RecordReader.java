@@ -0,0 +1,302 @@
+/*
+ * Copyright 2019 Sabirov Evgenii (sabirov.e@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.sabirove.codec.container;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+import com.github.sabirove.codec.util.CodecUtil;
+import com.github.sabirove.codec.util.SafeInputStream;
+
+
+import static com.github.sabirove.codec.container.RecordContainer.*;
+
+/**
+ * Reads the records framed according to the {@link RecordContainer} format from the underlying stream.
+ * <p>
+ * When the frame is found to be corrupted ({@link UncheckedIOException} or the codec failure on read),
+ * call {@link #sync()} to skip to the next sync point and continue reading.
+ */
+public final class RecordReader<T> implements AutoCloseable {
+    private static final int NO_FRAME = -1;
+
+    private final RecordContainer<T> container;
+    private final InputStream in;
+    private final byte[] syncMarker;
+    private long position;
+    private long lastSyncPosition = -1;
+    //flags of the frame whose header is read but the body isn't (NO_FRAME if none)
+    private int pendingFlags = NO_FRAME;
+    private int pendingLength;
+    private int flags;
+    private boolean eof;
+
+    private RecordReader(RecordContainer<T> container, InputStream in, byte[] syncMarker, long position) {
+        this.container = container;
+        this.in = SafeInputStream.wrap(in);
+        this.syncMarker = syncMarker;
+        this.position = position;
+    }
+
+    static <T> RecordReader<T> fromStart(RecordContainer<T> container, InputStream in) {
+        byte[] header = new byte[HEADER_LENGTH];
+        RecordReader<T> reader = new RecordReader<>(container, in, new byte[SYNC_MARKER_LENGTH], 0);
+        try {
+            reader.readFully(header, header.length);
+        } catch (IOException e) {
+            CodecUtil.throwUnchecked(e);
+        }
+        int magic = (header[0] & 0xFF) << 24 | (header[1] & 0xFF) << 16 | (header[2] & 0xFF) << 8 | header[3] & 0xFF;
+        if (magic != MAGIC || header[4] != VERSION) {
+            CodecUtil.throwUnchecked(new IOException("not a record container: malformed header"));
+        }
+        System.arraycopy(header, 5, reader.syncMarker, 0, SYNC_MARKER_LENGTH);
+        reader.lastSyncPosition = HEADER_LENGTH - SYNC_MARKER_LENGTH;
+        return reader;
+    }
+
+    static <T> RecordReader<T> fromOffset(RecordContainer<T> container,
+                                          InputStream in,
+                                          byte[] syncMarker,
+                                          long offset) {
+        RecordReader<T> reader = new RecordReader<>(container, in, syncMarker, offset);
+        reader.sync();
+        return reader;
+    }
+
+    /**
+     * Check whether there are more records to read (sync points ahead are passed through).
+     *
+     * @throws UncheckedIOException wrapping the original {@link IOException} when IO operation fails
+     */
+    public boolean hasNext() {
+        try {
+            return nextFrame();
+        } catch (IOException e) {
+            return CodecUtil.throwUnchecked(e);
+        }
+    }
+
+    /**
+     * Read and decode the next record.
+     *
+     * @throws NoSuchElementException when there are no more records
+     * @throws UncheckedIOException   wrapping the original {@link IOException} when IO operation fails
+     *                                (e.g. the frame is found to be corrupted)
+     */
+    public T read() {
+        return container.codec.decode(nextFrameBytes());
+    }
+
+    /**
+     * Get the bytes of the next record as encoded by the codec without decoding them.
+     *
+     * @throws NoSuchElementException when there are no more records
+     * @throws UncheckedIOException   wrapping the original {@link IOException} when IO operation fails
+     */
+    public byte[] readEncoded() {
+        return nextFrameBytes();
+    }
+
+    /**
+     * Skip the next record without decoding it.
+     *
+     * @throws NoSuchElementException when there are no more records
+     * @throws UncheckedIOException   wrapping the original {@link IOException} when IO operation fails
+     */
+    public void skip() {
+        try {
+            requireFrame();
+            SafeInputStream.skipFully(in, pendingLength);
+            position += pendingLength;
+            consumeFrame();
+        } catch (IOException e) {
+            CodecUtil.throwUnchecked(e);
+        }
+    }
+
+    /**
+     * Get the flags of the record last read or skipped.
+     */
+    public int flags() {
+        return flags;
+    }
+
+    /**
+     * Get the current position relative to the start of the container.
+     */
+    public long position() {
+        return position;
+    }
+
+    /**
+     * Get the position of the last sync marker passed ({@code -1} if none).
+     */
+    public long lastSyncPosition() {
+        return lastSyncPosition;
+    }
+
+    /**
+     * Get the sync marker of the container (required to read the container starting from an arbitrary offset).
+     */
+    public byte[] syncMarker() {
+        return syncMarker.clone();
+    }
+
+    /**
+     * Scan forward to the next sync point (e.g. after the corrupted frame is encountered) skipping the rest
+     * of the bytes before it.
+     *
+     * @return {@code false} when the end of the stream is reached before the sync marker is found
+     * @throws UncheckedIOException wrapping the original {@link IOException} when IO operation fails
+     */
+    public boolean sync() {
+        pendingFlags = NO_FRAME;
+        byte[] window = new byte[SYNC_MARKER_LENGTH];
+        //ring index of the oldest byte in the window (stays bounded however far the scan goes)
+        int idx = 0;
+        boolean filled = false;
+        try {
+            while (true) {
+                int b = in.read();
+                if (b == -1) {
+                    eof = true;
+                    return false;
+                }
+                position++;
+                //brute force rolling match: sync points are rare and the marker is short
+                window[idx] = (byte) b;
+                if (++idx == SYNC_MARKER_LENGTH) {
+                    idx = 0;
+                    filled = true;
+                }
+                if (filled && matches(window, idx)) {
+                    lastSyncPosition = position - SYNC_MARKER_LENGTH;
+                    return true;
+                }
+            }
+        } catch (IOException e) {
+            return CodecUtil.throwUnchecked(e);
+        }
+    }
+
+    /**
+     * Closes the underlying {@link InputStream} as per the {@link AutoCloseable} contract.
+     *
+     * @throws UncheckedIOException wrapping the original {@link IOException} when IO operation fails
+     */
+    @Override
+    public void close() {
+        try {
+            in.close();
+        } catch (IOException e) {
+            CodecUtil.throwUnchecked(e);
+        }
+    }
+
+    private boolean matches(byte[] window, int start) {
+        for (int i = 0; i < SYNC_MARKER_LENGTH; i++) {
+            if (window[(start + i) % SYNC_MARKER_LENGTH] != syncMarker[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private byte[] nextFrameBytes() {
+        try {
+            requireFrame();
+            byte[] bytes = new byte[pendingLength];
+            readFully(bytes, bytes.length);
+            consumeFrame();
+            return bytes;
+        } catch (IOException e) {
+            return CodecUtil.throwUnchecked(e);
+        }
+    }
+
+    private void requireFrame() throws IOException {
+        if (!nextFrame()) {
+            throw new NoSuchElementException();
+        }
+    }
+
+    private void consumeFrame() {
+        flags = pendingFlags;
+        pendingFlags = NO_FRAME;
+    }
+
+    private boolean nextFrame() throws IOException {
+        while (pendingFlags == NO_FRAME) {
+            if (eof) {
+                return false;
+            }
+            int b = in.read();
+            if (b == -1) {
+                eof = true;
+                return false;
+            }
+            long frameStart = position++;
+            if (b == SYNC_FLAG) {
+                byte[] marker = new byte[SYNC_MARKER_LENGTH];
+                readFully(marker, marker.length);
+                if (!Arrays.equals(marker, syncMarker)) {
+                    throw new IOException(String.format("corrupted frame at %s: sync marker mismatch", frameStart));
+                }
+                lastSyncPosition = frameStart + 1;
+            } else if (b > MAX_USER_FLAGS) {
+                throw new IOException(String.format("corrupted frame at %s: unexpected flags=%s", frameStart, b));
+            } else {
+                int length = readLength();
+                if (length < 0 || length > container.maxRecordSize) {
+                    throw new IOException(String.format(
+                            "corrupted frame at %s: length=%s exceeds the max record size", frameStart, length));
+                }
+                pendingLength = length;
+                pendingFlags = b;
+            }
+        }
+        return true;
+    }
+
+    private int readLength() throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            int b = in.read();
+            if (b == -1) {
+                throw new EOFException();
+            }
+            position++;
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException(String.format("corrupted frame before %s: malformed length", position));
+    }
+
+    private void readFully(byte[] buf, int len) throws IOException {
+        if (len > 0 && in.read(buf, 0, len) < len) {
+            throw new EOFException();
+        }
+        position += len;
+    }
+}
@@ -0,0 +1,161 @@
+/*
+ * Copyright 2019 Sabirov Evgenii (sabirov.e@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.sabirove.codec.container;
+
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+
+import com.github.sabirove.codec.util.CodecUtil;
+
+
+import static com.github.sabirove.codec.container.RecordContainer.*;
+
+/**
+ * Writes the records framed according to the {@link RecordContainer} format to the underlying stream.
+ */
+public final class RecordWriter<T> implements AutoCloseable, Flushable {
+    private final RecordContainer<T> container;
+    private final OutputStream out;
+    private final byte[] syncMarker;
+    //flags + varint length
+    private final byte[] frameHeader = new byte[6];
+    private long position;
+    private long lastSyncPosition;
+
+    RecordWriter(RecordContainer<T> container, OutputStream out, byte[] syncMarker) {
+        this.container = container;
+        this.out = out;
+        this.syncMarker = syncMarker;
+        try {
+            byte[] header = new byte[HEADER_LENGTH];
+            header[0] = (byte) (MAGIC >>> 24);
+            header[1] = (byte) (MAGIC >>> 16);
+            header[2] = (byte) (MAGIC >>> 8);
+            header[3] = (byte) MAGIC;
+            header[4] = (byte) VERSION;
+            System.arraycopy(syncMarker, 0, header, 5, SYNC_MARKER_LENGTH);
+            out.write(header);
+        } catch (IOException e) {
+            CodecUtil.throwUnchecked(e);
+        }
+        this.position = HEADER_LENGTH;
+        this.lastSyncPosition = HEADER_LENGTH - SYNC_MARKER_LENGTH;
+    }
+
+    /**
+     * Shortcut for {@link #write(Object, int)} with no flags.
+     */
+    public void write(T value) {
+        write(value, 0);
+    }
+
+    /**
+     * Encode and write the record frame (preceded by the sync point when the sync interval is passed).
+     *
+     * @param flags user defined record flags in the {@code [0, 127]} range
+     * @throws IllegalArgumentException when the encoded value exceeds the max record size
+     * @throws UncheckedIOException     wrapping the original {@link IOException} when IO operation fails
+     */
+    public void write(T value, int flags) {
+        CodecUtil.checkArgument(flags >= 0 && flags <= MAX_USER_FLAGS, "flags should be in the [0, 127] range");
+        byte[] bytes = container.codec.encode(value);
+        CodecUtil.checkArgument(bytes.length <= container.maxRecordSize,
+                "encoded record size=%s exceeds the max record size=%s", bytes.length, container.maxRecordSize);
+        try {
+            if (position - lastSyncPosition >= container.syncInterval) {
+                writeSync();
+            }
+            frameHeader[0] = (byte) flags;
+            int headerLength = 1;
+            int length = bytes.length;
+            while ((length & ~0x7F) != 0) {
+                frameHeader[headerLength++] = (byte) ((length & 0x7F) | 0x80);
+                length >>>= 7;
+            }
+            frameHeader[headerLength++] = (byte) length;
+            out.write(frameHeader, 0, headerLength);
+            out.write(bytes);
+            position += headerLength + bytes.length;
+        } catch (IOException e) {
+            CodecUtil.throwUnchecked(e);
+        }
+    }
+
+    /**
+     * Write the sync point right away (e.g. to mark the boundary of the logical batch of records).
+     *
+     * @throws UncheckedIOException wrapping the original {@link IOException} when IO operation fails
+     */
+    public void sync() {
+        try {
+            writeSync();
+        } catch (IOException e) {
+            CodecUtil.throwUnchecked(e);
+        }
+    }
+
+    /**
+     * Get the current position relative to the start of the container (the offset of the next frame).
+     */
+    public long position() {
+        return position;
+    }
+
+    /**
+     * Get the random sync marker of the container being written.
+     */
+    public byte[] syncMarker() {
+        return syncMarker.clone();
+    }
+
+    /**
+     * Flush the underlying stream.
+     *
+     * @throws UncheckedIOException wrapping the original {@link IOException} when IO operation fails
+     */
+    @Override
+    public void flush() {
+        try {
+            out.flush();
+        } catch (IOException e) {
+            CodecUtil.throwUnchecked(e);
+        }
+    }
+
+    /**
+     * Closes the underlying {@link OutputStream} as per the {@link AutoCloseable} contract.
+     *
+     * @throws UncheckedIOException wrapping the original {@link IOException} when IO operation fails
+     */
+    @Override
+    public void close() {
+        try {
+            out.close();
+        } catch (IOException e) {
+            CodecUtil.throwUnchecked(e);
+        }
+    }
+
+    private void writeSync() throws IOException {
+        out.write(SYNC_FLAG);
+        out.write(syncMarker);
+        lastSyncPosition = position + 1;
+        position += 1 + SYNC_MARKER_LENGTH;
+    }
+}
@@ -25,6 +25,7 @@ import javax.crypto.spec.GCMParameterSpec;
 import javax.crypto.spec.SecretKeySpec;
 
 import com.github.sabirove.codec.util.CodecUtil;
+import com.github.sabirove.codec.util.SafeInputStream;
 
 
 import static com.github.sabirove.codec.util.CodecUtil.checkArgument;
@@ -78,7 +79,9 @@ final class AesCodecFilter extends CodecFilter {
     public InputStream filter(InputStream in) {
         try {
             byte[] iv = new byte[INITIALIZATION_VECTOR_LENGTH_BYTES];
-            CodecUtil.checkState(in.read(iv) == INITIALIZATION_VECTOR_LENGTH_BYTES, "malformed input data");
+            //read fully: the underlying stream is allowed to return less bytes (e.g. at the block boundary)
+            int read = SafeInputStream.wrap(in).read(iv);
+            CodecUtil.checkState(read == INITIALIZATION_VECTOR_LENGTH_BYTES, "malformed input data");
             Cipher dec = Cipher.getInstance(TRANSFORMATION_MODE);
             GCMParameterSpec spec = new GCMParameterSpec(AUTHENTICATION_TAG_LENGTH_BITS, iv);
             dec.init(Cipher.DECRYPT_MODE, key, spec);
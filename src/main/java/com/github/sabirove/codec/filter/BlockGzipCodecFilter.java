@@ -0,0 +1,394 @@
+/*
+ * Copyright 2019 Sabirov Evgenii (sabirov.e@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.sabirove.codec.filter;
+
+import java.io.*;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+
+import com.github.sabirove.codec.util.SafeInputStream;
+
+
+import static com.github.sabirove.codec.util.CodecUtil.checkArgument;
+import static com.github.sabirove.codec.util.CodecUtil.checkNotNull;
+
+/*
+ * Block GZIP (BGZF-like): the stream is a sequence of the independent GZIP members of up to 'blockSize'
+ * uncompressed bytes each, every member carries its total size in the 'BL' extra field sub-field:
+ *   [1f 8b 08 04][mtime: 0][xfl: 0][os: ff][xlen: 8]['B' 'L'][len: 4][member size: 4 bytes LE]
+ *   [raw deflate data][CRC32][ISIZE]
+ * so that the members can be located without inflating and inflated concurrently (in both directions).
+ * The stream is a standard multi-member GZIP stream readable with any GZIP implementation.
+ * When reading the stream not starting with such a member, standard GZIPInputStream is used as a fallback.
+ */
+final class BlockGzipCodecFilter extends CodecFilter {
+    private static final int HEADER_LENGTH = 20;
+    private static final int TRAILER_LENGTH = 8;
+    private static final int FLG_FEXTRA = 4;
+
+    private final int blockSize;
+    private final int maxMemberSize;
+    private final int maxBlocksInFlight;
+    private final Executor executor;
+
+    BlockGzipCodecFilter(int blockSize, int maxBlocksInFlight, Executor executor) {
+        checkArgument(blockSize > 0, "blockSize should be positive");
+        checkArgument(maxBlocksInFlight > 0, "maxBlocksInFlight should be positive");
+        this.blockSize = blockSize;
+        this.maxMemberSize = (int) Math.min(HEADER_LENGTH + maxCompressedLength(blockSize) + TRAILER_LENGTH,
+                Integer.MAX_VALUE - 8);
+        this.maxBlocksInFlight = maxBlocksInFlight;
+        this.executor = checkNotNull(executor);
+    }
+
+    @Override
+    public OutputStream filter(OutputStream out) {
+        return new BlockGzipOutputStream(out);
+    }
+
+    @Override
+    public InputStream filter(InputStream in) throws IOException {
+        InputStream safe = SafeInputStream.wrap(in);
+        byte[] header = new byte[HEADER_LENGTH];
+        int read = Math.max(0, safe.read(header));
+        int memberSize = read == HEADER_LENGTH ? memberSize(header) : -1;
+        if (memberSize < 0) {
+            //not a block GZIP stream: fall back to the sequential decompression
+            InputStream head = new ByteArrayInputStream(header, 0, read);
+            return new GZIPInputStream(new SequenceInputStream(head, safe) {
+                @Override
+                public void close() throws IOException {
+                    safe.close();
+                }
+            });
+        }
+        return new BlockGzipInputStream(safe, memberSize);
+    }
+
+    /**
+     * @return total size of the member or -1 when the header is not the block GZIP member header
+     */
+    private static int memberSize(byte[] h) {
+        boolean valid = h[0] == 0x1f && h[1] == (byte) 0x8b && h[2] == Deflater.DEFLATED && h[3] == FLG_FEXTRA
+                && h[10] == 8 && h[11] == 0 && h[12] == 'B' && h[13] == 'L' && h[14] == 4 && h[15] == 0;
+        return valid ? readIntLE(h, 16) : -1;
+    }
+
+    /**
+     * Upper bound of the raw deflate data size for the input of the given length (as zlib's compressBound).
+     */
+    private static long maxCompressedLength(long length) {
+        return length + (length >> 12) + (length >> 14) + (length >> 25) + 13;
+    }
+
+    private static int readIntLE(byte[] b, int off) {
+        return (b[off] & 0xFF) | (b[off + 1] & 0xFF) << 8 | (b[off + 2] & 0xFF) << 16 | (b[off + 3] & 0xFF) << 24;
+    }
+
+    private static void writeIntLE(int value, byte[] b, int off) {
+        b[off] = (byte) value;
+        b[off + 1] = (byte) (value >>> 8);
+        b[off + 2] = (byte) (value >>> 16);
+        b[off + 3] = (byte) (value >>> 24);
+    }
+
+    private static byte[] await(CompletableFuture<byte[]> block) throws IOException {
+        try {
+            return block.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("interrupted while waiting for the block");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof UncheckedIOException) {
+                throw ((UncheckedIOException) cause).getCause();
+            }
+            throw new IOException("block processing failed", cause);
+        }
+    }
+
+    private static byte[] compress(byte[] input, int length) {
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+        try {
+            deflater.setInput(input, 0, length);
+            deflater.finish();
+            byte[] member = new byte[HEADER_LENGTH + length + (length >> 3) + 64 + TRAILER_LENGTH];
+            int size = HEADER_LENGTH;
+            while (!deflater.finished()) {
+                if (size == member.length - TRAILER_LENGTH) {
+                    member = Arrays.copyOf(member, member.length * 2);
+                }
+                size += deflater.deflate(member, size, member.length - TRAILER_LENGTH - size);
+            }
+            CRC32 crc = new CRC32();
+            crc.update(input, 0, length);
+            writeIntLE((int) crc.getValue(), member, size);
+            writeIntLE(length, member, size + 4);
+            size += TRAILER_LENGTH;
+            member[0] = 0x1f;
+            member[1] = (byte) 0x8b;
+            member[2] = Deflater.DEFLATED;
+            member[3] = FLG_FEXTRA;
+            member[9] = (byte) 0xff;
+            member[10] = 8;
+            member[12] = 'B';
+            member[13] = 'L';
+            member[14] = 4;
+            writeIntLE(size, member, 16);
+            return Arrays.copyOf(member, size);
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static byte[] decompress(byte[] member, int maxSize) throws IOException {
+        int isize = readIntLE(member, member.length - 4);
+        if (isize < 0 || isize > maxSize) {
+            throw new IOException(String.format(
+                    "corrupted GZIP member: size=%s exceeds the block size=%s", isize & 0xFFFFFFFFL, maxSize));
+        }
+        byte[] output = new byte[isize];
+        Inflater inflater = new Inflater(true);
+        try {
+            inflater.setInput(member, HEADER_LENGTH, member.length - HEADER_LENGTH - TRAILER_LENGTH);
+            int size = 0;
+            while (!inflater.finished() && size < output.length) {
+                int n = inflater.inflate(output, size, output.length - size);
+                if (n == 0 && inflater.needsInput()) {
+                    break;
+                }
+                size += n;
+            }
+            //make sure the final deflate block is reached with no extra data left
+            boolean complete = size == isize
+                    && (inflater.finished() || inflater.inflate(new byte[1]) == 0 && inflater.finished());
+            if (!complete) {
+                throw new IOException("corrupted GZIP member: size mismatch");
+            }
+        } catch (DataFormatException e) {
+            throw new IOException("corrupted GZIP member: " + e.getMessage(), e);
+        } finally {
+            inflater.end();
+        }
+        CRC32 crc = new CRC32();
+        crc.update(output, 0, output.length);
+        if ((int) crc.getValue() != readIntLE(member, member.length - 8)) {
+            throw new IOException("corrupted GZIP member: CRC32 mismatch");
+        }
+        return output;
+    }
+
+    private final class BlockGzipOutputStream extends FilterOutputStream {
+        private final Queue<CompletableFuture<byte[]>> inFlight = new ArrayDeque<>();
+        private byte[] block = new byte[blockSize];
+        private int count;
+        private boolean empty = true;
+        private boolean closed;
+
+        BlockGzipOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            if (count == block.length) {
+                submit();
+            }
+            block[count++] = (byte) b;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            while (len > 0) {
+                if (count == block.length) {
+                    submit();
+                }
+                int n = Math.min(len, block.length - count);
+                System.arraycopy(b, off, block, count, n);
+                count += n;
+                off += n;
+                len -= n;
+            }
+        }
+
+        /**
+         * Compress the pending bytes as the (shorter) member and wait for all the members in flight.
+         */
+        @Override
+        public void flush() throws IOException {
+            if (count > 0) {
+                submit();
+            }
+            drain();
+            out.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (!closed) {
+                closed = true;
+                try (OutputStream os = out) {
+                    //empty stream is still a valid GZIP stream of a single empty member
+                    if (count > 0 || empty) {
+                        submit();
+                    }
+                    drain();
+                    os.flush();
+                } finally {
+                    //on failure: the blocks not started yet are not compressed at all
+                    inFlight.forEach(f -> f.cancel(false));
+                    inFlight.clear();
+                }
+            }
+        }
+
+        private void submit() throws IOException {
+            if (inFlight.size() == maxBlocksInFlight) {
+                out.write(await(inFlight.remove()));
+            }
+            byte[] input = block;
+            int length = count;
+            inFlight.add(CompletableFuture.supplyAsync(() -> compress(input, length), executor));
+            block = new byte[blockSize];
+            count = 0;
+            empty = false;
+        }
+
+        private void drain() throws IOException {
+            while (!inFlight.isEmpty()) {
+                out.write(await(inFlight.remove()));
+            }
+        }
+    }
+
+    private final class BlockGzipInputStream extends FilterInputStream {
+        private final Queue<CompletableFuture<byte[]>> readAhead = new ArrayDeque<>();
+        private final byte[] header = new byte[HEADER_LENGTH];
+        //size of the next member which header is already read (-1 at the end of the stream)
+        private int nextMemberSize;
+        private byte[] current = new byte[0];
+        private int position;
+
+        BlockGzipInputStream(InputStream in, int firstMemberSize) {
+            super(in);
+            this.nextMemberSize = firstMemberSize;
+        }
+
+        @Override
+        public int read() throws IOException {
+            return ensureAvailable() ? current[position++] & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            if (!ensureAvailable()) {
+                return -1;
+            }
+            int n = Math.min(len, current.length - position);
+            System.arraycopy(current, position, b, off, n);
+            position += n;
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            if (n <= 0 || !ensureAvailable()) {
+                return 0;
+            }
+            int skipped = (int) Math.min(n, current.length - position);
+            position += skipped;
+            return skipped;
+        }
+
+        @Override
+        public int available() {
+            return current.length - position;
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+
+        @Override
+        public void close() throws IOException {
+            readAhead.forEach(f -> f.cancel(false));
+            readAhead.clear();
+            in.close();
+        }
+
+        private boolean ensureAvailable() throws IOException {
+            while (position == current.length) {
+                fillReadAhead();
+                if (readAhead.isEmpty()) {
+                    return false;
+                }
+                current = await(readAhead.remove());
+                position = 0;
+            }
+            return true;
+        }
+
+        //read the compressed members (on the calling thread) and schedule their decompression
+        private void fillReadAhead() throws IOException {
+            while (readAhead.size() < maxBlocksInFlight && nextMemberSize >= 0) {
+                if (nextMemberSize < HEADER_LENGTH + TRAILER_LENGTH || nextMemberSize > maxMemberSize) {
+                    throw new IOException(String.format("corrupted GZIP member: size=%s, max member size=%s",
+                            nextMemberSize, maxMemberSize));
+                }
+                byte[] member = new byte[nextMemberSize];
+                System.arraycopy(header, 0, member, 0, HEADER_LENGTH);
+                int rest = member.length - HEADER_LENGTH;
+                if (in.read(member, HEADER_LENGTH, rest) < rest) {
+                    throw new EOFException("unexpected end of the GZIP member");
+                }
+                readAhead.add(CompletableFuture.supplyAsync(() -> {
+                    try {
+                        return decompress(member, blockSize);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }, executor));
+                nextMemberSize = readHeader();
+            }
+        }
+
+        private int readHeader() throws IOException {
+            int read = in.read(header);
+            if (read == -1) {
+                return -1;
+            }
+            int size = read == HEADER_LENGTH ? memberSize(header) : -1;
+            if (size < 0) {
+                throw new IOException("unsupported GZIP member: block GZIP member header expected");
+            }
+            return size;
+        }
+    }
+}
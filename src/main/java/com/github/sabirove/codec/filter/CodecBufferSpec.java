@@ -18,6 +18,7 @@ package com.github.sabirove.codec.filter;
 
 
 import com.github.sabirove.codec.CodecBuilder;
+import com.github.sabirove.codec.util.ByteBufferInputStream;
 
 import java.io.*;
 import java.util.Set;
@@ -41,7 +42,8 @@ public final class CodecBufferSpec extends CodecFilter {
 
     private static final Set<Class<? extends InputStream>> DEFAULT_EXCLUDED_INPUT_TYPES = Stream.of(
             BufferedInputStream.class,
-            ByteArrayInputStream.class
+            ByteArrayInputStream.class,
+            ByteBufferInputStream.class
     ).collect(Collectors.toSet());
 
     private static final int DEFAULT_BUFFER_SIZE = 8192;
@@ -22,7 +22,9 @@ import javax.crypto.CipherInputStream;
 import javax.crypto.CipherOutputStream;
 import java.io.BufferedInputStream;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.Base64;
+import java.util.concurrent.Executor;
 import java.util.zip.*;
 
 /**
@@ -59,6 +61,7 @@ public final class CodecFilters {
             os -> new GZIPOutputStream(os, true),
             GZIPInputStream::new
     );
+    private static final CodecFilter COMPRESS_LZ4 = new Lz4CodecFilter();
 
     private CodecFilters() { }
 
@@ -95,6 +98,90 @@ public final class CodecFilters {
         return COMPRESS_GZIP;
     }
 
+    /**
+     * Compression codec filter applying fast 'LZ4' compression: pure Java implementation producing
+     * the standard LZ4 frame format (independent 64 KB blocks with the content checksum) readable with
+     * the {@code lz4} CLI and the other LZ4 implementations. Trades the compression ratio for the speed:
+     * compresses several times and decompresses about twice as fast as {@link #compressWithDeflate()}
+     * while compressing worse than even the fastest 'Deflate' level (there is no entropy coding).
+     *
+     * @implNote compressor doesn't allocate per block: hash table is reused per thread, block buffers per stream.
+     */
+    public static CodecFilter compressWithLz4() {
+        return COMPRESS_LZ4;
+    }
+
+    /**
+     * Parallel (pigz-style) 'GZIP' compression: the output is split into the blocks of {@code blockSize} bytes
+     * compressed concurrently on the provided executor (with the last 32 KB of the previous block used
+     * as the preset dictionary) and joined with the sync flushes into a single standard GZIP stream
+     * readable with {@link java.util.zip.GZIPInputStream} (which is used for decompression).
+     * <p>
+     * Up to twice the number of available processors blocks are compressed concurrently: the writer waits
+     * for the oldest block once the limit is reached.
+     *
+     * @param blockSize amount of bytes compressed by a single task (128 KB is a sensible choice)
+     * @param executor  executor to run the compression tasks on
+     * @see #compressWithGzipParallel(int, int, Executor)
+     */
+    public static CodecFilter compressWithGzipParallel(int blockSize, Executor executor) {
+        return compressWithGzipParallel(blockSize, Runtime.getRuntime().availableProcessors() * 2, executor);
+    }
+
+    /**
+     * Same as {@link #compressWithGzipParallel(int, Executor)} with the explicit limit of the blocks
+     * in flight bounding the memory used by the compressing stream to about
+     * {@code (maxBlocksInFlight + 2) * blockSize} bytes.
+     *
+     * @implNote {@link OutputStream#flush()} compresses the pending bytes as a (shorter) block and waits
+     * for all the blocks in flight, so frequent flushes limit the parallelism.
+     */
+    public static CodecFilter compressWithGzipParallel(int blockSize, int maxBlocksInFlight, Executor executor) {
+        return new ParallelGzipCodecFilter(blockSize, maxBlocksInFlight, executor);
+    }
+
+    /**
+     * Block 'GZIP' compression allowing the parallel decompression: the output is split into the independent
+     * GZIP members of up to {@code blockSize} uncompressed bytes (each carrying its size in the header extra field,
+     * similar to BGZF) compressed concurrently on the provided executor. The result is a standard multi-member
+     * GZIP stream readable with any GZIP implementation.
+     * <p>
+     * On read the members are located without inflating, read ahead and inflated concurrently
+     * on the executor, the bytes are served in order. Streams not written by this filter are decompressed
+     * sequentially with {@link GZIPInputStream}. Members larger than the {@code blockSize} are reported
+     * as corrupted (bounding the allocation), so the stream should be read with the same (or larger) block size.
+     * <p>
+     * Up to twice the number of available processors blocks are processed concurrently.
+     *
+     * @param blockSize amount of uncompressed bytes per member (64 KB to 1 MB is a sensible choice)
+     * @param executor  executor to run the compression/decompression tasks on
+     * @see #compressWithBlockGzip(int, int, Executor)
+     */
+    public static CodecFilter compressWithBlockGzip(int blockSize, Executor executor) {
+        return compressWithBlockGzip(blockSize, Runtime.getRuntime().availableProcessors() * 2, executor);
+    }
+
+    /**
+     * Same as {@link #compressWithBlockGzip(int, Executor)} with the explicit limit of the blocks in flight
+     * (compressed on write and read ahead on read) bounding the memory used by the streams.
+     */
+    public static CodecFilter compressWithBlockGzip(int blockSize, int maxBlocksInFlight, Executor executor) {
+        return new BlockGzipCodecFilter(blockSize, maxBlocksInFlight, executor);
+    }
+
+    /**
+     * Integrity validation codec filter framing the stream into the blocks of up to {@code blockSize} bytes,
+     * each followed by its CRC32C checksum: corruption is detected (with {@link java.io.IOException})
+     * as soon as the affected block is read without buffering the whole payload.
+     * <p>
+     * Intrinsified {@code java.util.zip.CRC32C} is used on Java 9+ (pure Java implementation otherwise).
+     *
+     * @param blockSize max amount of bytes covered by a single checksum (also the size of the buffers used)
+     */
+    public static CodecFilter checksumCrc32c(int blockSize) {
+        return new Crc32cCodecFilter(blockSize);
+    }
+
     /**
      * Standard Base64 codec filter
      */
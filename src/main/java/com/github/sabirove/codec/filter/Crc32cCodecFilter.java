@@ -0,0 +1,225 @@
+/*
+ * Copyright 2020 Sabirov Evgenii (sabirov.e@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.sabirove.codec.filter;
+
+import java.io.*;
+import java.util.zip.Checksum;
+
+import com.github.sabirove.codec.util.Crc32c;
+import com.github.sabirove.codec.util.SafeInputStream;
+import com.github.sabirove.codec.util.Varint;
+
+
+import static com.github.sabirove.codec.util.CodecUtil.checkArgument;
+
+/*
+ * Stream is framed into the blocks of up to 'blockSize' bytes:
+ *   [unsigned varint: block length][block bytes][4 bytes: CRC32C of the block bytes, big-endian]
+ * terminated with the empty block (zero length, no checksum) when the stream is closed.
+ * Pending bytes are written out as a (shorter) block on flush.
+ */
+final class Crc32cCodecFilter extends CodecFilter {
+    private final int blockSize;
+
+    Crc32cCodecFilter(int blockSize) {
+        checkArgument(blockSize > 0, "blockSize should be positive");
+        this.blockSize = blockSize;
+    }
+
+    @Override
+    public OutputStream filter(OutputStream out) {
+        return new Crc32cOutputStream(out, blockSize);
+    }
+
+    @Override
+    public InputStream filter(InputStream in) {
+        return new Crc32cInputStream(in, blockSize);
+    }
+
+    private static final class Crc32cOutputStream extends FilterOutputStream {
+        private final byte[] block;
+        private final Checksum checksum = Crc32c.create();
+        private int count;
+        private boolean closed;
+
+        Crc32cOutputStream(OutputStream out, int blockSize) {
+            super(out);
+            this.block = new byte[blockSize];
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            if (count == block.length) {
+                writeBlock();
+            }
+            block[count++] = (byte) b;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            while (len > 0) {
+                if (count == block.length) {
+                    writeBlock();
+                }
+                int n = Math.min(len, block.length - count);
+                System.arraycopy(b, off, block, count, n);
+                count += n;
+                off += n;
+                len -= n;
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            writeBlock();
+            out.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (!closed) {
+                closed = true;
+                try (OutputStream os = out) {
+                    writeBlock();
+                    Varint.writeUnsignedVarInt(0, os);
+                    os.flush();
+                }
+            }
+        }
+
+        private void writeBlock() throws IOException {
+            if (count == 0) {
+                return;
+            }
+            checksum.reset();
+            checksum.update(block, 0, count);
+            int crc = (int) checksum.getValue();
+            Varint.writeUnsignedVarInt(count, out);
+            out.write(block, 0, count);
+            out.write(crc >>> 24);
+            out.write(crc >>> 16);
+            out.write(crc >>> 8);
+            out.write(crc);
+            count = 0;
+        }
+    }
+
+    private static final class Crc32cInputStream extends FilterInputStream {
+        private final byte[] block;
+        private final byte[] trailer = new byte[4];
+        private final Checksum checksum = Crc32c.create();
+        private int position;
+        private int limit;
+        private long blockIndex;
+        private boolean end;
+
+        Crc32cInputStream(InputStream in, int blockSize) {
+            super(SafeInputStream.wrap(in));
+            this.block = new byte[blockSize];
+        }
+
+        @Override
+        public int read() throws IOException {
+            return ensureBlock() ? block[position++] & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            if (!ensureBlock()) {
+                return -1;
+            }
+            int n = Math.min(len, limit - position);
+            System.arraycopy(block, position, b, off, n);
+            position += n;
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            if (n <= 0 || !ensureBlock()) {
+                return 0;
+            }
+            int skipped = (int) Math.min(n, limit - position);
+            position += skipped;
+            return skipped;
+        }
+
+        @Override
+        public int available() {
+            return limit - position;
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+
+        private boolean ensureBlock() throws IOException {
+            while (position == limit) {
+                if (end) {
+                    return false;
+                }
+                readBlock();
+            }
+            return true;
+        }
+
+        private void readBlock() throws IOException {
+            int len = readLength();
+            if (len == 0) {
+                end = true;
+                position = limit = 0;
+                return;
+            }
+            if (len > block.length) {
+                throw new IOException(String.format(
+                        "corrupted block=%s: length=%s exceeds the blockSize=%s", blockIndex, len, block.length));
+            }
+            readFully(block, len);
+            readFully(trailer, trailer.length);
+            checksum.reset();
+            checksum.update(block, 0, len);
+            int expected = (trailer[0] & 0xFF) << 24 | (trailer[1] & 0xFF) << 16
+                    | (trailer[2] & 0xFF) << 8 | trailer[3] & 0xFF;
+            if ((int) checksum.getValue() != expected) {
+                throw new IOException(String.format("corrupted block=%s: CRC32C checksum mismatch", blockIndex));
+            }
+            blockIndex++;
+            position = 0;
+            limit = len;
+        }
+
+        private int readLength() throws IOException {
+            try {
+                return Varint.readUnsignedVarInt(in);
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            } catch (IllegalArgumentException e) {
+                throw new IOException(String.format("corrupted block=%s: malformed length", blockIndex), e);
+            }
+        }
+
+        private void readFully(byte[] buf, int len) throws IOException {
+            if (in.read(buf, 0, len) < len) {
+                throw new EOFException();
+            }
+        }
+    }
+}
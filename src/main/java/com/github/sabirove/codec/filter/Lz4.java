@@ -0,0 +1,238 @@
+/*
+ * Copyright 2020 Sabirov Evgenii (sabirov.e@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.sabirove.codec.filter;
+
+import java.io.IOException;
+
+import static com.github.sabirove.codec.filter.XxHash32.readIntLE;
+
+/*
+ * LZ4 block format (https://github.com/lz4/lz4/blob/dev/doc/lz4_Block_format.md): a sequence of
+ *   [token: literals length (4 bits) | match length - 4 (4 bits)][literals length extension][literals]
+ *   [match offset: 2 bytes LE][match length extension]
+ * where the last sequence carries the literals only (the last 5 bytes are always literals).
+ *
+ * The compressor is the greedy single-probe hash table one (as LZ4_compress_fast with acceleration 1):
+ * the table is reused per thread and is never cleared as it stores positions relative to the block start
+ * and every candidate is verified against the current block content.
+ */
+final class Lz4 {
+    private static final int MIN_MATCH = 4;
+    private static final int LAST_LITERALS = 5;
+    private static final int MF_LIMIT = 12; //last match should start at least 12 bytes before the end of the block
+    private static final int MAX_DISTANCE = 0xFFFF;
+    private static final int HASH_LOG = 13;
+    private static final int SKIP_TRIGGER = 6; //skip faster through the incompressible data
+    private static final ThreadLocal<int[]> HASH_TABLE = ThreadLocal.withInitial(() -> new int[1 << HASH_LOG]);
+
+    private Lz4() { }
+
+    /**
+     * Max size of the compressed block for the input of the given length.
+     */
+    static int maxCompressedLength(int length) {
+        return length + length / 255 + 16;
+    }
+
+    /**
+     * Compress the block into the {@code dst} array having at least {@link #maxCompressedLength(int)} bytes
+     * left past the {@code dstOff}.
+     *
+     * @return size of the compressed block
+     */
+    static int compress(byte[] src, int srcOff, int srcLen, byte[] dst, int dstOff) {
+        int[] table = HASH_TABLE.get();
+        int srcEnd = srcOff + srcLen;
+        int anchor = srcOff;
+        int op = dstOff;
+        if (srcLen > MF_LIMIT) {
+            int mfLimit = srcEnd - MF_LIMIT;
+            int matchLimit = srcEnd - LAST_LITERALS;
+            int ip = srcOff;
+            table[hash(readIntLE(src, ip))] = 0;
+            ip++;
+            search:
+            while (true) {
+                int ref;
+                int attempts = 1 << SKIP_TRIGGER;
+                while (true) {
+                    if (ip > mfLimit) {
+                        break search;
+                    }
+                    int seq = readIntLE(src, ip);
+                    int h = hash(seq);
+                    ref = srcOff + table[h];
+                    table[h] = ip - srcOff;
+                    if (ref < ip && ip - ref <= MAX_DISTANCE && readIntLE(src, ref) == seq) {
+                        break;
+                    }
+                    ip += attempts++ >>> SKIP_TRIGGER;
+                }
+                while (ip > anchor && ref > srcOff && src[ip - 1] == src[ref - 1]) {
+                    ip--;
+                    ref--;
+                }
+                int token = op++;
+                int literals = ip - anchor;
+                if (literals >= 15) {
+                    dst[token] = (byte) 0xF0;
+                    op = writeLength(literals - 15, dst, op);
+                } else {
+                    dst[token] = (byte) (literals << 4);
+                }
+                System.arraycopy(src, anchor, dst, op, literals);
+                op += literals;
+                while (true) {
+                    int offset = ip - ref;
+                    dst[op++] = (byte) offset;
+                    dst[op++] = (byte) (offset >>> 8);
+                    ip += MIN_MATCH;
+                    ref += MIN_MATCH;
+                    int start = ip;
+                    while (ip < matchLimit && src[ip] == src[ref]) {
+                        ip++;
+                        ref++;
+                    }
+                    int matchLength = ip - start;
+                    if (matchLength >= 15) {
+                        dst[token] |= 0x0F;
+                        op = writeLength(matchLength - 15, dst, op);
+                    } else {
+                        dst[token] |= matchLength;
+                    }
+                    anchor = ip;
+                    if (ip > mfLimit) {
+                        break search;
+                    }
+                    table[hash(readIntLE(src, ip - 2))] = ip - 2 - srcOff;
+                    //try to start the next match right away (no literals)
+                    int seq = readIntLE(src, ip);
+                    int h = hash(seq);
+                    ref = srcOff + table[h];
+                    table[h] = ip - srcOff;
+                    if (ref < ip && ip - ref <= MAX_DISTANCE && readIntLE(src, ref) == seq) {
+                        token = op++;
+                        dst[token] = 0;
+                        continue;
+                    }
+                    ip++;
+                    break;
+                }
+            }
+        }
+        int literals = srcEnd - anchor;
+        if (literals >= 15) {
+            dst[op++] = (byte) 0xF0;
+            op = writeLength(literals - 15, dst, op);
+        } else {
+            dst[op++] = (byte) (literals << 4);
+        }
+        System.arraycopy(src, anchor, dst, op, literals);
+        op += literals;
+        return op - dstOff;
+    }
+
+    /**
+     * Decompress the block into the {@code dst} array: matches are allowed to reference the bytes
+     * starting from {@code dictStart} (the previous blocks kept in front of the {@code dstOff}).
+     *
+     * @return size of the decompressed block
+     * @throws IOException when the block is malformed or doesn't fit into the {@code [dstOff, dstEnd)} range
+     */
+    static int decompress(byte[] src, int srcOff, int srcLen, byte[] dst, int dictStart, int dstOff, int dstEnd)
+            throws IOException {
+        int ip = srcOff;
+        int srcEnd = srcOff + srcLen;
+        int op = dstOff;
+        while (ip < srcEnd) {
+            int token = src[ip++] & 0xFF;
+            int literals = token >>> 4;
+            if (literals == 15) {
+                int b;
+                do {
+                    if (ip == srcEnd) {
+                        throw malformed("truncated literals length");
+                    }
+                    b = src[ip++] & 0xFF;
+                    literals += b;
+                } while (b == 255);
+            }
+            if (literals > srcEnd - ip || literals > dstEnd - op) {
+                throw malformed("literals out of bounds");
+            }
+            System.arraycopy(src, ip, dst, op, literals);
+            ip += literals;
+            op += literals;
+            if (ip == srcEnd) {
+                return op - dstOff;
+            }
+            if (srcEnd - ip < 2) {
+                throw malformed("truncated match offset");
+            }
+            int offset = (src[ip] & 0xFF) | (src[ip + 1] & 0xFF) << 8;
+            ip += 2;
+            int ref = op - offset;
+            if (offset == 0 || ref < dictStart) {
+                throw malformed("match offset out of bounds");
+            }
+            int matchLength = token & 0x0F;
+            if (matchLength == 15) {
+                int b;
+                do {
+                    if (ip == srcEnd) {
+                        throw malformed("truncated match length");
+                    }
+                    b = src[ip++] & 0xFF;
+                    matchLength += b;
+                } while (b == 255);
+            }
+            matchLength += MIN_MATCH;
+            if (matchLength > dstEnd - op) {
+                throw malformed("match out of bounds");
+            }
+            if (offset >= matchLength) {
+                System.arraycopy(dst, ref, dst, op, matchLength);
+                op += matchLength;
+            } else {
+                //overlapping match: repeat the pattern doubling the chunk copied at once
+                int end = op + matchLength;
+                while (op < end) {
+                    int n = Math.min(op - ref, end - op);
+                    System.arraycopy(dst, ref, dst, op, n);
+                    op += n;
+                }
+            }
+        }
+        throw malformed("last sequence should contain literals only");
+    }
+
+    private static int writeLength(int length, byte[] dst, int op) {
+        for (; length >= 255; length -= 255) {
+            dst[op++] = (byte) 0xFF;
+        }
+        dst[op++] = (byte) length;
+        return op;
+    }
+
+    private static int hash(int seq) {
+        return (seq * -1640531535) >>> (32 - HASH_LOG);
+    }
+
+    private static IOException malformed(String message) {
+        return new IOException("malformed LZ4 block: " + message);
+    }
+}
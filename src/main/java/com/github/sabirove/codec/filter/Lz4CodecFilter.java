@@ -0,0 +1,347 @@
+/*
+ * Copyright 2020 Sabirov Evgenii (sabirov.e@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.sabirove.codec.filter;
+
+import java.io.*;
+
+import com.github.sabirove.codec.util.SafeInputStream;
+
+
+import static com.github.sabirove.codec.filter.XxHash32.readIntLE;
+
+/*
+ * LZ4 frame format (https://github.com/lz4/lz4/blob/dev/doc/lz4_Frame_format.md):
+ *   [magic: 0x184D2204 LE][FLG][BD][(optional) content size: 8 bytes LE][header checksum: 1 byte]
+ *   [blocks][end mark: 0x00000000][(optional) content checksum: XXH32 of the content, 4 bytes LE]
+ * where every block is
+ *   [size: 4 bytes LE, the high bit is set when the block is stored uncompressed][data][(optional) XXH32 of data]
+ * Frames are written with the independent 64 KB blocks and the content checksum (the lz4 CLI defaults),
+ * pending bytes are written out as a (shorter) block on flush.
+ * Reading supports the linked blocks, block checksums, content size and the concatenated/skippable frames as well.
+ */
+final class Lz4CodecFilter extends CodecFilter {
+    private static final int MAGIC = 0x184D2204;
+    private static final int SKIPPABLE_MAGIC = 0x184D2A50; //0x184D2A50 - 0x184D2A5F
+    private static final int FLG_VERSION = 0x40;
+    private static final int FLG_BLOCK_INDEPENDENCE = 0x20;
+    private static final int FLG_BLOCK_CHECKSUM = 0x10;
+    private static final int FLG_CONTENT_SIZE = 0x08;
+    private static final int FLG_CONTENT_CHECKSUM = 0x04;
+    private static final int FLG_DICT_ID = 0x01;
+    private static final int BLOCK_SIZE_ID = 4; //64 KB
+    private static final int BLOCK_SIZE = blockMaxSize(BLOCK_SIZE_ID);
+    private static final int UNCOMPRESSED = 0x80000000;
+    private static final int WINDOW_SIZE = 64 * 1024;
+
+    @Override
+    public OutputStream filter(OutputStream out) throws IOException {
+        return new Lz4OutputStream(out);
+    }
+
+    @Override
+    public InputStream filter(InputStream in) throws IOException {
+        return new Lz4InputStream(in);
+    }
+
+    private static int blockMaxSize(int blockSizeId) {
+        return 1 << (2 * blockSizeId + 8);
+    }
+
+    private static byte headerChecksum(byte[] descriptor, int off, int len) {
+        return (byte) (XxHash32.hash(descriptor, off, len) >>> 8);
+    }
+
+    private static void writeIntLE(int value, byte[] b, int off) {
+        b[off] = (byte) value;
+        b[off + 1] = (byte) (value >>> 8);
+        b[off + 2] = (byte) (value >>> 16);
+        b[off + 3] = (byte) (value >>> 24);
+    }
+
+    private static final class Lz4OutputStream extends FilterOutputStream {
+        private final byte[] block = new byte[BLOCK_SIZE];
+        private final byte[] buffer = new byte[4 + Lz4.maxCompressedLength(BLOCK_SIZE)];
+        private final XxHash32 checksum = new XxHash32();
+        private int count;
+        private boolean closed;
+
+        Lz4OutputStream(OutputStream out) throws IOException {
+            super(out);
+            writeIntLE(MAGIC, buffer, 0);
+            buffer[4] = (byte) (FLG_VERSION | FLG_BLOCK_INDEPENDENCE | FLG_CONTENT_CHECKSUM);
+            buffer[5] = (byte) (BLOCK_SIZE_ID << 4);
+            buffer[6] = headerChecksum(buffer, 4, 2);
+            out.write(buffer, 0, 7);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            if (count == block.length) {
+                writeBlock();
+            }
+            block[count++] = (byte) b;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            while (len > 0) {
+                if (count == block.length) {
+                    writeBlock();
+                }
+                int n = Math.min(len, block.length - count);
+                System.arraycopy(b, off, block, count, n);
+                count += n;
+                off += n;
+                len -= n;
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            writeBlock();
+            out.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (!closed) {
+                closed = true;
+                try (OutputStream os = out) {
+                    writeBlock();
+                    writeIntLE(0, buffer, 0);
+                    writeIntLE((int) checksum.getValue(), buffer, 4);
+                    os.write(buffer, 0, 8);
+                    os.flush();
+                }
+            }
+        }
+
+        private void writeBlock() throws IOException {
+            if (count == 0) {
+                return;
+            }
+            checksum.update(block, 0, count);
+            int size = Lz4.compress(block, 0, count, buffer, 4);
+            if (size < count) {
+                writeIntLE(size, buffer, 0);
+                out.write(buffer, 0, 4 + size);
+            } else {
+                writeIntLE(count | UNCOMPRESSED, buffer, 0);
+                out.write(buffer, 0, 4);
+                out.write(block, 0, count);
+            }
+            count = 0;
+        }
+    }
+
+    private static final class Lz4InputStream extends FilterInputStream {
+        private final byte[] header = new byte[15];
+        private final XxHash32 checksum = new XxHash32();
+        private byte[] compressed = new byte[0];
+        //decompressed bytes: [last 64 KB of the previous blocks (linked blocks only)][current block]
+        private byte[] window = new byte[0];
+        private int position;
+        private int limit;
+        private int flags;
+        private int blockMaxSize;
+        private long contentSize;
+        private long total;
+        private boolean end;
+
+        Lz4InputStream(InputStream in) throws IOException {
+            super(SafeInputStream.wrap(in));
+            if (!readFrameHeader()) {
+                throw new EOFException("LZ4 frame expected");
+            }
+        }
+
+        @Override
+        public int read() throws IOException {
+            return ensureBlock() ? window[position++] & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            if (!ensureBlock()) {
+                return -1;
+            }
+            int n = Math.min(len, limit - position);
+            System.arraycopy(window, position, b, off, n);
+            position += n;
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            if (n <= 0 || !ensureBlock()) {
+                return 0;
+            }
+            int skipped = (int) Math.min(n, limit - position);
+            position += skipped;
+            return skipped;
+        }
+
+        @Override
+        public int available() {
+            return limit - position;
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+
+        private boolean ensureBlock() throws IOException {
+            while (position == limit) {
+                if (end) {
+                    return false;
+                }
+                readBlock();
+            }
+            return true;
+        }
+
+        /**
+         * @return false when EOF is reached instead of the next frame
+         */
+        private boolean readFrameHeader() throws IOException {
+            int magic;
+            while (true) {
+                int read = in.read(header, 0, 4);
+                if (read <= 0) {
+                    return false;
+                }
+                if (read < 4) {
+                    throw new EOFException();
+                }
+                magic = readIntLE(header, 0);
+                if ((magic & 0xFFFFFFF0) != SKIPPABLE_MAGIC) {
+                    break;
+                }
+                readFully(header, 4);
+                SafeInputStream.skipFully(in, readIntLE(header, 0) & 0xFFFFFFFFL);
+            }
+            if (magic != MAGIC) {
+                throw new IOException(String.format("not an LZ4 frame: magic=0x%08X", magic));
+            }
+            readFully(header, 2);
+            int flg = header[0] & 0xFF;
+            int bd = header[1] & 0xFF;
+            if ((flg & 0xC0) != FLG_VERSION) {
+                throw new IOException("unsupported LZ4 frame version: " + (flg >>> 6));
+            }
+            if ((flg & FLG_DICT_ID) != 0) {
+                throw new IOException("LZ4 frames with the dictionary id are not supported");
+            }
+            int blockSizeId = bd >>> 4;
+            if ((flg & 0x02) != 0 || (bd & 0x8F) != 0 || blockSizeId < 4) {
+                throw new IOException("malformed LZ4 frame descriptor");
+            }
+            int descriptorLength = 2;
+            if ((flg & FLG_CONTENT_SIZE) != 0) {
+                readFully(header, 2, 8);
+                contentSize = readIntLE(header, 2) & 0xFFFFFFFFL | (long) readIntLE(header, 6) << 32;
+                descriptorLength += 8;
+            } else {
+                contentSize = -1;
+            }
+            readFully(header, descriptorLength, 1);
+            if (header[descriptorLength] != headerChecksum(header, 0, descriptorLength)) {
+                throw new IOException("corrupted LZ4 frame descriptor: header checksum mismatch");
+            }
+            flags = flg;
+            blockMaxSize = blockMaxSize(blockSizeId);
+            if (compressed.length < blockMaxSize) {
+                compressed = new byte[blockMaxSize];
+            }
+            int windowSize = (flg & FLG_BLOCK_INDEPENDENCE) != 0 ? blockMaxSize : WINDOW_SIZE + blockMaxSize;
+            if (window.length < windowSize) {
+                window = new byte[windowSize];
+            }
+            checksum.reset();
+            total = 0;
+            position = limit = 0;
+            return true;
+        }
+
+        private void readBlock() throws IOException {
+            readFully(header, 4);
+            int size = readIntLE(header, 0);
+            if (size == 0) {
+                readEndMark();
+                end = !readFrameHeader();
+                return;
+            }
+            boolean stored = (size & UNCOMPRESSED) != 0;
+            size &= ~UNCOMPRESSED;
+            if (size > blockMaxSize) {
+                throw new IOException(String.format(
+                        "corrupted LZ4 block: size=%s exceeds the max block size=%s", size, blockMaxSize));
+            }
+            if ((flags & FLG_BLOCK_INDEPENDENCE) != 0) {
+                limit = 0;
+            } else if (limit + blockMaxSize > window.length) {
+                System.arraycopy(window, limit - WINDOW_SIZE, window, 0, WINDOW_SIZE);
+                limit = WINDOW_SIZE;
+            }
+            byte[] data = stored ? window : compressed;
+            int dataOff = stored ? limit : 0;
+            readFully(data, dataOff, size);
+            if ((flags & FLG_BLOCK_CHECKSUM) != 0) {
+                readFully(header, 4);
+                if (XxHash32.hash(data, dataOff, size) != readIntLE(header, 0)) {
+                    throw new IOException("corrupted LZ4 block: block checksum mismatch");
+                }
+            }
+            int length = stored
+                    ? size
+                    : Lz4.decompress(compressed, 0, size, window, 0, limit, limit + blockMaxSize);
+            if ((flags & FLG_CONTENT_CHECKSUM) != 0) {
+                checksum.update(window, limit, length);
+            }
+            total += length;
+            position = limit;
+            limit += length;
+        }
+
+        private void readEndMark() throws IOException {
+            if ((flags & FLG_CONTENT_CHECKSUM) != 0) {
+                readFully(header, 4);
+                if ((int) checksum.getValue() != readIntLE(header, 0)) {
+                    throw new IOException("corrupted LZ4 frame: content checksum mismatch");
+                }
+            }
+            if (contentSize >= 0 && contentSize != total) {
+                throw new IOException(String.format(
+                        "corrupted LZ4 frame: content size=%s, actual=%s", contentSize, total));
+            }
+        }
+
+        private void readFully(byte[] buf, int len) throws IOException {
+            readFully(buf, 0, len);
+        }
+
+        private void readFully(byte[] buf, int off, int len) throws IOException {
+            if (in.read(buf, off, len) < len) {
+                throw new EOFException();
+            }
+        }
+    }
+}
@@ -0,0 +1,217 @@
+/*
+ * Copyright 2019 Sabirov Evgenii (sabirov.e@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.sabirove.codec.filter;
+
+import java.io.*;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+
+
+import static com.github.sabirove.codec.util.CodecUtil.checkArgument;
+import static com.github.sabirove.codec.util.CodecUtil.checkNotNull;
+
+/*
+ * Parallel (pigz-style) GZIP compression: the input is split into the blocks compressed concurrently
+ * with the raw 'Deflate' using the tail of the previous block as the preset dictionary. The blocks
+ * are terminated with the sync flush (byte aligned) except for the last one terminated with the final block,
+ * so that their concatenation forms a single standard 'Deflate' stream wrapped with the GZIP header/trailer.
+ * Decompression is done with the standard GZIPInputStream.
+ */
+final class ParallelGzipCodecFilter extends CodecFilter {
+    private static final int DICTIONARY_SIZE = 32 * 1024;
+    private static final byte[] GZIP_HEADER = {0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, 0};
+
+    private final int blockSize;
+    private final int maxBlocksInFlight;
+    private final Executor executor;
+
+    ParallelGzipCodecFilter(int blockSize, int maxBlocksInFlight, Executor executor) {
+        checkArgument(blockSize > 0, "blockSize should be positive");
+        checkArgument(maxBlocksInFlight > 0, "maxBlocksInFlight should be positive");
+        this.blockSize = blockSize;
+        this.maxBlocksInFlight = maxBlocksInFlight;
+        this.executor = checkNotNull(executor);
+    }
+
+    @Override
+    public OutputStream filter(OutputStream out) throws IOException {
+        return new ParallelGzipOutputStream(out);
+    }
+
+    @Override
+    public InputStream filter(InputStream in) throws IOException {
+        return new GZIPInputStream(in);
+    }
+
+    private final class ParallelGzipOutputStream extends FilterOutputStream {
+        private final CRC32 crc = new CRC32();
+        private final Queue<CompletableFuture<byte[]>> inFlight = new ArrayDeque<>();
+        private byte[] block = new byte[blockSize];
+        private int count;
+        //tail of the previous block (the dictionary for the next one)
+        private byte[] previous;
+        private int previousCount;
+        private long totalIn;
+        private boolean closed;
+
+        ParallelGzipOutputStream(OutputStream out) throws IOException {
+            super(out);
+            out.write(GZIP_HEADER);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            if (count == block.length) {
+                submit(false);
+            }
+            block[count++] = (byte) b;
+            crc.update(b);
+            totalIn++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            crc.update(b, off, len);
+            totalIn += len;
+            while (len > 0) {
+                if (count == block.length) {
+                    submit(false);
+                }
+                int n = Math.min(len, block.length - count);
+                System.arraycopy(b, off, block, count, n);
+                count += n;
+                off += n;
+                len -= n;
+            }
+        }
+
+        /**
+         * Compress the pending bytes as the (shorter) sync flushed block and wait for all the blocks in flight.
+         */
+        @Override
+        public void flush() throws IOException {
+            if (count > 0) {
+                submit(false);
+            }
+            while (!inFlight.isEmpty()) {
+                writeCompleted();
+            }
+            out.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            try (OutputStream os = out) {
+                submit(true);
+                while (!inFlight.isEmpty()) {
+                    writeCompleted();
+                }
+                writeIntLE((int) crc.getValue(), os);
+                writeIntLE((int) totalIn, os);
+                os.flush();
+            } finally {
+                //on failure: the blocks not started yet are not compressed at all
+                inFlight.forEach(f -> f.cancel(false));
+                inFlight.clear();
+            }
+        }
+
+        private void submit(boolean last) throws IOException {
+            if (inFlight.size() == maxBlocksInFlight) {
+                writeCompleted();
+            }
+            byte[] input = block;
+            int length = count;
+            byte[] dictionary = previous;
+            int dictionaryLength = Math.min(previousCount, DICTIONARY_SIZE);
+            int dictionaryOffset = previousCount - dictionaryLength;
+            inFlight.add(CompletableFuture.supplyAsync(() -> compress(
+                    input, length, dictionary, dictionaryOffset, dictionaryLength, last), executor));
+            previous = input;
+            previousCount = length;
+            //the submitted block is referenced by the task (and by the next one as a dictionary)
+            block = new byte[blockSize];
+            count = 0;
+        }
+
+        private void writeCompleted() throws IOException {
+            try {
+                out.write(inFlight.remove().get());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("interrupted while waiting for the block compression");
+            } catch (ExecutionException e) {
+                throw new IOException("block compression failed", e.getCause());
+            }
+        }
+
+        //Deflater per block (as BlockGzipCodecFilter does): it is ended by the task itself whatever the stream state
+        private byte[] compress(byte[] input,
+                                int length,
+                                byte[] dictionary,
+                                int dictionaryOffset,
+                                int dictionaryLength,
+                                boolean last) {
+            Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+            try {
+                if (dictionaryLength > 0) {
+                    deflater.setDictionary(dictionary, dictionaryOffset, dictionaryLength);
+                }
+                deflater.setInput(input, 0, length);
+                byte[] output = new byte[Math.max(64, length + (length >> 3) + 64)];
+                int size = 0;
+                if (last) {
+                    deflater.finish();
+                }
+                while (true) {
+                    if (size == output.length) {
+                        output = Arrays.copyOf(output, output.length * 2);
+                    }
+                    int n = last
+                            ? deflater.deflate(output, size, output.length - size)
+                            : deflater.deflate(output, size, output.length - size, Deflater.SYNC_FLUSH);
+                    size += n;
+                    //sync flush is complete once the output buffer isn't filled up
+                    if (last ? deflater.finished() : size < output.length) {
+                        break;
+                    }
+                }
+                return Arrays.copyOf(output, size);
+            } finally {
+                deflater.end();
+            }
+        }
+
+        private void writeIntLE(int value, OutputStream os) throws IOException {
+            os.write(value);
+            os.write(value >>> 8);
+            os.write(value >>> 16);
+            os.write(value >>> 24);
+        }
+    }
+}
@@ -0,0 +1,137 @@
+/*
+ * Copyright 2020 Sabirov Evgenii (sabirov.e@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.sabirove.codec.filter;
+
+import java.util.zip.Checksum;
+
+/*
+ * Streaming XXH32 (seed 0) as specified by https://github.com/Cyan4973/xxHash/blob/dev/doc/xxhash_spec.md:
+ * the checksum used by the LZ4 frame format.
+ */
+final class XxHash32 implements Checksum {
+    private static final int PRIME1 = 0x9E3779B1;
+    private static final int PRIME2 = 0x85EBCA77;
+    private static final int PRIME3 = 0xC2B2AE3D;
+    private static final int PRIME4 = 0x27D4EB2F;
+    private static final int PRIME5 = 0x165667B1;
+
+    private final byte[] stripe = new byte[16];
+    private int stripeCount;
+    private int v1, v2, v3, v4;
+    private long total;
+
+    XxHash32() {
+        reset();
+    }
+
+    /**
+     * XXH32 of the given bytes.
+     */
+    static int hash(byte[] b, int off, int len) {
+        XxHash32 hash = new XxHash32();
+        hash.update(b, off, len);
+        return (int) hash.getValue();
+    }
+
+    @Override
+    public void update(int b) {
+        stripe[stripeCount++] = (byte) b;
+        total++;
+        if (stripeCount == 16) {
+            consume(stripe, 0);
+            stripeCount = 0;
+        }
+    }
+
+    @Override
+    public void update(byte[] b, int off, int len) {
+        total += len;
+        if (stripeCount > 0) {
+            int n = Math.min(len, 16 - stripeCount);
+            System.arraycopy(b, off, stripe, stripeCount, n);
+            stripeCount += n;
+            off += n;
+            len -= n;
+            if (stripeCount < 16) {
+                return;
+            }
+            consume(stripe, 0);
+            stripeCount = 0;
+        }
+        int end = off + len;
+        int a1 = v1, a2 = v2, a3 = v3, a4 = v4;
+        for (; off + 16 <= end; off += 16) {
+            a1 = round(a1, readIntLE(b, off));
+            a2 = round(a2, readIntLE(b, off + 4));
+            a3 = round(a3, readIntLE(b, off + 8));
+            a4 = round(a4, readIntLE(b, off + 12));
+        }
+        v1 = a1;
+        v2 = a2;
+        v3 = a3;
+        v4 = a4;
+        stripeCount = end - off;
+        System.arraycopy(b, off, stripe, 0, stripeCount);
+    }
+
+    @Override
+    public long getValue() {
+        int h = total >= 16
+                ? Integer.rotateLeft(v1, 1) + Integer.rotateLeft(v2, 7)
+                + Integer.rotateLeft(v3, 12) + Integer.rotateLeft(v4, 18)
+                : PRIME5;
+        h += (int) total;
+        int i = 0;
+        for (; i + 4 <= stripeCount; i += 4) {
+            h = Integer.rotateLeft(h + readIntLE(stripe, i) * PRIME3, 17) * PRIME4;
+        }
+        for (; i < stripeCount; i++) {
+            h = Integer.rotateLeft(h + (stripe[i] & 0xFF) * PRIME5, 11) * PRIME1;
+        }
+        h ^= h >>> 15;
+        h *= PRIME2;
+        h ^= h >>> 13;
+        h *= PRIME3;
+        h ^= h >>> 16;
+        return h & 0xFFFFFFFFL;
+    }
+
+    @Override
+    public void reset() {
+        v1 = PRIME1 + PRIME2;
+        v2 = PRIME2;
+        v3 = 0;
+        v4 = -PRIME1;
+        stripeCount = 0;
+        total = 0;
+    }
+
+    private void consume(byte[] b, int off) {
+        v1 = round(v1, readIntLE(b, off));
+        v2 = round(v2, readIntLE(b, off + 4));
+        v3 = round(v3, readIntLE(b, off + 8));
+        v4 = round(v4, readIntLE(b, off + 12));
+    }
+
+    private static int round(int acc, int input) {
+        return Integer.rotateLeft(acc + input * PRIME2, 13) * PRIME1;
+    }
+
+    static int readIntLE(byte[] b, int off) {
+        return (b[off] & 0xFF) | (b[off + 1] & 0xFF) << 8 | (b[off + 2] & 0xFF) << 16 | (b[off + 3] & 0xFF) << 24;
+    }
+}
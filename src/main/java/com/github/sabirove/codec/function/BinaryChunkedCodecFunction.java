@@ -19,9 +19,18 @@ package com.github.sabirove.codec.function;
 import java.io.*;
 import java.util.Arrays;
 
+import com.github.sabirove.codec.DecoderStream;
 import com.github.sabirove.codec.util.CodecUtil;
+import com.github.sabirove.codec.util.SafeInputStream;
 
-final class BinaryChunkedCodecFunction extends CodecFunction<byte[]> {
+/**
+ * {@link CodecFunction} for IO with plain byte arrays in chunks of the fixed size that additionally allows
+ * to read the chunks into the caller-supplied buffers with {@link #readChunk(InputStream, byte[], int)}
+ * (see {@link DecoderStream#readChunk(byte[])}) to avoid allocating an array per chunk.
+ * <p>
+ * Instances can be obtained via {@link CodecFunctions#binaryChunkedFunction(int, boolean)} factory.
+ */
+public final class BinaryChunkedCodecFunction extends CodecFunction<byte[]> {
     private final int chunkSize;
     private final boolean strict;
 
@@ -43,10 +52,49 @@ final class BinaryChunkedCodecFunction extends CodecFunction<byte[]> {
     @Override
     public byte[] read(InputStream in) throws IOException {
         byte[] buf = new byte[chunkSize];
-        int read = in.read(buf);
-        if (read == -1 || strict && read < chunkSize) {
+        int read = readChunk(in, buf, 0);
+        if (read == -1) {
             throw new EOFException();
         }
         return read == chunkSize ? buf : Arrays.copyOf(buf, read);
     }
+
+    /**
+     * Read the next chunk into the provided buffer starting at the {@code off} position.
+     *
+     * @return number of bytes read: {@code chunkSize} or less for the last chunk (non-strict mode only),
+     * {@code -1} when the end of the stream is reached
+     * @throws IllegalArgumentException when the buffer has no room for {@code chunkSize} bytes at the {@code off}
+     * @throws IOException              when fails to read from the stream
+     * @throws EOFException             when the stream ends in the middle of the chunk in the strict mode
+     * @implNote shouldn't close the underlying stream
+     */
+    public int readChunk(InputStream in, byte[] buf, int off) throws IOException {
+        CodecUtil.checkArgument(off >= 0 && buf.length - off >= chunkSize, "buffer has no room for the chunk");
+        int read = in.read(buf, off, chunkSize);
+        if (strict && read != -1 && read < chunkSize) {
+            throw new EOFException();
+        }
+        return read;
+    }
+
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    @Override
+    public int sizeOf(byte[] value) {
+        return value.length;
+    }
+
+    @Override
+    public void skip(InputStream in) throws IOException {
+        if (strict) {
+            SafeInputStream.skipFully(in, chunkSize);
+        } else if (in.read() == -1) {
+            throw new EOFException();
+        } else {
+            SafeInputStream.skipUpTo(in, chunkSize - 1);
+        }
+    }
 }
@@ -16,6 +16,7 @@
 
 package com.github.sabirove.codec.function;
 
+import com.github.sabirove.codec.util.SafeInputStream;
 import com.github.sabirove.codec.util.Varint;
 
 import java.io.EOFException;
@@ -47,4 +48,14 @@ final class BinaryCodecFunction extends CodecFunction<byte[]> {
         }
         return bytes;
     }
+
+    @Override
+    public int sizeOf(byte[] value) {
+        return Varint.unsignedVarIntSize(value.length) + value.length;
+    }
+
+    @Override
+    public void skip(InputStream in) throws IOException {
+        SafeInputStream.skipFully(in, Varint.readUnsignedVarInt(in));
+    }
 }
@@ -0,0 +1,59 @@
+/*
+ * Copyright 2020 Sabirov Evgenii (sabirov.e@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.sabirove.codec.function;
+
+import java.lang.annotation.*;
+
+import com.github.sabirove.codec.util.StateInputStream;
+import com.github.sabirove.codec.util.StateOutputStream;
+
+/**
+ * Marks the class (or record) to generate the {@link CodecFunctions#binarySerializing binary serialization}
+ * code for at compile time with the {@code codec-processor} annotation processor.
+ * <p>
+ * For the annotated type {@code Foo} the processor generates the {@code FooBinaryCodec} class in the same package
+ * with the straight-line {@code write(StateOutputStream, Foo)}/{@code read(StateInputStream)} methods
+ * (and the {@code function()} factory method when {@code Foo} is {@link java.io.Serializable}).
+ * <p>
+ * Requirements:
+ * <ol>
+ *   <li>all the non-static, non-transient fields are serialized in the declaration order: the fields should be
+ *   either non-private or readable with the non-private {@code getX()}/{@code isX()}/{@code x()} accessor</li>
+ *   <li>non-private constructor accepting all the serialized fields in the declaration order should be present
+ *   (records comply by design)</li>
+ *   <li>field types should be supported by {@link StateOutputStream}/{@link StateInputStream}: primitives and their
+ *   boxes, strings, enums, the standard value types, primitive arrays (bit-packed for {@code boolean[]}),
+ *   {@code BitSet}, other {@code @BinarySerializable} types and the arrays, lists, sets and maps of the above</li>
+ *   <li>superclasses should not declare the instance fields (inherited state is rejected at compile time)</li>
+ *   <li>null values are not supported</li>
+ * </ol>
+ * {@code int} and {@code long} fields (including boxed ones) are written as ZigZag + LEB128 variable-length values
+ * unless annotated with {@link Fixed}.
+ */
+@Documented
+@Retention(RetentionPolicy.CLASS)
+@Target(ElementType.TYPE)
+public @interface BinarySerializable {
+
+    /**
+     * Use the fixed-length encoding for the annotated {@code int}/{@code long} field (e.g. for hashes or random ids
+     * for which the variable-length encoding yields no gain).
+     */
+    @Documented
+    @Retention(RetentionPolicy.CLASS)
+    @Target({ElementType.FIELD, ElementType.METHOD})
+    @interface Fixed { }
+}
@@ -23,28 +23,120 @@ import java.util.function.Function;
 
 import com.github.sabirove.codec.util.StateInputStream;
 import com.github.sabirove.codec.util.StateOutputStream;
+import com.github.sabirove.codec.util.StateStreamSpec;
 
 final class BinarySerializationCodecFunction<T> extends CodecFunction<T> {
     private final BiConsumer<StateOutputStream, T> writer;
     private final Function<StateInputStream, T> reader;
+    private final BiConsumer<StateInputStream, T> filler;
+    private final StateStreamSpec spec;
+    private final boolean session;
+    //per-stream state (session only)
+    private StateOutputStream sos;
+    private StateInputStream sis;
 
-    BinarySerializationCodecFunction(BiConsumer<StateOutputStream, T> writer, Function<StateInputStream, T> reader) {
+    BinarySerializationCodecFunction(BiConsumer<StateOutputStream, T> writer,
+                                     Function<StateInputStream, T> reader,
+                                     StateStreamSpec spec) {
+        this(writer, reader, null, spec);
+    }
+
+    BinarySerializationCodecFunction(BiConsumer<StateOutputStream, T> writer,
+                                     Function<StateInputStream, T> reader,
+                                     BiConsumer<StateInputStream, T> filler,
+                                     StateStreamSpec spec) {
+        this(writer, reader, filler, spec, false);
+    }
+
+    private BinarySerializationCodecFunction(BiConsumer<StateOutputStream, T> writer,
+                                             Function<StateInputStream, T> reader,
+                                             BiConsumer<StateInputStream, T> filler,
+                                             StateStreamSpec spec,
+                                             boolean session) {
         this.writer = writer;
         this.reader = reader;
+        this.filler = filler;
+        this.spec = spec;
+        this.session = session;
     }
 
     @Override
     public void write(T value, OutputStream out) {
-        writer.accept(new StateOutputStream(out), value);
+        StateOutputStream sos = outputStream(out);
+        writer.accept(sos, value);
+        sos.alignBits();
     }
 
     @Override
     public T read(InputStream in) {
-        T result = reader.apply(new StateInputStream(in));
+        StateInputStream sis = inputStream(in);
+        T result = reader.apply(sis);
         if (result == null) {
             throw new NullPointerException("object read from the buffer can't be null");
         }
+        sis.alignBits();
         return result;
     }
 
+    @Override
+    public T readInto(InputStream in, T reuse) {
+        if (filler == null) {
+            return read(in);
+        }
+        StateInputStream sis = inputStream(in);
+        filler.accept(sis, reuse);
+        sis.alignBits();
+        return reuse;
+    }
+
+    /**
+     * Run the writer against the {@link StateOutputStream#counting() size-counting} stream.
+     * The size can't be computed upfront once the back-reference tables of the per-stream instance are populated.
+     */
+    @Override
+    public int sizeOf(T value) {
+        if (sos != null) {
+            return -1;
+        }
+        StateOutputStream counting = spec.counting();
+        writer.accept(counting, value);
+        long size = counting.alignBits().size();
+        return size > Integer.MAX_VALUE ? -1 : (int) size;
+    }
+
+    /**
+     * Keep the same pair of state streams for the whole lifetime of the encoder/decoder stream
+     * when per-stream state is enabled with the {@link StateStreamSpec}.
+     */
+    @Override
+    public CodecFunction<T> forStream() {
+        return spec.isStateful() ? new BinarySerializationCodecFunction<>(writer, reader, filler, spec, true) : this;
+    }
+
+    @Override
+    public void flush(OutputStream out) {
+        if (sos != null) {
+            sos.flush();
+        }
+    }
+
+    private StateOutputStream outputStream(OutputStream out) {
+        if (!session) {
+            return spec.wrap(out);
+        }
+        if (sos == null) {
+            sos = spec.wrap(out);
+        }
+        return sos;
+    }
+
+    private StateInputStream inputStream(InputStream in) {
+        if (!session) {
+            return spec.wrap(in);
+        }
+        if (sis == null) {
+            sis = spec.wrap(in);
+        }
+        return sis;
+    }
 }
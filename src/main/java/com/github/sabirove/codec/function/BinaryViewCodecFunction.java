@@ -0,0 +1,68 @@
+/*
+ * Copyright 2020 Sabirov Evgenii (sabirov.e@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.sabirove.codec.function;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+
+import com.github.sabirove.codec.util.ByteBufferInputStream;
+import com.github.sabirove.codec.util.Varint;
+
+/**
+ * Same wire format as of the {@link BinaryCodecFunction}: decodes into the read-only slices of the source
+ * when it's a {@link ByteBufferInputStream}, copies the bytes otherwise.
+ */
+final class BinaryViewCodecFunction extends CodecFunction<ByteBuffer> {
+    private static final int COPY_BUFFER_SIZE = 8192;
+
+    @Override
+    public void write(ByteBuffer value, OutputStream out) throws IOException {
+        int len = value.remaining();
+        Varint.writeUnsignedVarInt(len, out);
+        if (value.hasArray()) {
+            out.write(value.array(), value.arrayOffset() + value.position(), len);
+        } else {
+            ByteBuffer src = value.duplicate();
+            byte[] buf = new byte[Math.min(len, COPY_BUFFER_SIZE)];
+            while (src.hasRemaining()) {
+                int chunk = Math.min(buf.length, src.remaining());
+                src.get(buf, 0, chunk);
+                out.write(buf, 0, chunk);
+            }
+        }
+    }
+
+    @Override
+    public ByteBuffer read(InputStream in) throws IOException {
+        if (in instanceof ByteBufferInputStream) {
+            return ((ByteBufferInputStream) in).slice(Varint.readUnsignedVarInt(in));
+        }
+        return ByteBuffer.wrap(CodecFunctions.binary().read(in)).asReadOnlyBuffer();
+    }
+
+    @Override
+    public void skip(InputStream in) throws IOException {
+        CodecFunctions.binary().skip(in);
+    }
+
+    @Override
+    public int sizeOf(ByteBuffer value) {
+        return Varint.unsignedVarIntSize(value.remaining()) + value.remaining();
+    }
+}
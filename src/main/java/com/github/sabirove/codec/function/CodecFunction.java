@@ -22,6 +22,9 @@ import java.io.InputStream;
 import java.io.OutputStream;
 import java.util.function.Function;
 
+import com.github.sabirove.codec.DecoderStream;
+import com.github.sabirove.codec.EncoderStream;
+
 
 /**
  * Bidirectional serialization function for doing IO operations
@@ -47,6 +50,67 @@ public abstract class CodecFunction<T> {
      */
     public abstract T read(InputStream in) throws IOException;
 
+    /**
+     * Read the single value into the provided mutable {@code reuse} instance (instead of allocating a new one)
+     * overwriting its state entirely.
+     *
+     * @return the {@code reuse} instance filled with the value read or a new instance when this function
+     * doesn't support reading into the existing instances
+     * @throws IOException  when fails to read from the stream
+     * @throws EOFException when trying to read and the end of the input stream reached
+     * @implSpec default implementation ignores {@code reuse} and delegates to {@link #read(InputStream)}.
+     * @implNote shouldn't close the underlying stream
+     */
+    public T readInto(InputStream in, T reuse) throws IOException {
+        return read(in);
+    }
+
+    /**
+     * Advance past the single value without materializing it.
+     *
+     * @throws IOException  when fails to read from the stream
+     * @throws EOFException when trying to skip and the end of the input stream reached
+     * @implSpec default implementation reads the value and discards it.
+     * Length-prefixed and fixed-length functions should skip the bytes directly.
+     * @implNote shouldn't close the underlying stream
+     */
+    public void skip(InputStream in) throws IOException {
+        read(in);
+    }
+
+    /**
+     * Compute the exact number of bytes the provided {@code value} would take when written with
+     * {@link #write(Object, OutputStream)} without actually encoding it (for the per-stream instances:
+     * when written next), e.g. to presize the buffers or to compute the length prefixes upfront.
+     *
+     * @return encoded size in bytes or {@code -1} when it can't be computed without encoding the value
+     * @implSpec default implementation returns {@code -1}.
+     */
+    public int sizeOf(T value) {
+        return -1;
+    }
+
+    /**
+     * Get the instance of this function to be used exclusively by a single {@link EncoderStream}
+     * or {@link DecoderStream} for its whole lifetime, i.e. against the same underlying stream.
+     *
+     * @implSpec default implementation returns {@code this}, which is what stateless functions should do.
+     * Functions maintaining some per-stream state (e.g. back-reference tables) should return a fresh instance.
+     */
+    public CodecFunction<T> forStream() {
+        return this;
+    }
+
+    /**
+     * Write out any state buffered by this function to the provided stream.
+     * Invoked when the owning {@link EncoderStream} is flushed or closed.
+     *
+     * @throws IOException when fails to write to the stream
+     * @implSpec default implementation does nothing.
+     * @implNote shouldn't close the underlying stream
+     */
+    public void flush(OutputStream out) throws IOException { }
+
     /**
      * Adapt this function to another target type by using a pair of specified type converters.
      */
@@ -62,6 +126,27 @@ public abstract class CodecFunction<T> {
             public V read(InputStream in) throws IOException {
                 return from.apply(it.read(in));
             }
+
+            @Override
+            public void skip(InputStream in) throws IOException {
+                it.skip(in);
+            }
+
+            @Override
+            public int sizeOf(V value) {
+                return it.sizeOf(to.apply(value));
+            }
+
+            @Override
+            public CodecFunction<V> forStream() {
+                CodecFunction<T> stream = it.forStream();
+                return stream == it ? this : stream.adapt(from, to);
+            }
+
+            @Override
+            public void flush(OutputStream out) throws IOException {
+                it.flush(out);
+            }
         };
     }
 }
@@ -18,18 +18,28 @@ package com.github.sabirove.codec.function;
 
 import com.github.sabirove.codec.util.StateInputStream;
 import com.github.sabirove.codec.util.StateOutputStream;
+import com.github.sabirove.codec.util.StateStreamSpec;
 
+import java.io.InputStream;
 import java.io.Serializable;
+import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.Set;
 import java.util.function.BiConsumer;
 import java.util.function.Function;
 
+import static com.github.sabirove.codec.util.CodecUtil.checkArgument;
+import static com.github.sabirove.codec.util.CodecUtil.checkNotNull;
+
 /**
  * Standard {@link CodecFunction} implementations.
  */
 public final class CodecFunctions {
     private static final BinaryCodecFunction BINARY = new BinaryCodecFunction();
+    private static final BinaryViewCodecFunction BINARY_VIEW = new BinaryViewCodecFunction();
+    private static final StreamingCodecFunction STREAMING = new StreamingCodecFunction();
     private static final StringCodecFunction STRING_UTF8 = new StringCodecFunction(StandardCharsets.UTF_8);
     private static final StringCodecFunction STRING_UTF16 = new StringCodecFunction(StandardCharsets.UTF_16);
     private static final StringCodecFunction STRING_ASCII = new StringCodecFunction(StandardCharsets.US_ASCII);
@@ -46,6 +56,62 @@ public final class CodecFunctions {
         return new JavaSerializationCodecFunction<>(clazz);
     }
 
+    /**
+     * {@link #javaSerializing(Class)} analog operating in the streaming session mode: when used with
+     * {@link com.github.sabirove.codec.EncoderStream}/{@link com.github.sabirove.codec.DecoderStream}
+     * a single {@link java.io.ObjectOutputStream}/{@link java.io.ObjectInputStream} is kept for the whole
+     * stream lifetime, so the stream header and the class descriptors are written once rather than per each value.
+     * <p>To bound the memory retained by the object stream handle table it is {@link java.io.ObjectOutputStream#reset()
+     * reset} every {@code resetObjects} objects or every {@code resetBytes} bytes written (whichever comes first).
+     * Note that the objects written within the same reset interval share the references
+     * (the same instance written twice is read back as the same instance, mutations in between are not tracked).</p>
+     *
+     * @param clazz        target type
+     * @param resetObjects max number of objects written between the resets
+     * @param resetBytes   max number of bytes written between the resets
+     */
+    public static <T extends Serializable> CodecFunction<T> javaSerializing(Class<T> clazz,
+                                                                            int resetObjects,
+                                                                            long resetBytes) {
+        checkArgument(resetObjects > 0, "resetObjects should be positive");
+        checkArgument(resetBytes > 0, "resetBytes should be positive");
+        return new JavaSerializationCodecFunction<>(clazz, resetObjects, resetBytes, null);
+    }
+
+    /**
+     * {@link #javaSerializing(Class)} analog that restricts and speeds up the class resolution when decoding:
+     * only the {@code allowedClasses} (and the target type itself) along with their superclasses, arrays and
+     * primitive types can be deserialized (interfaces of the dynamic proxies and the JDK serialization proxies
+     * like {@code java.time.Ser} are checked too), each class is resolved and checked against the allow-list once
+     * (resolution is cached per class name for the class loader of the target type).
+     *
+     * @param clazz          target type
+     * @param allowedClasses classes expected in the stream besides the target type (e.g. field value types)
+     */
+    public static <T extends Serializable> CodecFunction<T> javaSerializing(Class<T> clazz,
+                                                                            Set<Class<?>> allowedClasses) {
+        return new JavaSerializationCodecFunction<>(clazz, 0, 0, classResolver(clazz, allowedClasses));
+    }
+
+    /**
+     * Session mode {@link #javaSerializing(Class, int, long)} analog with the class resolution
+     * restricted and cached as per {@link #javaSerializing(Class, Set)}.
+     *
+     * @param clazz          target type
+     * @param resetObjects   max number of objects written between the resets
+     * @param resetBytes     max number of bytes written between the resets
+     * @param allowedClasses classes expected in the stream besides the target type (e.g. field value types)
+     */
+    public static <T extends Serializable> CodecFunction<T> javaSerializing(Class<T> clazz,
+                                                                            int resetObjects,
+                                                                            long resetBytes,
+                                                                            Set<Class<?>> allowedClasses) {
+        checkArgument(resetObjects > 0, "resetObjects should be positive");
+        checkArgument(resetBytes > 0, "resetBytes should be positive");
+        return new JavaSerializationCodecFunction<>(clazz, resetObjects, resetBytes,
+                classResolver(clazz, allowedClasses));
+    }
+
     /**
      * Ad-hoc binary serialization function based on a pair of custom {@code java.io} stream wrappers
      * {@link StateInputStream}/{@link StateOutputStream} providing convenient API to read and write
@@ -66,7 +132,81 @@ public final class CodecFunctions {
     public static <T extends Serializable> CodecFunction<T> binarySerializing(
             BiConsumer<StateOutputStream, T> writer,
             Function<StateInputStream, T> reader) {
-        return new BinarySerializationCodecFunction<>(writer, reader);
+        return new BinarySerializationCodecFunction<>(writer, reader, StateStreamSpec.ofDefault());
+    }
+
+    /**
+     * {@link #binarySerializing(BiConsumer, Function)} analog with the state streams configured with
+     * the provided {@link StateStreamSpec}.
+     * <p>When used with {@link com.github.sabirove.codec.EncoderStream}/{@link com.github.sabirove.codec.DecoderStream}
+     * the same pair of state streams is kept for the whole stream lifetime, so the back-reference tables
+     * (string dictionary, shared values) span across all the values written to/read from the stream:
+     * the repeated values are written as compact back-references and decoded as shared instances.</p>
+     *
+     * @param writer function to write the arbitrary {@code state} to the supplied input buffer
+     * @param reader function to read the written {@code state} from the supplied output buffer
+     * @param spec   per-stream features specification
+     */
+    public static <T extends Serializable> CodecFunction<T> binarySerializing(
+            BiConsumer<StateOutputStream, T> writer,
+            Function<StateInputStream, T> reader,
+            StateStreamSpec spec) {
+        return new BinarySerializationCodecFunction<>(writer, reader, checkNotNull(spec));
+    }
+
+    /**
+     * {@link #binarySerializing(BiConsumer, Function)} analog additionally supporting to read the values
+     * into the existing mutable instances with {@link CodecFunction#readInto(java.io.InputStream, Object)}
+     * (see {@link com.github.sabirove.codec.DecoderStream#read(Object)}) so that the decode loops can reuse
+     * a single instance instead of allocating one per value.
+     *
+     * @param writer function to write the arbitrary {@code state} to the supplied input buffer
+     * @param reader function to read the written {@code state} from the supplied output buffer
+     * @param filler function to read the written {@code state} into the provided instance overwriting all of its
+     *               fields (should read exactly the same data as the {@code reader} does)
+     */
+    public static <T extends Serializable> CodecFunction<T> binarySerializing(
+            BiConsumer<StateOutputStream, T> writer,
+            Function<StateInputStream, T> reader,
+            BiConsumer<StateInputStream, T> filler) {
+        return binarySerializing(writer, reader, filler, StateStreamSpec.ofDefault());
+    }
+
+    /**
+     * {@link #binarySerializing(BiConsumer, Function, BiConsumer)} analog with the state streams configured with
+     * the provided {@link StateStreamSpec}.
+     *
+     * @see #binarySerializing(BiConsumer, Function, StateStreamSpec)
+     */
+    public static <T extends Serializable> CodecFunction<T> binarySerializing(
+            BiConsumer<StateOutputStream, T> writer,
+            Function<StateInputStream, T> reader,
+            BiConsumer<StateInputStream, T> filler,
+            StateStreamSpec spec) {
+        return new BinarySerializationCodecFunction<>(writer, reader, checkNotNull(filler), checkNotNull(spec));
+    }
+
+    /**
+     * Binary serialization function for the classes that can't be annotated with {@link BinarySerializable}
+     * and would otherwise fall back to {@link #javaSerializing(Class)}.
+     * <p>The class is inspected once (the result is cached per class): all the non-static, non-transient fields
+     * of the class hierarchy are read and written through the {@link java.lang.invoke.MethodHandle}s
+     * with the {@link StateOutputStream}/{@link StateInputStream} encodings (variable-length {@code int}/{@code long},
+     * same types as supported by {@link BinarySerializable}). Reference values can be {@code null}.</p>
+     * <p>Limitations:
+     * <ol>
+     *   <li>no-arg constructor (of any visibility) is required</li>
+     *   <li>field values should be of the exact declared types (no polymorphism), object graphs should be acyclic</li>
+     *   <li>classes should be open for the deep reflection (records and JDK classes are not supported)</li>
+     * </ol>
+     *
+     * @param type target class
+     * @throws IllegalArgumentException when the class doesn't conform to the requirements
+     */
+    public static <T> CodecFunction<T> reflective(Class<T> type) {
+        ReflectiveCoder<T> coder = ReflectiveCoder.of(checkNotNull(type));
+        return new BinarySerializationCodecFunction<>(coder::write, coder::read, coder::fill,
+                StateStreamSpec.ofDefault());
     }
 
     /**
@@ -79,6 +219,38 @@ public final class CodecFunctions {
         return BINARY;
     }
 
+    /**
+     * {@link #binary()} analog (same wire format) operating on {@link ByteBuffer}s: writes the remaining bytes
+     * of the buffer (without affecting its position) and reads the values back as read-only buffers.
+     * When decoding from the {@link com.github.sabirove.codec.util.ByteBufferInputStream} (e.g. with
+     * {@link com.github.sabirove.codec.Codec#decode(ByteBuffer)}) the values are zero-copy slices referencing
+     * the source data, otherwise the bytes are copied.
+     *
+     * @apiNote slices keep the whole source data reachable and reflect its modifications.
+     */
+    public static CodecFunction<ByteBuffer> binaryView() {
+        return BINARY_VIEW;
+    }
+
+    /**
+     * Codec function for IO with arbitrarily large binary values represented as {@link InputStream}s,
+     * keeping the memory footprint constant on both sides: the value is written as the sequence of length-prefixed
+     * chunks (read from the value stream until its end, the stream is not closed) and read back as the lazy
+     * bounded view over the source stream.
+     * <p>When used with {@link com.github.sabirove.codec.DecoderStream} the view returned by the previous read
+     * is drained (the rest of the value is skipped) before the next value is read and can't be read afterwards.
+     * Closing the view doesn't close the source stream.</p>
+     *
+     * @apiNote when used directly (not via the {@link com.github.sabirove.codec.DecoderStream}) the view
+     * should be fully consumed before reading the next value from the same source.
+     * The single-value {@link com.github.sabirove.codec.Codec#decode(byte[])} closes the decoder stream on return,
+     * so with the filters applied it fails with {@link IllegalStateException}: read the values through
+     * {@link com.github.sabirove.codec.Codec#wrap(InputStream)} and keep the stream open while reading them.
+     */
+    public static CodecFunction<InputStream> streaming() {
+        return STREAMING;
+    }
+
     /**
      * {@link #binary()} analog that writes and reads bytes in chunks of specified size.
      * <ul>
@@ -92,6 +264,16 @@ public final class CodecFunctions {
      * @apiNote for a more generic use case of writing arbitrary length byte arrays use {@link #binary()} (int, boolean)}.
      */
     public static CodecFunction<byte[]> binaryChunked(int chunkSize, boolean strict) {
+        return binaryChunkedFunction(chunkSize, strict);
+    }
+
+    /**
+     * {@link #binaryChunked(int, boolean)} analog returning the concrete function type that allows
+     * to read the chunks into the caller-supplied buffers directly.
+     *
+     * @see BinaryChunkedCodecFunction#readChunk(InputStream, byte[], int)
+     */
+    public static BinaryChunkedCodecFunction binaryChunkedFunction(int chunkSize, boolean strict) {
         return new BinaryChunkedCodecFunction(chunkSize, strict);
     }
 
@@ -113,4 +295,42 @@ public final class CodecFunctions {
     public static CodecFunction<String> stringSerializing() {
         return STRING_UTF8;
     }
+
+    /**
+     * Codec function for IO with primitive {@code int} values avoiding boxing when used via
+     * {@link IntCodecFunction#writeInt(int, java.io.OutputStream)}/{@link IntCodecFunction#readInt(java.io.InputStream)}
+     * or {@link com.github.sabirove.codec.EncoderStream#writeInt(int)}/{@link com.github.sabirove.codec.DecoderStream#readInt()}.
+     *
+     * @param varLength whether to use the ZigZag + LEB128 variable-length encoding instead of the fixed 4 bytes
+     */
+    public static IntCodecFunction intSerializing(boolean varLength) {
+        return varLength ? IntCodecFunction.VAR_LENGTH : IntCodecFunction.FIXED;
+    }
+
+    /**
+     * Codec function for IO with primitive {@code long} values avoiding boxing when used via
+     * {@link LongCodecFunction#writeLong(long, java.io.OutputStream)}/{@link LongCodecFunction#readLong(java.io.InputStream)}
+     * or {@link com.github.sabirove.codec.EncoderStream#writeLong(long)}/{@link com.github.sabirove.codec.DecoderStream#readLong()}.
+     *
+     * @param varLength whether to use the ZigZag + LEB128 variable-length encoding instead of the fixed 8 bytes
+     */
+    public static LongCodecFunction longSerializing(boolean varLength) {
+        return varLength ? LongCodecFunction.VAR_LENGTH : LongCodecFunction.FIXED;
+    }
+
+    /**
+     * Codec function for IO with primitive {@code double} values (8 bytes IEEE 754 representation) avoiding boxing
+     * when used via {@link DoubleCodecFunction#writeDouble(double, java.io.OutputStream)}/{@link DoubleCodecFunction#readDouble(java.io.InputStream)}
+     * or {@link com.github.sabirove.codec.EncoderStream#writeDouble(double)}/{@link com.github.sabirove.codec.DecoderStream#readDouble()}.
+     */
+    public static DoubleCodecFunction doubleSerializing() {
+        return DoubleCodecFunction.FIXED;
+    }
+
+    private static JavaSerializationCodecFunction.ClassResolver classResolver(Class<?> clazz,
+                                                                              Set<Class<?>> allowedClasses) {
+        Set<Class<?>> allowed = new HashSet<>(checkNotNull(allowedClasses));
+        allowed.add(clazz);
+        return new JavaSerializationCodecFunction.ClassResolver(clazz.getClassLoader(), allowed);
+    }
 }
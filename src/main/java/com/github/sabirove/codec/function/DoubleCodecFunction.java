@@ -0,0 +1,82 @@
+/*
+ * Copyright 2020 Sabirov Evgenii (sabirov.e@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.sabirove.codec.function;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import com.github.sabirove.codec.DecoderStream;
+import com.github.sabirove.codec.EncoderStream;
+import com.github.sabirove.codec.util.SafeInputStream;
+
+/**
+ * {@link CodecFunction} specialized for the primitive {@code double} values allowing to do IO
+ * without boxing the values when used directly or by means of the
+ * {@link EncoderStream#writeDouble(double)}/{@link DecoderStream#readDouble()} API.
+ * <p>
+ * Standard implementations can be obtained via {@link CodecFunctions} factory.
+ */
+public abstract class DoubleCodecFunction extends CodecFunction<Double> {
+    static final DoubleCodecFunction FIXED = new Fixed();
+
+    /**
+     * @throws IOException when fails to write to the stream
+     * @implNote shouldn't flush or close the underlying stream
+     */
+    public abstract void writeDouble(double value, OutputStream out) throws IOException;
+
+    /**
+     * @throws IOException  when fails to read from the stream
+     * @throws EOFException when trying to read and the end of the input stream reached
+     * @implNote shouldn't close the underlying stream
+     */
+    public abstract double readDouble(InputStream in) throws IOException;
+
+    @Override
+    public final void write(Double value, OutputStream out) throws IOException {
+        writeDouble(value, out);
+    }
+
+    @Override
+    public final Double read(InputStream in) throws IOException {
+        return readDouble(in);
+    }
+
+    private static final class Fixed extends DoubleCodecFunction {
+        @Override
+        public void writeDouble(double value, OutputStream out) throws IOException {
+            LongCodecFunction.FIXED.writeLong(Double.doubleToLongBits(value), out);
+        }
+
+        @Override
+        public double readDouble(InputStream in) throws IOException {
+            return Double.longBitsToDouble(LongCodecFunction.FIXED.readLong(in));
+        }
+
+        @Override
+        public void skip(InputStream in) throws IOException {
+            SafeInputStream.skipFully(in, 8);
+        }
+
+        @Override
+        public int sizeOf(Double value) {
+            return 8;
+        }
+    }
+}
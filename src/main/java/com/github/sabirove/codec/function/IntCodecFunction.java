@@ -0,0 +1,111 @@
+/*
+ * Copyright 2020 Sabirov Evgenii (sabirov.e@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.sabirove.codec.function;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import com.github.sabirove.codec.DecoderStream;
+import com.github.sabirove.codec.EncoderStream;
+import com.github.sabirove.codec.util.SafeInputStream;
+import com.github.sabirove.codec.util.Varint;
+
+/**
+ * {@link CodecFunction} specialized for the primitive {@code int} values allowing to do IO
+ * without boxing the values when used directly or by means of the
+ * {@link EncoderStream#writeInt(int)}/{@link DecoderStream#readInt()} API.
+ * <p>
+ * Standard implementations can be obtained via {@link CodecFunctions} factory.
+ */
+public abstract class IntCodecFunction extends CodecFunction<Integer> {
+    static final IntCodecFunction FIXED = new Fixed();
+    static final IntCodecFunction VAR_LENGTH = new VarLength();
+
+    /**
+     * @throws IOException when fails to write to the stream
+     * @implNote shouldn't flush or close the underlying stream
+     */
+    public abstract void writeInt(int value, OutputStream out) throws IOException;
+
+    /**
+     * @throws IOException  when fails to read from the stream
+     * @throws EOFException when trying to read and the end of the input stream reached
+     * @implNote shouldn't close the underlying stream
+     */
+    public abstract int readInt(InputStream in) throws IOException;
+
+    @Override
+    public final void write(Integer value, OutputStream out) throws IOException {
+        writeInt(value, out);
+    }
+
+    @Override
+    public final Integer read(InputStream in) throws IOException {
+        return readInt(in);
+    }
+
+    private static final class Fixed extends IntCodecFunction {
+        @Override
+        public void writeInt(int value, OutputStream out) throws IOException {
+            out.write(value >>> 24);
+            out.write(value >>> 16);
+            out.write(value >>> 8);
+            out.write(value);
+        }
+
+        @Override
+        public int readInt(InputStream in) throws IOException {
+            int b1 = in.read();
+            int b2 = in.read();
+            int b3 = in.read();
+            int b4 = in.read();
+            if (b4 == -1) {
+                throw new EOFException();
+            }
+            return (b1 << 24) | ((b2 & 0xff) << 16) | ((b3 & 0xff) << 8) | (b4 & 0xff);
+        }
+
+        @Override
+        public void skip(InputStream in) throws IOException {
+            SafeInputStream.skipFully(in, 4);
+        }
+
+        @Override
+        public int sizeOf(Integer value) {
+            return 4;
+        }
+    }
+
+    private static final class VarLength extends IntCodecFunction {
+        @Override
+        public void writeInt(int value, OutputStream out) {
+            Varint.writeSignedVarInt(value, out);
+        }
+
+        @Override
+        public int sizeOf(Integer value) {
+            return Varint.signedVarIntSize(value);
+        }
+
+        @Override
+        public int readInt(InputStream in) {
+            return Varint.readSignedVarInt(in);
+        }
+    }
+}
@@ -17,26 +17,80 @@
 package com.github.sabirove.codec.function;
 
 import java.io.*;
+import java.lang.reflect.Proxy;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 
 @SuppressWarnings("resource")
 final class JavaSerializationCodecFunction<T extends Serializable> extends CodecFunction<T> {
     private final Class<T> type;
+    private final int resetObjects;
+    private final long resetBytes;
+    private final ClassResolver resolver;
+    private final boolean session;
+    //per-stream state (session only)
+    private CountingOutputStream counter;
+    private ObjectOutputStream oos;
+    private ObjectInputStream ois;
+    private int objectsSinceReset;
 
     JavaSerializationCodecFunction(Class<T> type) {
+        this(type, 0, 0, null, false);
+    }
+
+    /**
+     * Session mode: keep the single object stream for the whole lifetime of the encoder/decoder stream
+     * resetting its state every {@code resetObjects} objects or {@code resetBytes} bytes written (whichever first).
+     * Class resolution is cached and restricted with the {@code resolver} when one is provided.
+     */
+    JavaSerializationCodecFunction(Class<T> type, int resetObjects, long resetBytes, ClassResolver resolver) {
+        this(type, resetObjects, resetBytes, resolver, false);
+    }
+
+    private JavaSerializationCodecFunction(Class<T> type,
+                                           int resetObjects,
+                                           long resetBytes,
+                                           ClassResolver resolver,
+                                           boolean session) {
         this.type = type;
+        this.resetObjects = resetObjects;
+        this.resetBytes = resetBytes;
+        this.resolver = resolver;
+        this.session = session;
     }
 
     @Override
     public void write(T value, OutputStream out) throws IOException {
-        new ObjectOutputStream(out).writeObject(value);
+        if (!session) {
+            new ObjectOutputStream(out).writeObject(value);
+            return;
+        }
+        if (oos == null) {
+            counter = new CountingOutputStream(out);
+            oos = new ObjectOutputStream(counter);
+        } else if (objectsSinceReset >= resetObjects || counter.count >= resetBytes) {
+            oos.reset();
+            objectsSinceReset = 0;
+            counter.count = 0;
+        }
+        oos.writeObject(value);
+        objectsSinceReset++;
     }
 
     @SuppressWarnings("unchecked")
     @Override
     public T read(InputStream in) throws IOException {
         try {
-            return (T) new ObjectInputStream(in).readObject();
+            if (!session) {
+                return (T) objectInputStream(in).readObject();
+            }
+            if (ois == null) {
+                ois = objectInputStream(in);
+            }
+            return (T) ois.readObject();
         } catch (ClassCastException cce) {
             throw new IllegalStateException("java deserialization failed: invalid target type! expected=" + type, cce);
         } catch (ClassNotFoundException e) {
@@ -44,4 +98,145 @@ final class JavaSerializationCodecFunction<T extends Serializable> extends Codec
         }
     }
 
+    @Override
+    public CodecFunction<T> forStream() {
+        return resetObjects > 0
+                ? new JavaSerializationCodecFunction<>(type, resetObjects, resetBytes, resolver, true)
+                : this;
+    }
+
+    @Override
+    public void flush(OutputStream out) throws IOException {
+        if (oos != null) {
+            oos.flush();
+        }
+    }
+
+    private ObjectInputStream objectInputStream(InputStream in) throws IOException {
+        return resolver == null ? new ObjectInputStream(in) : new ResolvingObjectInputStream(in, resolver);
+    }
+
+    /**
+     * Caches the class resolution per descriptor name (for the class loader of the target type) checking
+     * the classes against the allow-list once per class: a class is allowed when it is one of the allowed classes,
+     * a superclass of one (superclass descriptors are written along with the class descriptor), an array of such
+     * or a primitive type. JDK serialization proxies (e.g. {@code java.time.Ser}) are allowed only when
+     * an allowed class shares their package, {@link Proxy} only when an interface is allowed: every interface
+     * of the dynamic proxy class is checked.
+     */
+    static final class ClassResolver {
+        private static final String[] SERIAL_PROXIES = {
+                "java.time.Ser", "java.time.chrono.Ser", "java.time.zone.Ser", "java.util.CollSer"
+        };
+
+        private final ClassLoader loader;
+        private final Set<Class<?>> allowed = new HashSet<>();
+        private final ConcurrentMap<String, Class<?>> cache = new ConcurrentHashMap<>();
+
+        ClassResolver(ClassLoader loader, Set<Class<?>> allowedClasses) {
+            this.loader = loader;
+            Set<String> packages = new HashSet<>();
+            for (Class<?> cls : allowedClasses) {
+                packages.add(packageName(cls));
+                if (cls.isInterface()) {
+                    allowed.add(Proxy.class);
+                }
+                for (Class<?> c = cls; c != null; c = c.getSuperclass()) {
+                    allowed.add(c);
+                }
+            }
+            for (String proxy : SERIAL_PROXIES) {
+                if (packages.contains(proxy.substring(0, proxy.lastIndexOf('.')))) {
+                    try {
+                        allowed.add(Class.forName(proxy, false, null));
+                    } catch (ClassNotFoundException e) {
+                        //not available in this Java version
+                    }
+                }
+            }
+        }
+
+        Class<?> cached(String name) {
+            return cache.get(name);
+        }
+
+        Class<?> load(String name) throws ClassNotFoundException {
+            return Class.forName(name, false, loader);
+        }
+
+        Class<?> register(String name, Class<?> resolved) throws InvalidClassException {
+            if (!isAllowed(resolved)) {
+                throw new InvalidClassException(name, "class is not allowed for deserialization");
+            }
+            cache.putIfAbsent(name, resolved);
+            return resolved;
+        }
+
+        private boolean isAllowed(Class<?> cls) {
+            while (cls.isArray()) {
+                cls = cls.getComponentType();
+            }
+            return cls.isPrimitive() || allowed.contains(cls);
+        }
+
+        private static String packageName(Class<?> cls) {
+            String name = cls.getName();
+            int idx = name.lastIndexOf('.');
+            return idx == -1 ? "" : name.substring(0, idx);
+        }
+    }
+
+    private static final class ResolvingObjectInputStream extends ObjectInputStream {
+        private final ClassResolver resolver;
+
+        ResolvingObjectInputStream(InputStream in, ClassResolver resolver) throws IOException {
+            super(in);
+            this.resolver = resolver;
+        }
+
+        @Override
+        protected Class<?> resolveClass(ObjectStreamClass desc) throws IOException, ClassNotFoundException {
+            String name = desc.getName();
+            Class<?> cls = resolver.cached(name);
+            if (cls != null) {
+                return cls;
+            }
+            try {
+                cls = resolver.load(name);
+            } catch (ClassNotFoundException e) {
+                cls = super.resolveClass(desc); //primitives and the classes of the other loaders
+            }
+            return resolver.register(name, cls);
+        }
+
+        @Override
+        protected Class<?> resolveProxyClass(String[] interfaces) throws IOException, ClassNotFoundException {
+            for (String name : interfaces) {
+                if (resolver.cached(name) == null) {
+                    resolver.register(name, resolver.load(name));
+                }
+            }
+            return super.resolveProxyClass(interfaces);
+        }
+    }
+
+    private static final class CountingOutputStream extends FilterOutputStream {
+        private long count;
+
+        CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+    }
 }
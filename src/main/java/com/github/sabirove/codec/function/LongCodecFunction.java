@@ -0,0 +1,112 @@
+/*
+ * Copyright 2020 Sabirov Evgenii (sabirov.e@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.sabirove.codec.function;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import com.github.sabirove.codec.DecoderStream;
+import com.github.sabirove.codec.EncoderStream;
+import com.github.sabirove.codec.util.SafeInputStream;
+import com.github.sabirove.codec.util.Varint;
+
+/**
+ * {@link CodecFunction} specialized for the primitive {@code long} values allowing to do IO
+ * without boxing the values when used directly or by means of the
+ * {@link EncoderStream#writeLong(long)}/{@link DecoderStream#readLong()} API.
+ * <p>
+ * Standard implementations can be obtained via {@link CodecFunctions} factory.
+ */
+public abstract class LongCodecFunction extends CodecFunction<Long> {
+    static final LongCodecFunction FIXED = new Fixed();
+    static final LongCodecFunction VAR_LENGTH = new VarLength();
+
+    /**
+     * @throws IOException when fails to write to the stream
+     * @implNote shouldn't flush or close the underlying stream
+     */
+    public abstract void writeLong(long value, OutputStream out) throws IOException;
+
+    /**
+     * @throws IOException  when fails to read from the stream
+     * @throws EOFException when trying to read and the end of the input stream reached
+     * @implNote shouldn't close the underlying stream
+     */
+    public abstract long readLong(InputStream in) throws IOException;
+
+    @Override
+    public final void write(Long value, OutputStream out) throws IOException {
+        writeLong(value, out);
+    }
+
+    @Override
+    public final Long read(InputStream in) throws IOException {
+        return readLong(in);
+    }
+
+    private static final class Fixed extends LongCodecFunction {
+        @Override
+        public void writeLong(long value, OutputStream out) throws IOException {
+            for (int offset = Long.SIZE - Byte.SIZE; offset >= 0; offset -= Byte.SIZE) {
+                out.write((int) (value >>> offset));
+            }
+        }
+
+        @Override
+        public long readLong(InputStream in) throws IOException {
+            long value = 0;
+            int b = -1;
+            for (int offset = Long.SIZE - Byte.SIZE; offset >= 0; offset -= Byte.SIZE) {
+                b = in.read();
+                value |= ((long) b & 0xff) << offset;
+            }
+            if (b == -1) {
+                throw new EOFException();
+            }
+            return value;
+        }
+
+        @Override
+        public void skip(InputStream in) throws IOException {
+            SafeInputStream.skipFully(in, 8);
+        }
+
+        @Override
+        public int sizeOf(Long value) {
+            return 8;
+        }
+    }
+
+    private static final class VarLength extends LongCodecFunction {
+        @Override
+        public void writeLong(long value, OutputStream out) {
+            Varint.writeSignedVarLong(value, out);
+        }
+
+        @Override
+        public int sizeOf(Long value) {
+            return Varint.signedVarLongSize(value);
+        }
+
+        @Override
+        public long readLong(InputStream in) {
+            return Varint.readSignedVarLong(in);
+        }
+    }
+}
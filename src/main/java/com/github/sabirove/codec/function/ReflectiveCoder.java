@@ -0,0 +1,419 @@
+/*
+ * Copyright 2020 Sabirov Evgenii (sabirov.e@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.sabirove.codec.function;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.*;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.*;
+import java.util.*;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+
+import com.github.sabirove.codec.util.StateInputStream;
+import com.github.sabirove.codec.util.StateOutputStream;
+
+
+import static com.github.sabirove.codec.util.CodecUtil.checkArgument;
+
+/*
+ * Binary serialization writer/reader pair for the arbitrary class built upon the reflective inspection
+ * of its fields: inspection is done once per class (cached in the ClassValue).
+ *
+ * Wire format: all the non-static, non-transient fields of the class hierarchy (superclass first, sorted by name
+ * within the class); reference values are prefixed with the boolean presence flag so nulls are supported.
+ *
+ * The per-field handles (field accessor combined with the stream method) are folded into a single write and
+ * a single read MethodHandle per class: the JVM customizes the hot handle tree, so the whole chain gets compiled
+ * as one unit with no per-field virtual dispatch. Primitive and String fields call the stream methods directly
+ * with the exact types (no boxing); other fields go through the shared ValueCoder functions, their call sites
+ * see many lambda types (megamorphic), so these fields cost an interface dispatch per value.
+ */
+final class ReflectiveCoder<T> {
+    private static final ClassValue<ReflectiveCoder<?>> CODERS = new ClassValue<ReflectiveCoder<?>>() {
+        @Override
+        protected ReflectiveCoder<?> computeValue(Class<?> type) {
+            return new ReflectiveCoder<>(type);
+        }
+    };
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+    private static final MethodType WRITER_TYPE =
+            MethodType.methodType(void.class, StateOutputStream.class, Object.class);
+    private static final MethodType READER_TYPE =
+            MethodType.methodType(void.class, StateInputStream.class, Object.class);
+    private static final MethodHandle NOOP = ownMethod("noop", MethodType.methodType(void.class));
+    private static final MethodHandle WRITE_STRING = ownMethod("writeString",
+            MethodType.methodType(void.class, StateOutputStream.class, String.class));
+    private static final MethodHandle READ_STRING = ownMethod("readString",
+            MethodType.methodType(String.class, StateInputStream.class));
+    private static final MethodHandle WRITE_VALUE = ownMethod("writeValue",
+            MethodType.methodType(void.class, ValueCoder.class, StateOutputStream.class, Object.class));
+    private static final MethodHandle READ_VALUE = ownMethod("readValue",
+            MethodType.methodType(Object.class, ValueCoder.class, StateInputStream.class));
+    private static final Map<Class<?>, ValueCoder> VALUE_CODERS = new HashMap<>();
+
+    static {
+        register(String.class, StateOutputStream::putString, StateInputStream::getString);
+        register(Boolean.class, StateOutputStream::putBoolean, StateInputStream::getBoolean);
+        register(Byte.class, StateOutputStream::putByte, StateInputStream::getByte);
+        register(Short.class, StateOutputStream::putShort, StateInputStream::getShort);
+        register(Character.class, StateOutputStream::putChar, StateInputStream::getChar);
+        register(Integer.class, StateOutputStream::putSignedVarInt, StateInputStream::getSignedVarInt);
+        register(Long.class, StateOutputStream::putSignedVarLong, StateInputStream::getSignedVarLong);
+        register(Float.class, StateOutputStream::putFloat, StateInputStream::getFloat);
+        register(Double.class, StateOutputStream::putDouble, StateInputStream::getDouble);
+        register(UUID.class, StateOutputStream::putUUID, StateInputStream::getUUID);
+        register(Date.class, StateOutputStream::putDate, StateInputStream::getDate);
+        register(BitSet.class, StateOutputStream::putBitSet, StateInputStream::getBitSet);
+        register(BigInteger.class, StateOutputStream::putBigInteger, StateInputStream::getBigInteger);
+        register(BigDecimal.class, StateOutputStream::putBigDecimal, StateInputStream::getBigDecimal);
+        register(Instant.class, StateOutputStream::putInstant, StateInputStream::getInstant);
+        register(LocalTime.class, StateOutputStream::putLocalTime, StateInputStream::getLocalTime);
+        register(LocalDate.class, StateOutputStream::putLocalDate, StateInputStream::getLocalDate);
+        register(LocalDateTime.class, StateOutputStream::putLocalDateTime, StateInputStream::getLocalDateTime);
+        register(ZonedDateTime.class, StateOutputStream::putZonedDateTime, StateInputStream::getZonedDateTime);
+        register(ZoneOffset.class, StateOutputStream::putZoneOffset, StateInputStream::getZoneOffset);
+        register(boolean[].class, StateOutputStream::putBooleans, StateInputStream::getBooleans);
+        register(byte[].class, StateOutputStream::putBytes, StateInputStream::getBytes);
+        register(short[].class, StateOutputStream::putShorts, StateInputStream::getShorts);
+        register(char[].class, StateOutputStream::putChars, StateInputStream::getChars);
+        register(int[].class, StateOutputStream::putInts, StateInputStream::getInts);
+        register(long[].class, StateOutputStream::putLongs, StateInputStream::getLongs);
+        register(float[].class, StateOutputStream::putFloats, StateInputStream::getFloats);
+        register(double[].class, StateOutputStream::putDoubles, StateInputStream::getDoubles);
+    }
+
+    private final Class<T> type;
+    private final MethodHandle constructor;
+    //(StateOutputStream, Object)void and (StateInputStream, Object)void chains over all the fields
+    private final MethodHandle writer;
+    private final MethodHandle reader;
+
+    private ReflectiveCoder(Class<T> type) {
+        checkArgument(!type.isInterface() && !Modifier.isAbstract(type.getModifiers()) && !type.isArray()
+                        && !type.isPrimitive() && !type.isEnum(),
+                "type should be a concrete class: %s", type);
+        checkArgument(type.getEnclosingClass() == null || Modifier.isStatic(type.getModifiers()),
+                "inner (non-static nested) classes are not supported: %s", type);
+        this.type = type;
+        try {
+            Constructor<T> ctor = type.getDeclaredConstructor();
+            ctor.setAccessible(true);
+            this.constructor = LOOKUP.unreflectConstructor(ctor).asType(MethodType.methodType(Object.class));
+        } catch (NoSuchMethodException e) {
+            throw new IllegalArgumentException("no-arg constructor is required: " + type, e);
+        } catch (IllegalAccessException | RuntimeException e) {
+            throw new IllegalArgumentException("failed to access the constructor: " + type, e);
+        }
+        List<Field> fields = new ArrayList<>();
+        collectFields(type, fields);
+        List<MethodHandle> writers = new ArrayList<>();
+        List<MethodHandle> readers = new ArrayList<>();
+        for (Field field : fields) {
+            addFieldHandles(field, writers, readers);
+        }
+        this.writer = chain(writers, WRITER_TYPE);
+        this.reader = chain(readers, READER_TYPE);
+    }
+
+    @SuppressWarnings("unchecked")
+    static <T> ReflectiveCoder<T> of(Class<T> type) {
+        return (ReflectiveCoder<T>) CODERS.get(type);
+    }
+
+    void write(StateOutputStream out, T value) {
+        checkType(value);
+        try {
+            writer.invokeExact(out, (Object) value);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException("failed to write the field value", e);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    T read(StateInputStream in) {
+        Object value;
+        try {
+            value = (Object) constructor.invokeExact();
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException("failed to instantiate " + type, e);
+        }
+        readFields(in, value);
+        return (T) value;
+    }
+
+    /**
+     * Read the fields into the existing instance (nested objects are read as new instances).
+     */
+    void fill(StateInputStream in, T value) {
+        checkType(value);
+        readFields(in, value);
+    }
+
+    //plain check: the varargs checkArgument would allocate the arguments array per call
+    private void checkType(Object value) {
+        if (value.getClass() != type) {
+            throw new IllegalArgumentException(String.format(
+                    "subtypes are not supported: expected=%s, actual=%s", type, value.getClass()));
+        }
+    }
+
+    private void readFields(StateInputStream in, Object value) {
+        try {
+            reader.invokeExact(in, value);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException("failed to read the field value", e);
+        }
+    }
+
+    private static void collectFields(Class<?> type, List<Field> target) {
+        if (type.getSuperclass() != null && type.getSuperclass() != Object.class) {
+            collectFields(type.getSuperclass(), target);
+        }
+        Field[] declared = type.getDeclaredFields();
+        Arrays.sort(declared, Comparator.comparing(Field::getName));
+        for (Field field : declared) {
+            int modifiers = field.getModifiers();
+            if (!Modifier.isStatic(modifiers) && !Modifier.isTransient(modifiers) && !field.isSynthetic()) {
+                target.add(field);
+            }
+        }
+    }
+
+    /**
+     * Fold the handles into one calling them in order (no-op for no handles).
+     */
+    private static MethodHandle chain(List<MethodHandle> handles, MethodType type) {
+        MethodHandle chain = MethodHandles.dropArguments(NOOP, 0, type.parameterList());
+        for (int i = handles.size() - 1; i >= 0; i--) {
+            chain = MethodHandles.foldArguments(chain, handles.get(i));
+        }
+        return chain;
+    }
+
+    private static void addFieldHandles(Field field, List<MethodHandle> writers, List<MethodHandle> readers) {
+        MethodHandle getter;
+        MethodHandle setter;
+        try {
+            field.setAccessible(true);
+            getter = LOOKUP.unreflectGetter(field);
+            setter = LOOKUP.unreflectSetter(field);
+        } catch (IllegalAccessException | RuntimeException e) {
+            throw new IllegalArgumentException("failed to access the field: " + field, e);
+        }
+        Class<?> fieldType = field.getType();
+        MethodHandle put;
+        MethodHandle get;
+        if (fieldType.isPrimitive() || fieldType == String.class) {
+            //exact types: no boxing
+            put = fieldType == String.class ? WRITE_STRING : streamMethod(StateOutputStream.class, "put", fieldType);
+            get = fieldType == String.class ? READ_STRING : streamMethod(StateInputStream.class, "get", fieldType);
+        } else {
+            ValueCoder coder = nullable(valueCoder(field.getGenericType(), field));
+            put = WRITE_VALUE.bindTo(coder);
+            get = READ_VALUE.bindTo(coder);
+            fieldType = Object.class;
+        }
+        getter = getter.asType(MethodType.methodType(fieldType, Object.class));
+        setter = setter.asType(MethodType.methodType(void.class, Object.class, fieldType));
+        //(out, owner) -> put(out, getter(owner))
+        put = put.asType(MethodType.methodType(void.class, StateOutputStream.class, fieldType));
+        writers.add(MethodHandles.filterArguments(put, 1, getter));
+        //(in, owner) -> setter(owner, get(in))
+        MethodHandle set = MethodHandles.filterArguments(setter, 1, get);
+        readers.add(MethodHandles.permuteArguments(set, READER_TYPE, 1, 0));
+    }
+
+    private static MethodHandle streamMethod(Class<?> stream, String prefix, Class<?> type) {
+        String suffix = type == int.class ? "SignedVarInt"
+                : type == long.class ? "SignedVarLong"
+                : Character.toUpperCase(type.getName().charAt(0)) + type.getName().substring(1);
+        MethodType methodType = stream == StateOutputStream.class
+                ? MethodType.methodType(StateOutputStream.class, type)
+                : MethodType.methodType(type);
+        try {
+            return LOOKUP.findVirtual(stream, prefix + suffix, methodType);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static ValueCoder valueCoder(Type type, Field site) {
+        if (type instanceof Class) {
+            Class<?> cls = (Class<?>) type;
+            ValueCoder coder = VALUE_CODERS.get(cls);
+            if (coder != null) {
+                return coder;
+            }
+            if (cls.isEnum()) {
+                return enumCoder(cls);
+            }
+            if (cls.isArray() && !cls.getComponentType().isPrimitive()) {
+                return arrayCoder(cls.getComponentType(), valueCoder(cls.getComponentType(), site));
+            }
+            checkArgument(!isPlatformType(cls) && !cls.isInterface() && !Modifier.isAbstract(cls.getModifiers()),
+                    "unsupported field type: %s", site);
+            return new ValueCoder((out, v) -> of(cls).writeUnchecked(out, v), in -> of(cls).read(in));
+        }
+        if (type instanceof ParameterizedType) {
+            ParameterizedType parameterized = (ParameterizedType) type;
+            Class<?> raw = (Class<?>) parameterized.getRawType();
+            Type[] args = parameterized.getActualTypeArguments();
+            IntFunction<Collection<Object>> collectionFactory = collectionFactory(raw);
+            if (collectionFactory != null) {
+                return collectionCoder(collectionFactory, nullable(valueCoder(args[0], site)));
+            }
+            IntFunction<Map<Object, Object>> mapFactory = mapFactory(raw);
+            if (mapFactory != null) {
+                return mapCoder(mapFactory, nullable(valueCoder(args[0], site)), nullable(valueCoder(args[1], site)));
+            }
+        }
+        throw new IllegalArgumentException("unsupported field type: " + site);
+    }
+
+    private static boolean isPlatformType(Class<?> cls) {
+        String name = cls.getName();
+        return name.startsWith("java.") || name.startsWith("javax.") || name.startsWith("sun.");
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static ValueCoder enumCoder(Class<?> type) {
+        Class<Enum> enumType = (Class<Enum>) type;
+        return new ValueCoder((out, v) -> out.putEnum((Enum) v), in -> in.getEnum(enumType));
+    }
+
+    private static ValueCoder arrayCoder(Class<?> componentType, ValueCoder component) {
+        ValueCoder element = nullable(component);
+        return new ValueCoder(
+                (out, v) -> out.putArray((Object[]) v, element.writer),
+                in -> in.getArray(size -> (Object[]) Array.newInstance(componentType, size), element.reader));
+    }
+
+    private static ValueCoder collectionCoder(IntFunction<Collection<Object>> factory, ValueCoder element) {
+        return new ValueCoder(
+                (out, v) -> out.putCollection(asCollection(v), element.writer),
+                in -> in.getCollection(factory, element.reader));
+    }
+
+    private static ValueCoder mapCoder(IntFunction<Map<Object, Object>> factory, ValueCoder key, ValueCoder value) {
+        return new ValueCoder(
+                (out, v) -> out.putMap(asMap(v), key.writer, value.writer),
+                in -> in.getMap(factory, key.reader, value.reader));
+    }
+
+    private static IntFunction<Collection<Object>> collectionFactory(Class<?> raw) {
+        if (raw == List.class || raw == Collection.class || raw == ArrayList.class) return ArrayList::new;
+        if (raw == LinkedList.class) return size -> new LinkedList<>();
+        if (raw == Set.class || raw == HashSet.class) return size -> new HashSet<>(hashCapacity(size));
+        if (raw == LinkedHashSet.class) return size -> new LinkedHashSet<>(hashCapacity(size));
+        if (raw == SortedSet.class || raw == NavigableSet.class || raw == TreeSet.class) return size -> new TreeSet<>();
+        return null;
+    }
+
+    private static IntFunction<Map<Object, Object>> mapFactory(Class<?> raw) {
+        if (raw == Map.class || raw == HashMap.class) return size -> new HashMap<>(hashCapacity(size));
+        if (raw == LinkedHashMap.class) return size -> new LinkedHashMap<>(hashCapacity(size));
+        if (raw == SortedMap.class || raw == NavigableMap.class || raw == TreeMap.class) return size -> new TreeMap<>();
+        return null;
+    }
+
+    private static int hashCapacity(int size) {
+        return (int) Math.min(size / 0.75f + 1, Integer.MAX_VALUE);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Collection<Object> asCollection(Object value) {
+        return (Collection<Object>) value;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<Object, Object> asMap(Object value) {
+        return (Map<Object, Object>) value;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void writeUnchecked(StateOutputStream out, Object value) {
+        write(out, (T) value);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <V> void register(Class<V> type,
+                                     BiConsumer<StateOutputStream, V> writer,
+                                     Function<StateInputStream, V> reader) {
+        VALUE_CODERS.put(type, new ValueCoder((out, v) -> writer.accept(out, (V) v), reader::apply));
+    }
+
+    private static ValueCoder nullable(ValueCoder coder) {
+        return new ValueCoder(
+                (out, v) -> {
+                    out.putBoolean(v != null);
+                    if (v != null) {
+                        coder.writer.accept(out, v);
+                    }
+                },
+                in -> in.getBoolean() ? coder.reader.apply(in) : null);
+    }
+
+    private static MethodHandle ownMethod(String name, MethodType methodType) {
+        try {
+            return LOOKUP.findStatic(ReflectiveCoder.class, name, methodType);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void noop() { }
+
+    private static void writeString(StateOutputStream out, String value) {
+        out.putBoolean(value != null);
+        if (value != null) {
+            out.putString(value);
+        }
+    }
+
+    private static String readString(StateInputStream in) {
+        return in.getBoolean() ? in.getString() : null;
+    }
+
+    private static void writeValue(ValueCoder coder, StateOutputStream out, Object value) {
+        coder.writer.accept(out, value);
+    }
+
+    private static Object readValue(ValueCoder coder, StateInputStream in) {
+        return coder.reader.apply(in);
+    }
+
+    private static final class ValueCoder {
+        final BiConsumer<StateOutputStream, Object> writer;
+        final Function<StateInputStream, Object> reader;
+
+        ValueCoder(BiConsumer<StateOutputStream, Object> writer, Function<StateInputStream, Object> reader) {
+            this.writer = writer;
+            this.reader = reader;
+        }
+    }
+}
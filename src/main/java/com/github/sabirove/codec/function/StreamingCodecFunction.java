@@ -0,0 +1,191 @@
+/*
+ * Copyright 2020 Sabirov Evgenii (sabirov.e@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.sabirove.codec.function;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+
+import com.github.sabirove.codec.util.SafeInputStream;
+import com.github.sabirove.codec.util.Varint;
+
+/**
+ * Writes the {@link InputStream} values as a sequence of length-prefixed chunks terminated with the empty chunk,
+ * reads the values back as the lazy views over the source stream.
+ * <p>
+ * The view returned by the previous read is drained (skipped) before reading the next value
+ * and is no longer readable afterwards, so the per-stream instance keeps track of it.
+ */
+final class StreamingCodecFunction extends CodecFunction<InputStream> {
+    private static final int CHUNK_SIZE = 8192;
+
+    private final boolean session;
+    //per-stream state (session only)
+    private ChunkedInputStream current;
+
+    StreamingCodecFunction() {
+        this(false);
+    }
+
+    private StreamingCodecFunction(boolean session) {
+        this.session = session;
+    }
+
+    @Override
+    public void write(InputStream value, OutputStream out) throws IOException {
+        byte[] buf = new byte[CHUNK_SIZE];
+        int read;
+        while ((read = value.read(buf)) != -1) {
+            if (read > 0) {
+                Varint.writeUnsignedVarInt(read, out);
+                out.write(buf, 0, read);
+            }
+        }
+        Varint.writeUnsignedVarInt(0, out);
+    }
+
+    @Override
+    public InputStream read(InputStream in) throws IOException {
+        drainCurrent();
+        ChunkedInputStream view = new ChunkedInputStream(in);
+        view.nextChunk();
+        if (session) {
+            current = view;
+        }
+        return view;
+    }
+
+    @Override
+    public void skip(InputStream in) throws IOException {
+        drainCurrent();
+        new ChunkedInputStream(in).drain();
+    }
+
+    @Override
+    public CodecFunction<InputStream> forStream() {
+        return new StreamingCodecFunction(true);
+    }
+
+    private void drainCurrent() throws IOException {
+        if (current != null) {
+            current.drain();
+            current = null;
+        }
+    }
+
+    private static int readLength(InputStream in) throws IOException {
+        try {
+            return Varint.readUnsignedVarInt(in);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Bounded view over the chunks of a single value.
+     */
+    private static final class ChunkedInputStream extends InputStream {
+        private final InputStream in;
+        private int remaining;
+        private boolean end;
+        private boolean closed;
+
+        ChunkedInputStream(InputStream in) {
+            this.in = in;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (!ensureChunk()) {
+                return -1;
+            }
+            int b = in.read();
+            if (b == -1) {
+                throw new EOFException();
+            }
+            remaining--;
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            if (!ensureChunk()) {
+                return -1;
+            }
+            int read = in.read(b, off, Math.min(len, remaining));
+            if (read == -1) {
+                throw new EOFException();
+            }
+            remaining -= read;
+            return read;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            if (n <= 0 || !ensureChunk()) {
+                return 0;
+            }
+            int skip = (int) Math.min(n, remaining);
+            SafeInputStream.skipFully(in, skip);
+            remaining -= skip;
+            return skip;
+        }
+
+        @Override
+        public int available() throws IOException {
+            return closed || end ? 0 : Math.min(remaining, in.available());
+        }
+
+        /**
+         * Detach the view: the rest of the value is skipped on the next read of the owning function.
+         * Doesn't close the underlying stream.
+         */
+        @Override
+        public void close() {
+            closed = true;
+        }
+
+        void drain() throws IOException {
+            while (!end) {
+                SafeInputStream.skipFully(in, remaining);
+                remaining = 0;
+                nextChunk();
+            }
+            closed = true;
+        }
+
+        void nextChunk() throws IOException {
+            remaining = readLength(in);
+            end = remaining == 0;
+        }
+
+        private boolean ensureChunk() throws IOException {
+            if (closed) {
+                throw new IOException("stream is closed");
+            }
+            if (remaining == 0 && !end) {
+                nextChunk();
+            }
+            return !end;
+        }
+    }
+}
@@ -18,6 +18,10 @@ package com.github.sabirove.codec.function;
 
 import java.io.*;
 import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+import com.github.sabirove.codec.util.Utf8;
+import com.github.sabirove.codec.util.Varint;
 
 final class StringCodecFunction extends CodecFunction<String> {
     private final Charset charset;
@@ -37,4 +41,21 @@ final class StringCodecFunction extends CodecFunction<String> {
         byte[] bytes = CodecFunctions.binary().read(in);
         return bytes.length == 0 ? "" : new String(bytes, charset);
     }
+
+    /**
+     * UTF-8 encoded length is computed without encoding the string; other charsets are not supported.
+     */
+    @Override
+    public int sizeOf(String value) {
+        if (!charset.equals(StandardCharsets.UTF_8)) {
+            return -1;
+        }
+        int len = Utf8.encodedLength(value);
+        return Varint.unsignedVarIntSize(len) + len;
+    }
+
+    @Override
+    public void skip(InputStream in) throws IOException {
+        CodecFunctions.binary().skip(in);
+    }
 }
@@ -0,0 +1,126 @@
+/*
+ * Copyright 2020 Sabirov Evgenii (sabirov.e@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.sabirove.codec.util;
+
+import java.util.*;
+
+
+import static com.github.sabirove.codec.util.CodecUtil.checkArgument;
+import static com.github.sabirove.codec.util.CodecUtil.checkState;
+
+/*
+ * Bounded per-stream table of the previously written values used to encode the repeated values
+ * as back-references. Every value is prefixed with the unsigned varint tag:
+ * - TAG_LITERAL: the literal value follows and is registered in the table
+ * - TAG_RESET_LITERAL: same as above, but the table is reset first
+ * - TAG_REFERENCE_OFFSET + index: reference to the table entry with the given index
+ *
+ * The table is reset when it's full or upon the explicit reset() request.
+ * The read side mirrors the write side table so the entries are indexed the same way.
+ */
+final class BackReferenceTable {
+    static final int TAG_LITERAL = 0;
+    static final int TAG_RESET_LITERAL = 1;
+    static final int TAG_REFERENCE_OFFSET = 2;
+
+    private BackReferenceTable() { }
+
+    static final class Writer {
+        private final Map<Object, Integer> table;
+        private final int maxSize;
+        private boolean resetPending;
+
+        Writer(int maxSize, boolean identity) {
+            checkArgument(maxSize > 0, "maxSize should be positive");
+            this.table = identity ? new IdentityHashMap<>() : new HashMap<>();
+            this.maxSize = maxSize;
+        }
+
+        /**
+         * Get the tag to write for the provided value registering it in the table unless it's already there.
+         */
+        int tag(Object value) {
+            Map<Object, Integer> table = this.table;
+            Integer index = table.get(value);
+            if (index != null) {
+                return index + TAG_REFERENCE_OFFSET;
+            }
+            int tag = TAG_LITERAL;
+            if (resetPending || table.size() == maxSize) {
+                table.clear();
+                resetPending = false;
+                tag = TAG_RESET_LITERAL;
+            }
+            table.put(value, table.size());
+            return tag;
+        }
+
+        void reset() {
+            table.clear();
+            resetPending = true;
+        }
+    }
+
+    static final class Reader<T> {
+        private final List<T> table = new ArrayList<>();
+        private final int maxSize;
+        private int epoch;
+
+        Reader(int maxSize) {
+            checkArgument(maxSize > 0, "maxSize should be positive");
+            this.maxSize = maxSize;
+        }
+
+        static boolean isReference(int tag) {
+            return tag >= TAG_REFERENCE_OFFSET;
+        }
+
+        T get(int tag) {
+            int index = tag - TAG_REFERENCE_OFFSET;
+            checkState(index >= 0 && index < table.size(), "malformed input data: invalid back-reference=%s", index);
+            return table.get(index);
+        }
+
+        /**
+         * Reserve the table slot for the literal value about to be read (nested values written while
+         * writing the literal are registered after it, so the slot should be taken upfront).
+         */
+        int reserve(int tag) {
+            if (tag == TAG_RESET_LITERAL) {
+                table.clear();
+                epoch++;
+            }
+            checkState(table.size() < maxSize, "malformed input data: back-reference table overflow");
+            table.add(null);
+            return table.size() - 1;
+        }
+
+        int epoch() {
+            return epoch;
+        }
+
+        /**
+         * Fill the reserved slot unless the table has been reset in the meantime.
+         */
+        T set(int slot, int epoch, T value) {
+            if (this.epoch == epoch) {
+                table.set(slot, value);
+            }
+            return value;
+        }
+    }
+}
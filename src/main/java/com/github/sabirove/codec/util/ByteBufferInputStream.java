@@ -0,0 +1,126 @@
+/*
+ * Copyright 2020 Sabirov Evgenii (sabirov.e@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.sabirove.codec.util;
+
+import java.io.EOFException;
+import java.io.InputStream;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+
+
+import static com.github.sabirove.codec.util.CodecUtil.checkArgument;
+
+/**
+ * {@link InputStream} reading the remaining bytes of the {@link ByteBuffer} (heap, direct or memory-mapped one)
+ * that allows to take the zero-copy {@link #slice(int) slices} of the underlying data.
+ * <p>
+ * Operates on the duplicate of the provided buffer so that the position of the source buffer is not affected.
+ * <p>
+ * Position/limit are set through the {@link Buffer} type: the covariant {@link ByteBuffer} overloads
+ * (JDK 9+) are missing on the Java 8 runtime.
+ *
+ * @apiNote not thread-safe.
+ */
+public final class ByteBufferInputStream extends InputStream {
+    private final ByteBuffer buffer;
+    private final int start;
+    private int mark;
+
+    public ByteBufferInputStream(ByteBuffer buffer) {
+        this.buffer = buffer.duplicate();
+        this.start = this.buffer.position();
+        this.mark = start;
+    }
+
+    public ByteBufferInputStream(byte[] bytes) {
+        this(ByteBuffer.wrap(bytes));
+    }
+
+    @Override
+    public int read() {
+        return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) {
+        if (off < 0 || len < 0 || len > b.length - off) {
+            throw new IndexOutOfBoundsException(
+                    "illegal range: array=[0, " + b.length + "), range=[" + off + ", " + (off + len) + ")");
+        }
+        if (len == 0) {
+            return 0;
+        }
+        int remaining = buffer.remaining();
+        if (remaining == 0) {
+            return -1;
+        }
+        int read = Math.min(len, remaining);
+        buffer.get(b, off, read);
+        return read;
+    }
+
+    @Override
+    public long skip(long n) {
+        int skipped = (int) Math.max(0, Math.min(n, buffer.remaining()));
+        ((Buffer) buffer).position(buffer.position() + skipped);
+        return skipped;
+    }
+
+    @Override
+    public int available() {
+        return buffer.remaining();
+    }
+
+    @Override
+    public boolean markSupported() {
+        return true;
+    }
+
+    @Override
+    public void mark(int readLimit) {
+        mark = buffer.position();
+    }
+
+    @Override
+    public void reset() {
+        ((Buffer) buffer).position(mark);
+    }
+
+    /**
+     * Get the number of bytes read (or skipped) so far.
+     */
+    public int position() {
+        return buffer.position() - start;
+    }
+
+    /**
+     * Get the read-only view of the next {@code len} bytes referencing the underlying data (no bytes are copied)
+     * and advance past them.
+     *
+     * @throws EOFException when less than {@code len} bytes remain
+     */
+    public ByteBuffer slice(int len) throws EOFException {
+        checkArgument(len >= 0, "len should be >= 0");
+        if (buffer.remaining() < len) {
+            throw new EOFException();
+        }
+        ByteBuffer slice = buffer.slice();
+        ((Buffer) slice).limit(len);
+        ((Buffer) buffer).position(buffer.position() + len);
+        return slice.asReadOnlyBuffer();
+    }
+}
@@ -35,7 +35,9 @@ public final class CodecUtil {
     }
 
     public static void checkArgument(boolean condition, String message, Object... args) {
-        checkArgument(condition, String.format(message, args));
+        if (!condition) {
+            throw new IllegalArgumentException(String.format(message, args));
+        }
     }
 
     public static void checkState(boolean condition, String message) {
@@ -45,7 +47,9 @@ public final class CodecUtil {
     }
 
     public static void checkState(boolean condition, String message, Object... args) {
-        checkState(condition, String.format(message, args));
+        if (!condition) {
+            throw new IllegalStateException(String.format(message, args));
+        }
     }
 
     public static <T> T throwUnchecked(IOException e) {
@@ -55,6 +55,47 @@ public final class SafeInputStream extends FilterInputStream {
         return read;
     }
 
+    /**
+     * Implements skip in the loop until the requested amount of bytes is skipped or EOF is reached
+     * (underlying {@link InputStream#skip(long)} is allowed to skip less for no particular reason).
+     */
+    @Override
+    public long skip(long n) throws IOException {
+        return skipUpTo(in, n);
+    }
+
+    /**
+     * Skip exactly {@code n} bytes of the provided stream.
+     *
+     * @throws EOFException when EOF is reached before {@code n} bytes are skipped
+     */
+    public static void skipFully(InputStream in, long n) throws IOException {
+        if (skipUpTo(in, n) < n) {
+            throw new EOFException();
+        }
+    }
+
+    /**
+     * Skip {@code n} bytes of the provided stream or less if EOF is reached.
+     *
+     * @return actual number of bytes skipped
+     */
+    public static long skipUpTo(InputStream in, long n) throws IOException {
+        long skipped = 0;
+        while (skipped < n) {
+            long next = in.skip(n - skipped);
+            if (next <= 0) {
+                //skip could return 0 without reaching EOF: fall back to read to tell for sure
+                if (in.read() == -1) {
+                    break;
+                }
+                next = 1;
+            }
+            skipped += next;
+        }
+        return skipped;
+    }
+
     /**
      * Wrap the provided {@link InputStream} excluding some {@link InputStream}
      * implementations known to be "safe" as is.
@@ -62,6 +103,7 @@ public final class SafeInputStream extends FilterInputStream {
     public static InputStream wrap(InputStream in) {
         return in instanceof SafeInputStream ||
                 in instanceof ByteArrayInputStream ||
+                in instanceof ByteBufferInputStream ||
                 in instanceof BufferedInputStream
                 ? in : new SafeInputStream(in);
     }
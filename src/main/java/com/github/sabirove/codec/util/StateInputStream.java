@@ -22,14 +22,14 @@ import java.math.BigDecimal;
 import java.math.BigInteger;
 import java.time.*;
 import java.util.*;
+import java.util.function.Consumer;
 import java.util.function.Function;
-import java.util.stream.Stream;
+import java.util.function.IntFunction;
 
 
 import static java.nio.charset.StandardCharsets.UTF_8;
-import static java.util.stream.Collectors.toList;
-import static java.util.stream.Collectors.toMap;
 import static com.github.sabirove.codec.util.CodecUtil.checkArgument;
+import static com.github.sabirove.codec.util.CodecUtil.checkState;
 import static com.github.sabirove.codec.util.CodecUtil.throwUnchecked;
 
 /**
@@ -47,14 +47,51 @@ import static com.github.sabirove.codec.util.CodecUtil.throwUnchecked;
  * <li>all {@code getXXX} methods will throw {@link EOFException} wrapped in {@link UncheckedIOException}
  * when the end of stream reached while reading. Use {@link #isEOF()} if the explicit check is required.</li>
  * <li>no nulls will ever be read</li>
+ * <li>bit-granular values read with {@link #getBits(int)} should be terminated with {@link #alignBits()}
+ * before resuming any byte-aligned reads</li>
+ * <li>{@code skipXXX} methods advance past the encoded values without materializing them (e.g. to implement
+ * projection-style readers that only read the fields of interest): the value should be skipped with the method
+ * complementary to the one used to write it</li>
+ * <li>values written in the string dictionary or shared values modes should be read by the stream configured with
+ * the same {@link #withStringDictionary(int)}/{@link #withSharedValues(int)} settings: the values read by
+ * back-references are the same instances as the ones read initially</li>
  * </ul>
  * @see StateOutputStream
  */
 public final class StateInputStream extends FilterInputStream {
+    private int bitBuffer;
+    private int bitCount;
+    private BackReferenceTable.Reader<String> stringDictionary;
+    private BackReferenceTable.Reader<Object> sharedValues;
+
     public StateInputStream(InputStream in) {
         super(in);
     }
 
+    /**
+     * Enable the string dictionary mode for this stream.
+     *
+     * @param maxSize maximum number of table entries: should match the value used for writing
+     * @see StateOutputStream#withStringDictionary(int)
+     */
+    public StateInputStream withStringDictionary(int maxSize) {
+        checkState(stringDictionary == null, "string dictionary is already enabled");
+        stringDictionary = new BackReferenceTable.Reader<>(maxSize);
+        return this;
+    }
+
+    /**
+     * Enable the shared values mode for this stream.
+     *
+     * @param maxSize maximum number of table entries: should match the value used for writing
+     * @see StateOutputStream#withSharedValues(int, boolean)
+     */
+    public StateInputStream withSharedValues(int maxSize) {
+        checkState(sharedValues == null, "shared values are already enabled");
+        sharedValues = new BackReferenceTable.Reader<>(maxSize);
+        return this;
+    }
+
     public boolean isEOF() {
         try {
             return in.read() == -1;
@@ -126,10 +163,10 @@ public final class StateInputStream extends FilterInputStream {
     }
 
     /**
-     * @see Varint#readUnsignedVarInt(InputStream)
+     * @see Varint#readSignedVarInt(InputStream)
      */
     public int getSignedVarInt() {
-        return Varint.readUnsignedVarInt(in);
+        return Varint.readSignedVarInt(in);
     }
 
     public long getLong() {
@@ -203,6 +240,34 @@ public final class StateInputStream extends FilterInputStream {
         return values;
     }
 
+    /**
+     * @see StateOutputStream#putPackedBooleans(boolean[])
+     */
+    public boolean[] getPackedBooleans() {
+        alignBits();
+        int size = Varint.readUnsignedVarInt(in);
+        boolean[] values = new boolean[size];
+        for (int i = 0; i < size; i++) {
+            values[i] = getBit();
+        }
+        alignBits();
+        return values;
+    }
+
+    /**
+     * @see StateOutputStream#putBitSet(BitSet)
+     */
+    public BitSet getBitSet() {
+        alignBits();
+        int length = Varint.readUnsignedVarInt(in);
+        long[] words = new long[(length + Long.SIZE - 1) / Long.SIZE];
+        for (int i = 0; i < words.length; i++) {
+            words[i] = getBits(Math.min(Long.SIZE, length - i * Long.SIZE));
+        }
+        alignBits();
+        return BitSet.valueOf(words);
+    }
+
     public short[] getShorts() {
         int size = Varint.readUnsignedVarInt(in);
         short[] values = new short[size];
@@ -258,7 +323,16 @@ public final class StateInputStream extends FilterInputStream {
     }
 
     public String getString() {
-        return new String(getBytes(), UTF_8);
+        BackReferenceTable.Reader<String> dictionary = stringDictionary;
+        if (dictionary == null) {
+            return new String(getBytes(), UTF_8);
+        }
+        int tag = Varint.readUnsignedVarInt(in);
+        if (BackReferenceTable.Reader.isReference(tag)) {
+            return dictionary.get(tag);
+        }
+        int slot = dictionary.reserve(tag);
+        return dictionary.set(slot, dictionary.epoch(), new String(getBytes(), UTF_8));
     }
 
     public <T extends Enum<T>> T getEnum(Class<T> type) {
@@ -309,25 +383,349 @@ public final class StateInputStream extends FilterInputStream {
     }
 
     public <T> Collection<T> getCollection(Function<StateInputStream, T> elementReader) {
-        return Stream.generate(() -> elementReader.apply(this))
-                .limit(Varint.readUnsignedVarInt(in))
-                .collect(toList());
+        return getCollection(ArrayList::new, elementReader);
+    }
+
+    /**
+     * Read the collection into the container obtained from the provided {@code factory}.
+     *
+     * @param factory       collection factory accepting the number of elements to be read
+     * @param elementReader function to read the single element
+     */
+    public <T, C extends Collection<T>> C getCollection(IntFunction<C> factory,
+                                                        Function<StateInputStream, T> elementReader) {
+        int size = Varint.readUnsignedVarInt(in);
+        C collection = factory.apply(size);
+        for (int i = 0; i < size; i++) {
+            collection.add(elementReader.apply(this));
+        }
+        return collection;
     }
 
     @SuppressWarnings("unchecked")
     public <T> T[] getArray(Class<T> elementType, Function<StateInputStream, T> elementReader) {
-        return Stream.generate(() -> elementReader.apply(this))
-                .limit(Varint.readUnsignedVarInt(in))
-                .toArray(s -> (T[]) Array.newInstance(elementType, s));
+        return getArray(size -> (T[]) Array.newInstance(elementType, size), elementReader);
+    }
+
+    /**
+     * Read the array into the instance obtained from the provided {@code factory}.
+     *
+     * @param factory       array factory accepting the number of elements to be read
+     * @param elementReader function to read the single element
+     */
+    public <T> T[] getArray(IntFunction<T[]> factory, Function<StateInputStream, T> elementReader) {
+        int size = Varint.readUnsignedVarInt(in);
+        T[] array = factory.apply(size);
+        for (int i = 0; i < size; i++) {
+            array[i] = elementReader.apply(this);
+        }
+        return array;
     }
 
     public <K, V> Map<K, V> getMap(Function<StateInputStream, K> keyReader,
                                    Function<StateInputStream, V> valueReader) {
-        return Stream.generate(() -> null)
-                .limit(Varint.readUnsignedVarInt(in))
-                .collect(toMap(
-                        none -> keyReader.apply(this),
-                        none -> valueReader.apply(this)));
+        return getMap(size -> new HashMap<>(hashMapCapacity(size)), keyReader, valueReader);
+    }
+
+    /**
+     * Read the map into the container obtained from the provided {@code factory}.
+     *
+     * @param factory     map factory accepting the number of entries to be read
+     * @param keyReader   function to read the single key
+     * @param valueReader function to read the single value
+     */
+    public <K, V, M extends Map<K, V>> M getMap(IntFunction<M> factory,
+                                                Function<StateInputStream, K> keyReader,
+                                                Function<StateInputStream, V> valueReader) {
+        int size = Varint.readUnsignedVarInt(in);
+        M map = factory.apply(size);
+        for (int i = 0; i < size; i++) {
+            K key = keyReader.apply(this);
+            map.put(key, valueReader.apply(this));
+        }
+        return map;
+    }
+
+    /**
+     * Read the value written with {@link StateOutputStream#putShared(Object, java.util.function.BiConsumer)}:
+     * repeated values are read by back-references resolving to the same instance as the one read initially.
+     *
+     * @param reader function to read the value when it's read for the first time
+     * @apiNote requires shared values mode to be enabled with {@link #withSharedValues(int)}.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T getShared(Function<StateInputStream, T> reader) {
+        BackReferenceTable.Reader<Object> table = sharedValues;
+        checkState(table != null, "shared values mode is not enabled");
+        int tag = Varint.readUnsignedVarInt(in);
+        if (BackReferenceTable.Reader.isReference(tag)) {
+            return (T) table.get(tag);
+        }
+        int slot = table.reserve(tag);
+        int epoch = table.epoch();
+        return (T) table.set(slot, epoch, reader.apply(this));
+    }
+
+    /**
+     * Read the single bit.
+     *
+     * @see #getBits(int)
+     */
+    public boolean getBit() {
+        return getBits(1) == 1;
+    }
+
+    /**
+     * Read the {@code width} bits written with {@link StateOutputStream#putBits(long, int)}.
+     *
+     * @param width number of bits to read: [1, 64]
+     * @return value holding the read bits in its lowest {@code width} bits (higher bits are zero)
+     */
+    public long getBits(int width) {
+        checkArgument(width > 0 && width <= Long.SIZE, "width should be in range [1, 64]");
+        try {
+            InputStream in = this.in;
+            int buffer = bitBuffer;
+            int count = bitCount;
+            long value = 0;
+            int shift = 0;
+            while (shift < width) {
+                if (count == 0) {
+                    buffer = in.read();
+                    if (buffer == -1) {
+                        throw new EOFException();
+                    }
+                    count = Byte.SIZE;
+                }
+                int take = Math.min(count, width - shift);
+                value |= ((long) (buffer & ((1 << take) - 1))) << shift;
+                buffer >>>= take;
+                count -= take;
+                shift += take;
+            }
+            bitBuffer = buffer;
+            bitCount = count;
+            return value;
+        } catch (IOException e) {
+            return throwUnchecked(e);
+        }
+    }
+
+    /**
+     * Discard the remaining bits of the partially read byte (if any)
+     * so that the stream is aligned to the byte boundary.
+     *
+     * @see StateOutputStream#alignBits()
+     */
+    public StateInputStream alignBits() {
+        bitBuffer = 0;
+        bitCount = 0;
+        return this;
+    }
+
+    public StateInputStream skipByte() {
+        return skipFully(Byte.BYTES);
+    }
+
+    public StateInputStream skipBoolean() {
+        return skipFully(1);
+    }
+
+    public StateInputStream skipShort() {
+        return skipFully(Short.BYTES);
+    }
+
+    public StateInputStream skipChar() {
+        return skipFully(Character.BYTES);
+    }
+
+    public StateInputStream skipInt() {
+        return skipFully(Integer.BYTES);
+    }
+
+    public StateInputStream skipLong() {
+        return skipFully(Long.BYTES);
+    }
+
+    public StateInputStream skipFloat() {
+        return skipFully(Float.BYTES);
+    }
+
+    public StateInputStream skipDouble() {
+        return skipFully(Double.BYTES);
+    }
+
+    /**
+     * Skip the LEB128 variable-length encoded value of any kind (signed/unsigned {@code int}/{@code long}).
+     */
+    public StateInputStream skipVarint() {
+        try {
+            InputStream in = this.in;
+            int b;
+            do {
+                b = in.read();
+                if (b == -1) {
+                    throw new EOFException();
+                }
+            } while ((b & 0x80) != 0);
+            return this;
+        } catch (IOException e) {
+            return throwUnchecked(e);
+        }
+    }
+
+    public StateInputStream skipBytes() {
+        return skipFully(Varint.readUnsignedVarInt(in));
+    }
+
+    public StateInputStream skipBooleans() {
+        return skipFully(Varint.readUnsignedVarInt(in));
+    }
+
+    /**
+     * @see StateOutputStream#putPackedBooleans(boolean[])
+     */
+    public StateInputStream skipPackedBooleans() {
+        return skipBitsAligned(Varint.readUnsignedVarInt(in));
+    }
+
+    /**
+     * @see StateOutputStream#putBitSet(BitSet)
+     */
+    public StateInputStream skipBitSet() {
+        return skipBitsAligned(Varint.readUnsignedVarInt(in));
+    }
+
+    public StateInputStream skipShorts() {
+        return skipFully((long) Varint.readUnsignedVarInt(in) * Short.BYTES);
+    }
+
+    public StateInputStream skipChars() {
+        return skipFully((long) Varint.readUnsignedVarInt(in) * Character.BYTES);
+    }
+
+    public StateInputStream skipInts() {
+        return skipFully((long) Varint.readUnsignedVarInt(in) * Integer.BYTES);
+    }
+
+    public StateInputStream skipLongs() {
+        return skipFully((long) Varint.readUnsignedVarInt(in) * Long.BYTES);
+    }
+
+    public StateInputStream skipFloats() {
+        return skipFully((long) Varint.readUnsignedVarInt(in) * Float.BYTES);
+    }
+
+    public StateInputStream skipDoubles() {
+        return skipFully((long) Varint.readUnsignedVarInt(in) * Double.BYTES);
+    }
+
+    /**
+     * @apiNote in the string dictionary mode the string literals (unlike the back-references) are still
+     * materialized to keep the dictionary in sync with the writer.
+     */
+    public StateInputStream skipString() {
+        if (stringDictionary == null) {
+            return skipBytes();
+        }
+        getString();
+        return this;
+    }
+
+    public StateInputStream skipEnum() {
+        return skipVarint();
+    }
+
+    public StateInputStream skipUUID() {
+        return skipFully(2 * Long.BYTES);
+    }
+
+    public StateInputStream skipLocalTime() {
+        return skipLong();
+    }
+
+    public StateInputStream skipLocalDate() {
+        return skipLong();
+    }
+
+    public StateInputStream skipLocalDateTime() {
+        return skipFully(2 * Long.BYTES);
+    }
+
+    public StateInputStream skipZonedDateTime() {
+        return skipFully(2 * Long.BYTES + Integer.BYTES);
+    }
+
+    public StateInputStream skipZoneOffset() {
+        return skipInt();
+    }
+
+    public StateInputStream skipInstant() {
+        return skipFully(Long.BYTES + Integer.BYTES);
+    }
+
+    public StateInputStream skipDate() {
+        return skipLong();
+    }
+
+    public StateInputStream skipBigInteger() {
+        return skipBytes();
+    }
+
+    public StateInputStream skipBigDecimal() {
+        return skipBytes().skipInt();
+    }
+
+    /**
+     * @param elementSkipper function to skip the single element
+     */
+    public StateInputStream skipCollection(Consumer<StateInputStream> elementSkipper) {
+        int size = Varint.readUnsignedVarInt(in);
+        for (int i = 0; i < size; i++) {
+            elementSkipper.accept(this);
+        }
+        return this;
+    }
+
+    /**
+     * @param elementSkipper function to skip the single element
+     */
+    public StateInputStream skipArray(Consumer<StateInputStream> elementSkipper) {
+        return skipCollection(elementSkipper);
+    }
+
+    /**
+     * @param keySkipper   function to skip the single key
+     * @param valueSkipper function to skip the single value
+     */
+    public StateInputStream skipMap(Consumer<StateInputStream> keySkipper, Consumer<StateInputStream> valueSkipper) {
+        int size = Varint.readUnsignedVarInt(in);
+        for (int i = 0; i < size; i++) {
+            keySkipper.accept(this);
+            valueSkipper.accept(this);
+        }
+        return this;
+    }
+
+    private StateInputStream skipBitsAligned(int bits) {
+        alignBits();
+        return skipFully((bits + Byte.SIZE - 1L) / Byte.SIZE);
+    }
+
+    private StateInputStream skipFully(long n) {
+        try {
+            SafeInputStream.skipFully(in, n);
+            return this;
+        } catch (IOException e) {
+            return throwUnchecked(e);
+        }
+    }
+
+    /**
+     * {@link HashMap} initial capacity to hold the given number of entries without rehashing.
+     */
+    private static int hashMapCapacity(int size) {
+        return size < 3 ? size + 1 : (int) (size / 0.75f + 1.0f);
     }
 
     @Override
@@ -24,7 +24,8 @@ import java.util.*;
 import java.util.function.BiConsumer;
 
 
-import static java.nio.charset.StandardCharsets.UTF_8;
+import static com.github.sabirove.codec.util.CodecUtil.checkArgument;
+import static com.github.sabirove.codec.util.CodecUtil.checkState;
 import static com.github.sabirove.codec.util.CodecUtil.throwUnchecked;
 
 /**
@@ -40,15 +41,106 @@ import static com.github.sabirove.codec.util.CodecUtil.throwUnchecked;
  * <li>supports writing the LEB128 variable-length encoded signed/unsigned {@code int} and {@code long} values</li>
  * <li>underlying IOExceptions are rethrown as {@link UncheckedIOException} to keep the API clean</li>
  * <li>no nulls are allowed to be written</li>
+ * <li>bit-granular values written with {@link #putBits(long, int)} are packed together and should be terminated
+ * with {@link #alignBits()} before resuming any byte-aligned writes ({@link #flush()} and {@link #close()}
+ * align implicitly)</li>
+ * <li>opt-in string dictionary ({@link #withStringDictionary(int)}) and shared values
+ * ({@link #withSharedValues(int, boolean)}) modes allow to write the repeated values as compact back-references
+ * to the previously written ones</li>
  * </ul>
  * @see StateInputStream
  */
 public final class StateOutputStream extends FilterOutputStream {
+    private int bitBuffer;
+    private int bitCount;
+    private BackReferenceTable.Writer stringDictionary;
+    private BackReferenceTable.Writer sharedValues;
+    private boolean resetOnFlush;
 
     public StateOutputStream(OutputStream out) {
         super(out);
     }
 
+    /**
+     * Create the stream in the size-counting mode: written data is discarded and only the number of bytes
+     * is counted, so that the exact encoded size of a value can be computed by running its writer against
+     * this stream without buffering the actual bytes.
+     *
+     * @see #size()
+     */
+    public static StateOutputStream counting() {
+        return new StateOutputStream(new CountingSink());
+    }
+
+    /**
+     * Get the number of bytes written to this stream so far (pending bits are accounted once aligned).
+     *
+     * @throws IllegalStateException when the stream is not in the size-counting mode
+     * @see #counting()
+     */
+    public long size() {
+        checkState(out instanceof CountingSink, "stream is not in the size-counting mode");
+        return ((CountingSink) out).count;
+    }
+
+    /**
+     * Enable the string dictionary mode for this stream: every distinct string written with
+     * {@link #putString(CharSequence)} is added to the per-stream table of bounded size so that the subsequent writes
+     * of the equal strings are encoded as a varint reference to the table entry instead of the full literal.
+     * The table is reset once its size limit is reached.
+     *
+     * @param maxSize maximum number of table entries
+     * @apiNote the complementary {@link StateInputStream} should be configured with the same {@code maxSize}
+     * by calling {@link StateInputStream#withStringDictionary(int)}; should be invoked before any string is written.
+     */
+    public StateOutputStream withStringDictionary(int maxSize) {
+        checkState(stringDictionary == null, "string dictionary is already enabled");
+        stringDictionary = new BackReferenceTable.Writer(maxSize, false);
+        return this;
+    }
+
+    /**
+     * Enable the shared values mode for this stream: every distinct value written with
+     * {@link #putShared(Object, BiConsumer)} is added to the per-stream table of bounded size so that the subsequent
+     * writes of the same values are encoded as a varint reference to the table entry instead of the full value.
+     * The table is reset once its size limit is reached.
+     *
+     * @param maxSize  maximum number of table entries
+     * @param identity whether to match the values by identity ({@code ==}) rather than by equality
+     * @apiNote the complementary {@link StateInputStream} should be configured with the same {@code maxSize}
+     * by calling {@link StateInputStream#withSharedValues(int)}; should be invoked before any value is written.
+     */
+    public StateOutputStream withSharedValues(int maxSize, boolean identity) {
+        checkState(sharedValues == null, "shared values are already enabled");
+        sharedValues = new BackReferenceTable.Writer(maxSize, identity);
+        return this;
+    }
+
+    /**
+     * Reset the back-reference tables (string dictionary and shared values) on every {@link #flush()}
+     * bounding the retained memory to the values written in between the flushes.
+     *
+     * @see #resetReferences()
+     */
+    public StateOutputStream withResetOnFlush() {
+        resetOnFlush = true;
+        return this;
+    }
+
+    /**
+     * Reset the back-reference tables (string dictionary and shared values) so that no values written so far
+     * are referenced anymore. The reset is communicated to the reading side with the next written literal.
+     */
+    public StateOutputStream resetReferences() {
+        if (stringDictionary != null) {
+            stringDictionary.reset();
+        }
+        if (sharedValues != null) {
+            sharedValues.reset();
+        }
+        return this;
+    }
+
     public StateOutputStream putByte(byte value) {
         try {
             out.write(value);
@@ -136,6 +228,40 @@ public final class StateOutputStream extends FilterOutputStream {
         }
     }
 
+    /**
+     * Write the {@code boolean} array packing the values as single bits (8 values per byte).
+     *
+     * The bits pending from {@link #putBits(long, int)} (if any) are aligned first.
+     *
+     * @apiNote complementary read is {@link StateInputStream#getPackedBooleans()}.
+     */
+    public StateOutputStream putPackedBooleans(boolean[] values) {
+        alignBits();
+        Varint.writeUnsignedVarInt(values.length, out);
+        for (boolean value : values) {
+            putBit(value);
+        }
+        return alignBits();
+    }
+
+    /**
+     * Write the {@link BitSet} packing the bits up to its {@link BitSet#length()}.
+     *
+     * The bits pending from {@link #putBits(long, int)} (if any) are aligned first.
+     *
+     * @apiNote complementary read is {@link StateInputStream#getBitSet()}.
+     */
+    public StateOutputStream putBitSet(BitSet value) {
+        alignBits();
+        int length = value.length();
+        Varint.writeUnsignedVarInt(length, out);
+        long[] words = value.toLongArray();
+        for (int i = 0; i < words.length; i++) {
+            putBits(words[i], Math.min(Long.SIZE, length - i * Long.SIZE));
+        }
+        return alignBits();
+    }
+
     public StateOutputStream putShorts(short[] values) {
         Varint.writeUnsignedVarInt(values.length, out);
         for (short value : values) {
@@ -184,9 +310,33 @@ public final class StateOutputStream extends FilterOutputStream {
         return this;
     }
 
+    /**
+     * Write the UTF-8 encoded {@code value} prefixed with its encoded length
+     * (same as {@link #putString(CharSequence)}: kept for the binary compatibility).
+     */
     public StateOutputStream putString(String value) {
-        byte[] bytes = value.getBytes(UTF_8);
-        return putBytes(bytes);
+        return putString((CharSequence) value);
+    }
+
+    /**
+     * Write the UTF-8 encoded {@code value} prefixed with its encoded length
+     * (the value is encoded in chunks without the intermediate copy of the whole value).
+     *
+     * @see Utf8
+     */
+    public StateOutputStream putString(CharSequence value) {
+        BackReferenceTable.Writer dictionary = stringDictionary;
+        if (dictionary == null) {
+            writeString(value);
+            return this;
+        }
+        String key = value.toString();
+        int tag = dictionary.tag(key);
+        Varint.writeUnsignedVarInt(tag, out);
+        if (tag < BackReferenceTable.TAG_REFERENCE_OFFSET) {
+            writeString(key);
+        }
+        return this;
     }
 
     public <T extends Enum<T>> StateOutputStream putEnum(T value) {
@@ -258,6 +408,24 @@ public final class StateOutputStream extends FilterOutputStream {
         return this;
     }
 
+    /**
+     * Write the value with the provided {@code writer} unless the same value has already been written with
+     * this method in which case only a back-reference to it is written.
+     *
+     * @apiNote requires shared values mode to be enabled with {@link #withSharedValues(int, boolean)};
+     * complementary read is {@link StateInputStream#getShared(java.util.function.Function)}.
+     */
+    public <T> StateOutputStream putShared(T value, BiConsumer<StateOutputStream, T> writer) {
+        BackReferenceTable.Writer table = sharedValues;
+        checkState(table != null, "shared values mode is not enabled");
+        int tag = table.tag(value);
+        Varint.writeUnsignedVarInt(tag, out);
+        if (tag < BackReferenceTable.TAG_REFERENCE_OFFSET) {
+            writer.accept(this, value);
+        }
+        return this;
+    }
+
     public <K, V> StateOutputStream putMap(Map<K, V> map,
                                            BiConsumer<StateOutputStream, K> keyWriter,
                                            BiConsumer<StateOutputStream, V> valueWriter) {
@@ -269,6 +437,70 @@ public final class StateOutputStream extends FilterOutputStream {
         return this;
     }
 
+    /**
+     * Write the single bit.
+     *
+     * @see #putBits(long, int)
+     */
+    public StateOutputStream putBit(boolean value) {
+        return putBits(value ? 1 : 0, 1);
+    }
+
+    /**
+     * Write the lowest {@code width} bits of the provided {@code value} (higher bits are ignored).
+     * Consecutive bit writes are packed together starting from the least significant bit of every byte.
+     * Bytes are written out as soon as they are filled up, while the remaining bits stay pending until
+     * either more bits are written or {@link #alignBits()} is called.
+     *
+     * @param width number of bits to write: [1, 64]
+     * @apiNote complementary read is {@link StateInputStream#getBits(int)}.
+     */
+    public StateOutputStream putBits(long value, int width) {
+        checkArgument(width > 0 && width <= Long.SIZE, "width should be in range [1, 64]");
+        try {
+            OutputStream out = this.out;
+            int buffer = bitBuffer;
+            int count = bitCount;
+            while (width > 0) {
+                int take = Math.min(Byte.SIZE - count, width);
+                buffer |= ((int) value & ((1 << take) - 1)) << count;
+                value >>>= take;
+                width -= take;
+                count += take;
+                if (count == Byte.SIZE) {
+                    out.write(buffer);
+                    buffer = 0;
+                    count = 0;
+                }
+            }
+            bitBuffer = buffer;
+            bitCount = count;
+            return this;
+        } catch (IOException e) {
+            return throwUnchecked(e);
+        }
+    }
+
+    /**
+     * Write out pending bits (if any) padding the last byte with zero bits
+     * so that the stream is aligned to the byte boundary.
+     *
+     * @apiNote complementary read is {@link StateInputStream#alignBits()}.
+     */
+    public StateOutputStream alignBits() {
+        if (bitCount > 0) {
+            int buffer = bitBuffer;
+            bitBuffer = 0;
+            bitCount = 0;
+            try {
+                out.write(buffer);
+            } catch (IOException e) {
+                throwUnchecked(e);
+            }
+        }
+        return this;
+    }
+
     @Override
     public void close() {
         try {
@@ -278,8 +510,18 @@ public final class StateOutputStream extends FilterOutputStream {
         }
     }
 
+    /**
+     * Flushes the underlying stream writing out pending bits first, if any.
+     * Resets the back-reference tables when configured with {@link #withResetOnFlush()}.
+     *
+     * @see #alignBits()
+     */
     @Override
     public void flush() {
+        alignBits();
+        if (resetOnFlush) {
+            resetReferences();
+        }
         try {
             super.flush();
         } catch (IOException e) {
@@ -289,6 +531,11 @@ public final class StateOutputStream extends FilterOutputStream {
 
     //UTIL
 
+    private void writeString(CharSequence value) {
+        Varint.writeUnsignedVarInt(Utf8.encodedLength(value), out);
+        Utf8.write(value, out);
+    }
+
     private void writeShort(short value) {
         try {
             out.write((value >>> 8) & 0xFF);
@@ -325,4 +572,18 @@ public final class StateOutputStream extends FilterOutputStream {
             throwUnchecked(e);
         }
     }
+
+    private static final class CountingSink extends OutputStream {
+        long count;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+    }
 }
@@ -0,0 +1,83 @@
+/*
+ * Copyright 2020 Sabirov Evgenii (sabirov.e@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.sabirove.codec.util;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+
+import static com.github.sabirove.codec.util.CodecUtil.checkArgument;
+import static com.github.sabirove.codec.util.CodecUtil.checkNotNull;
+
+/**
+ * Immutable description of the binary record layout written field by field with the {@link StateOutputStream}
+ * (e.g. by the {@code CodecFunctions.binarySerializing(..)} writer) given as the ordered sequence of the field
+ * skippers (see {@link StateInputStream#skipString()} and the likes).
+ * <p>
+ * Used to obtain the lazy {@link StateRecordView}s over the encoded records allowing to decode individual fields
+ * on access without materializing the whole record. A single layout instance is intended to be shared across
+ * all the views of the records of the same type.
+ *
+ * @apiNote records written with the back-reference tables enabled (string dictionary, shared values)
+ * can't be accessed lazily; bit-granular fields should be byte-aligned at the end of the field.
+ */
+public final class StateRecordLayout {
+    final List<Consumer<StateInputStream>> skippers;
+
+    private StateRecordLayout(List<Consumer<StateInputStream>> skippers) {
+        this.skippers = skippers;
+    }
+
+    /**
+     * Build the layout out of the field skippers in the order of the fields being written,
+     * e.g. {@code StateRecordLayout.of(StateInputStream::skipString, s -> s.skipCollection(StateInputStream::skipInt))}.
+     */
+    @SafeVarargs
+    public static StateRecordLayout of(Consumer<StateInputStream>... skippers) {
+        checkArgument(checkNotNull(skippers).length > 0, "at least one field is required");
+        List<Consumer<StateInputStream>> list = new ArrayList<>(skippers.length);
+        for (Consumer<StateInputStream> skipper : skippers) {
+            list.add(checkNotNull(skipper));
+        }
+        return new StateRecordLayout(list);
+    }
+
+    public int fieldCount() {
+        return skippers.size();
+    }
+
+    /**
+     * Get the lazy view over the record held by the provided bytes.
+     *
+     * @apiNote the array is referenced as is (no copy is made).
+     */
+    public StateRecordView view(byte[] record) {
+        return view(ByteBuffer.wrap(record));
+    }
+
+    /**
+     * Get the lazy view over the record held by the remaining bytes of the provided buffer
+     * (its position is not affected).
+     *
+     * @apiNote the buffer data is referenced as is (no copy is made).
+     */
+    public StateRecordView view(ByteBuffer record) {
+        return new StateRecordView(this, record.slice());
+    }
+}
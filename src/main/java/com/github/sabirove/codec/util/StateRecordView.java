@@ -0,0 +1,103 @@
+/*
+ * Copyright 2020 Sabirov Evgenii (sabirov.e@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.sabirove.codec.util;
+
+import java.io.UncheckedIOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Lazy flyweight view over the encoded binary record described by the {@link StateRecordLayout}:
+ * the fields are decoded on access only parsing the bytes required to reach them.
+ * <p>
+ * Field offsets are computed on demand (by skipping the preceding fields starting from the closest known offset)
+ * and cached, so that the repeated accesses of the same or preceding fields don't parse the skipped fields again.
+ *
+ * @apiNote safe to be accessed concurrently: the offsets cache is filled idempotently.
+ */
+public final class StateRecordView {
+    private final StateRecordLayout layout;
+    private final ByteBuffer record;
+    private final int[] offsets;
+    //number of the leading offsets known so far
+    private volatile int resolved = 1;
+
+    StateRecordView(StateRecordLayout layout, ByteBuffer record) {
+        this.layout = layout;
+        this.record = record;
+        this.offsets = new int[layout.fieldCount() + 1];
+    }
+
+    /**
+     * Decode the field of the record with the provided reader, e.g. {@code view.get(2, StateInputStream::getLong)}.
+     *
+     * @param field  field index (in the order of the layout)
+     * @param reader function reading the field value (only the field value should be read)
+     * @throws IndexOutOfBoundsException when there is no such field in the layout
+     * @throws UncheckedIOException      wrapping the {@link java.io.EOFException} when the record is truncated
+     */
+    public <V> V get(int field, Function<StateInputStream, V> reader) {
+        checkIndex(field, layout.fieldCount());
+        return reader.apply(seek(field));
+    }
+
+    /**
+     * Get the offset of the field within the record (the total size of the record for {@code field == fieldCount}).
+     *
+     * @throws IndexOutOfBoundsException when there is no such field in the layout
+     */
+    public int offset(int field) {
+        checkIndex(field, offsets.length);
+        seek(field);
+        return offsets[field];
+    }
+
+    /**
+     * Get the read-only view of the record bytes.
+     */
+    public ByteBuffer bytes() {
+        return record.asReadOnlyBuffer();
+    }
+
+    private StateInputStream seek(int field) {
+        int known = resolved;
+        int from = Math.min(field, known - 1);
+        ByteBuffer buffer = record.duplicate();
+        ((Buffer) buffer).position(offsets[from]); //Java 8 runtime has no covariant ByteBuffer overload
+        ByteBufferInputStream bis = new ByteBufferInputStream(buffer);
+        StateInputStream sis = new StateInputStream(bis);
+        List<Consumer<StateInputStream>> skippers = layout.skippers;
+        for (int i = from; i < field; i++) {
+            skippers.get(i).accept(sis);
+            sis.alignBits();
+            offsets[i + 1] = offsets[from] + bis.position();
+            if (i + 2 > resolved) {
+                resolved = i + 2;
+            }
+        }
+        return sis;
+    }
+
+    private static void checkIndex(int index, int size) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException(String.format("index=%s, size=%s", index, size));
+        }
+    }
+}
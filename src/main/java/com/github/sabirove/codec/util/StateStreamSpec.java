@@ -0,0 +1,119 @@
+/*
+ * Copyright 2020 Sabirov Evgenii (sabirov.e@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.sabirove.codec.util;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+
+
+import static com.github.sabirove.codec.util.CodecUtil.checkArgument;
+
+/**
+ * Immutable specification of the per-stream features (back-reference tables) to enable for a pair of
+ * complementary {@link StateOutputStream}/{@link StateInputStream} instances, so that both are configured
+ * consistently.
+ */
+public final class StateStreamSpec {
+    private static final StateStreamSpec DEFAULT = new StateStreamSpec(0, 0, false, false);
+
+    private final int stringDictionarySize;
+    private final int sharedValuesSize;
+    private final boolean identity;
+    private final boolean resetOnFlush;
+
+    private StateStreamSpec(int stringDictionarySize, int sharedValuesSize, boolean identity, boolean resetOnFlush) {
+        this.stringDictionarySize = stringDictionarySize;
+        this.sharedValuesSize = sharedValuesSize;
+        this.identity = identity;
+        this.resetOnFlush = resetOnFlush;
+    }
+
+    /**
+     * Spec with all the per-stream features disabled.
+     */
+    public static StateStreamSpec ofDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * Get the copy of this spec with the string dictionary of the specified size enabled.
+     *
+     * @see StateOutputStream#withStringDictionary(int)
+     */
+    public StateStreamSpec withStringDictionary(int maxSize) {
+        checkArgument(maxSize > 0, "maxSize should be positive");
+        return new StateStreamSpec(maxSize, sharedValuesSize, identity, resetOnFlush);
+    }
+
+    /**
+     * Get the copy of this spec with the shared values table of the specified size enabled.
+     *
+     * @see StateOutputStream#withSharedValues(int, boolean)
+     */
+    public StateStreamSpec withSharedValues(int maxSize, boolean identity) {
+        checkArgument(maxSize > 0, "maxSize should be positive");
+        return new StateStreamSpec(stringDictionarySize, maxSize, identity, resetOnFlush);
+    }
+
+    /**
+     * Get the copy of this spec with the back-reference tables reset on every flush.
+     *
+     * @see StateOutputStream#withResetOnFlush()
+     */
+    public StateStreamSpec withResetOnFlush() {
+        return new StateStreamSpec(stringDictionarySize, sharedValuesSize, identity, true);
+    }
+
+    /**
+     * Whether this spec enables any per-stream state (so that the stream instances are worth being reused).
+     */
+    public boolean isStateful() {
+        return stringDictionarySize > 0 || sharedValuesSize > 0;
+    }
+
+    public StateOutputStream wrap(OutputStream out) {
+        return configure(new StateOutputStream(out));
+    }
+
+    /**
+     * Get the {@link StateOutputStream#counting() size-counting} stream configured as per this spec.
+     */
+    public StateOutputStream counting() {
+        return configure(StateOutputStream.counting());
+    }
+
+    public StateInputStream wrap(InputStream in) {
+        StateInputStream sis = new StateInputStream(in);
+        if (stringDictionarySize > 0) {
+            sis.withStringDictionary(stringDictionarySize);
+        }
+        if (sharedValuesSize > 0) {
+            sis.withSharedValues(sharedValuesSize);
+        }
+        return sis;
+    }
+
+    private StateOutputStream configure(StateOutputStream sos) {
+        if (stringDictionarySize > 0) {
+            sos.withStringDictionary(stringDictionarySize);
+        }
+        if (sharedValuesSize > 0) {
+            sos.withSharedValues(sharedValuesSize, identity);
+        }
+        return resetOnFlush ? sos.withResetOnFlush() : sos;
+    }
+}
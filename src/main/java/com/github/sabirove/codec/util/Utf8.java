@@ -0,0 +1,117 @@
+/*
+ * Copyright 2020 Sabirov Evgenii (sabirov.e@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.sabirove.codec.util;
+
+import java.io.*;
+
+
+import static com.github.sabirove.codec.util.CodecUtil.throwUnchecked;
+
+/**
+ * UTF-8 encoding utility operating on arbitrary {@link CharSequence}s without the intermediate
+ * {@code byte[]} copy of the whole value (see {@link #write(CharSequence, OutputStream)}).
+ * <p>
+ * Produces exactly the same output as {@code String.getBytes(StandardCharsets.UTF_8)} does,
+ * including the replacement of the malformed (unpaired) surrogate chars with the {@code '?'} byte.
+ */
+public final class Utf8 {
+    private static final byte MALFORMED_REPLACEMENT = '?';
+    private static final int CHUNK_SIZE = 512;
+    private static final ThreadLocal<byte[]> CHUNK = ThreadLocal.withInitial(() -> new byte[CHUNK_SIZE]);
+
+    private Utf8() { }
+
+    /**
+     * Compute the length of the UTF-8 encoded representation of the provided {@code value} in bytes.
+     */
+    public static int encodedLength(CharSequence value) {
+        int len = value.length();
+        int i = 0;
+        while (i < len && value.charAt(i) < 0x80) {
+            i++;
+        }
+        int bytes = i;
+        for (; i < len; i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                bytes += 1;
+            } else if (c < 0x800) {
+                bytes += 2;
+            } else if (!Character.isSurrogate(c)) {
+                bytes += 3;
+            } else if (isSurrogatePair(value, i, len)) {
+                bytes += 4;
+                i++;
+            } else {
+                bytes += 1;
+            }
+        }
+        return bytes;
+    }
+
+    /**
+     * Write the UTF-8 encoded representation of the provided {@code value} to the {@code out} stream.
+     * <p>
+     * The bytes are encoded into the reusable per-thread chunk written out in bulk once full.
+     *
+     * @throws UncheckedIOException wrapping the {@link IOException} when operation fails with {@link IOException}
+     */
+    public static void write(CharSequence value, OutputStream out) {
+        byte[] chunk = CHUNK.get();
+        int limit = chunk.length - 4; //room for the longest (4 bytes) sequence
+        try {
+            int len = value.length();
+            int pos = 0;
+            for (int i = 0; i < len; i++) {
+                if (pos > limit) {
+                    out.write(chunk, 0, pos);
+                    pos = 0;
+                }
+                char c = value.charAt(i);
+                if (c < 0x80) {
+                    chunk[pos++] = (byte) c;
+                } else if (c < 0x800) {
+                    chunk[pos++] = (byte) (0xC0 | (c >> 6));
+                    chunk[pos++] = (byte) (0x80 | (c & 0x3F));
+                } else if (!Character.isSurrogate(c)) {
+                    chunk[pos++] = (byte) (0xE0 | (c >> 12));
+                    chunk[pos++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                    chunk[pos++] = (byte) (0x80 | (c & 0x3F));
+                } else if (isSurrogatePair(value, i, len)) {
+                    int cp = Character.toCodePoint(c, value.charAt(++i));
+                    chunk[pos++] = (byte) (0xF0 | (cp >> 18));
+                    chunk[pos++] = (byte) (0x80 | ((cp >> 12) & 0x3F));
+                    chunk[pos++] = (byte) (0x80 | ((cp >> 6) & 0x3F));
+                    chunk[pos++] = (byte) (0x80 | (cp & 0x3F));
+                } else {
+                    chunk[pos++] = MALFORMED_REPLACEMENT;
+                }
+            }
+            if (pos > 0) {
+                out.write(chunk, 0, pos);
+            }
+        } catch (IOException e) {
+            throwUnchecked(e);
+        }
+    }
+
+    private static boolean isSurrogatePair(CharSequence value, int index, int len) {
+        return Character.isHighSurrogate(value.charAt(index))
+                && index + 1 < len
+                && Character.isLowSurrogate(value.charAt(index + 1));
+    }
+}
@@ -196,4 +196,41 @@ public final class Varint {
         // Must re-flip the top bit if the original read value had it set.
         return temp ^ (raw & (1L << 63));
     }
+
+    /**
+     * Get the number of bytes taken by the LEB128 variable-length encoded unsigned {@code int}.
+     *
+     * @see #writeUnsignedVarInt(int, OutputStream)
+     */
+    public static int unsignedVarIntSize(int value) {
+        return unsignedVarLongSize(value & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Get the number of bytes taken by the "zig-zag" LEB128 variable-length encoded signed {@code int}.
+     *
+     * @see #writeSignedVarInt(int, OutputStream)
+     */
+    public static int signedVarIntSize(int value) {
+        return unsignedVarIntSize((value << 1) ^ (value >> 31));
+    }
+
+    /**
+     * Get the number of bytes taken by the LEB128 variable-length encoded unsigned {@code long}.
+     *
+     * @see #writeUnsignedVarLong(long, OutputStream)
+     */
+    public static int unsignedVarLongSize(long value) {
+        // 7 payload bits per byte, at least one byte
+        return (63 - Long.numberOfLeadingZeros(value | 1)) / 7 + 1;
+    }
+
+    /**
+     * Get the number of bytes taken by the "zig-zag" LEB128 variable-length encoded signed {@code long}.
+     *
+     * @see #writeSignedVarLong(long, OutputStream)
+     */
+    public static int signedVarLongSize(long value) {
+        return unsignedVarLongSize((value << 1) ^ (value >> 63));
+    }
 }
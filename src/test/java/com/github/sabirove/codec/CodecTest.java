@@ -17,17 +17,21 @@
 package com.github.sabirove.codec;
 
 import com.github.sabirove.codec.test_util.CodecAndGen;
+import com.github.sabirove.codec.test_util.FuncAndGen;
 import com.github.sabirove.codec.test_util.RndCodec;
 import com.github.sabirove.codec.test_util.TestUtil;
 import org.junit.jupiter.api.RepeatedTest;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.UncheckedIOException;
 import java.util.List;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import static com.github.sabirove.codec.test_util.Rnd.rndInt;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
 class CodecTest {
 
@@ -56,6 +60,44 @@ class CodecTest {
         }
     }
 
+    @RepeatedTest(1000)
+    <T> void testRandomCodecAssemblySkip() {
+        CodecAndGen<T> codecGen = RndCodec.rndCodec();
+
+        List<T> expected = Stream.generate(codecGen.gen)
+                .limit(rndInt(10))
+                .collect(Collectors.toList());
+
+        Codec<T> codec = codecGen.codec;
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+
+        try (EncoderStream<T> eos = codec.wrap(bos)) {
+            expected.forEach(eos::write);
+        }
+
+        int skip = rndInt(expected.size() + 1);
+        try (DecoderStream<T> dos = codec.wrap(new ByteArrayInputStream(bos.toByteArray()))) {
+            dos.skip(skip);
+            for (T exp : expected.subList(skip, expected.size())) {
+                TestUtil.assertEq(exp, dos.read());
+            }
+            assertThrows(UncheckedIOException.class, () -> dos.skip(1));
+        }
+    }
+
+    @RepeatedTest(1000)
+    <T> void testUnfilteredEncodeMatchesStream() {
+        FuncAndGen<T> funcAndGen = RndCodec.rndCodecFunctionAndGen();
+        T value = funcAndGen.gen.get();
+        Codec<T> codec = CodecBuilder.withFunction(funcAndGen.func).build();
+
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        codec.wrap(bos).writeAndClose(value);
+        byte[] encoded = codec.encode(value);
+        assertArrayEquals(bos.toByteArray(), encoded);
+        TestUtil.assertEq(value, codec.decode(encoded));
+    }
+
     @RepeatedTest(1000)
     <T> void testRandomCodecAssemblySingle() {
         CodecAndGen<T> codecGen = RndCodec.rndCodec();
@@ -0,0 +1,218 @@
+/*
+ * Copyright 2019 Sabirov Evgenii (sabirov.e@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.sabirove.codec.container;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import com.github.sabirove.codec.Codec;
+import com.github.sabirove.codec.CodecBuilder;
+import com.github.sabirove.codec.function.CodecFunctions;
+import com.github.sabirove.codec.test_util.CodecAndGen;
+import com.github.sabirove.codec.test_util.Rnd;
+import com.github.sabirove.codec.test_util.RndCodec;
+import com.github.sabirove.codec.test_util.TestUtil;
+import com.github.sabirove.codec.util.Varint;
+import org.junit.jupiter.api.RepeatedTest;
+import org.junit.jupiter.api.Test;
+
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BlockContainerTest {
+    private static final Codec<String> STRING_CODEC = CodecBuilder
+            .withFunction(CodecFunctions.stringSerializing())
+            .build();
+
+    @RepeatedTest(300)
+    <T> void testSequentialRead() {
+        CodecAndGen<T> codecGen = RndCodec.rndCodec();
+        BlockContainer<T> container = rndContainer(codecGen.codec);
+        List<T> expected = Stream.generate(codecGen.gen).limit(Rnd.rndInt(100)).collect(Collectors.toList());
+        byte[] bytes = write(container, expected);
+
+        int index = 0;
+        try (BlockReader<T> reader = container.reader(new ByteArrayInputStream(bytes))) {
+            while (reader.hasNext()) {
+                if (Rnd.rndInt(5) == 0) {
+                    index += reader.skipBlock();
+                } else {
+                    TestUtil.assertEq(expected.get(index++), reader.read());
+                }
+            }
+            assertEquals(0, reader.skipBlock());
+            assertThrows(NoSuchElementException.class, reader::read);
+        }
+        assertEquals(expected.size(), index);
+    }
+
+    @RepeatedTest(300)
+    <T> void testRandomAccessRead() {
+        CodecAndGen<T> codecGen = RndCodec.rndCodec();
+        BlockContainer<T> container = rndContainer(codecGen.codec);
+        List<T> expected = Stream.generate(codecGen.gen).limit(Rnd.rndInt(100)).collect(Collectors.toList());
+        BlockFile<T> file = container.open(wrapRandomly(write(container, expected)));
+
+        assertEquals(expected.size(), file.recordCount());
+        List<T> actual = file.blocks().parallelStream()
+                .map(file::read)
+                .flatMap(List::stream)
+                .collect(Collectors.toList());
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            TestUtil.assertEq(expected.get(i), actual.get(i));
+        }
+        for (BlockInfo block : file.blocks()) {
+            List<T> records = file.read(block);
+            assertEquals(block.recordCount(), records.size());
+            TestUtil.assertEq(expected.get((int) block.firstRecord()), records.get(0));
+        }
+    }
+
+    @Test
+    void testBlockBoundaries() {
+        BlockContainer<String> container = BlockContainer.of(STRING_CODEC).withMaxBlockRecords(3);
+        List<String> expected = Rnd.rndList(100, () -> Rnd.rndString(10));
+        BlockFile<String> file = container.open(ByteBuffer.wrap(write(container, expected)));
+        assertEquals((expected.size() + 2) / 3, file.blocks().size());
+        file.blocks().forEach(b -> assertTrue(b.recordCount() <= 3));
+
+        BlockContainer<String> bytesBound = BlockContainer.of(STRING_CODEC).withMaxBlockBytes(100);
+        List<String> strings = Stream.generate(() -> "0123456789").limit(100).collect(Collectors.toList());
+        //11 bytes per string: block is completed on the 10th one
+        assertEquals(10, bytesBound.open(ByteBuffer.wrap(write(bytesBound, strings))).blocks().size());
+    }
+
+    @RepeatedTest(100)
+    void testCorruptedBlockIsDetected() {
+        BlockContainer<String> container = BlockContainer.of(STRING_CODEC)
+                .withMaxBlockRecords(Rnd.rndInt(1, 20))
+                .withCompressionLevel(Rnd.rndInt(0, 10));
+        List<String> expected = Stream.generate(() -> Rnd.rndString(50))
+                .limit(Rnd.rndInt(1, 100))
+                .collect(Collectors.toList());
+        byte[] bytes = write(container, expected);
+        List<BlockInfo> blocks = container.open(ByteBuffer.wrap(bytes)).blocks();
+        BlockInfo corrupted = blocks.get(Rnd.rndInt(blocks.size()));
+        //flip the last byte of the compressed data
+        bytes[(int) (corrupted.offset() + corrupted.length() - 1)] ^= (byte) Rnd.rndInt(1, 256);
+
+        BlockFile<String> file = container.open(ByteBuffer.wrap(bytes));
+        assertThrows(UncheckedIOException.class, () -> file.read(corrupted));
+        blocks.stream().filter(b -> b != corrupted).forEach(b -> assertEquals(
+                expected.subList((int) b.firstRecord(), (int) b.firstRecord() + b.recordCount()),
+                file.read(file.blocks().get(blocks.indexOf(b)))));
+
+        List<String> actual = new ArrayList<>();
+        try (BlockReader<String> reader = container.reader(new ByteArrayInputStream(bytes))) {
+            assertThrows(UncheckedIOException.class, () -> {
+                while (reader.hasNext()) {
+                    actual.add(reader.read());
+                }
+            });
+        }
+        assertEquals(expected.subList(0, (int) corrupted.firstRecord()), actual);
+    }
+
+    @RepeatedTest(30)
+    void testCorruptedHeaderLengthIsDetected() throws Exception {
+        BlockContainer<String> container = BlockContainer.of(STRING_CODEC);
+        byte[] bytes = write(container, Stream.generate(() -> Rnd.rndString(50))
+                .limit(Rnd.rndInt(1, 100))
+                .collect(Collectors.toList()));
+        int headerLength = BlockContainer.HEADER_LENGTH;
+        ByteArrayInputStream in = new ByteArrayInputStream(bytes, headerLength, bytes.length - headerLength);
+        int records = Varint.readUnsignedVarInt(in);
+        int rawLength = Varint.readUnsignedVarInt(in);
+        int compressedLength = Varint.readUnsignedVarInt(in);
+        byte[] checksum = new byte[4];
+        in.read(checksum);
+        int statsLength = Varint.readUnsignedVarInt(in);
+        byte[] rest = new byte[in.available()];
+        in.read(rest);
+
+        //huge length should be reported as the corrupted block rather than allocated
+        //(the sequential reader: the footer of the random access one no longer matches the shifted block)
+        int huge = Integer.MAX_VALUE - Rnd.rndInt(0, 100);
+        int field = Rnd.rndInt(0, 3);
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        bos.write(bytes, 0, headerLength);
+        Varint.writeUnsignedVarInt(records, bos);
+        Varint.writeUnsignedVarInt(field == 0 ? huge : rawLength, bos);
+        Varint.writeUnsignedVarInt(field == 1 ? huge : compressedLength, bos);
+        bos.write(checksum);
+        Varint.writeUnsignedVarInt(field == 2 ? huge : statsLength, bos);
+        bos.write(rest);
+        byte[] corrupted = bos.toByteArray();
+
+        try (BlockReader<String> reader = container.reader(new ByteArrayInputStream(corrupted))) {
+            assertThrows(UncheckedIOException.class, () -> {
+                while (reader.hasNext()) {
+                    reader.read();
+                }
+            });
+        }
+    }
+
+    @Test
+    void testInvalidInput() {
+        BlockContainer<String> container = BlockContainer.of(STRING_CODEC);
+        byte[] bytes = write(container, Rnd.rndList(100, () -> Rnd.rndString(10)));
+        bytes[bytes.length - 1] = 0;
+        assertThrows(UncheckedIOException.class, () -> container.open(ByteBuffer.wrap(bytes)));
+        assertThrows(UncheckedIOException.class, () -> container.reader(new ByteArrayInputStream(new byte[10])));
+        assertThrows(IllegalArgumentException.class, () -> container.withCompressionLevel(10));
+        assertThrows(IllegalArgumentException.class, () -> container.withMaxBlockRecords(0));
+
+        BlockFile<String> empty = container.open(ByteBuffer.wrap(write(container, new ArrayList<>())));
+        assertEquals(0, empty.recordCount());
+        assertTrue(empty.blocks().isEmpty());
+    }
+
+    private static <T> BlockContainer<T> rndContainer(Codec<T> codec) {
+        return BlockContainer.of(codec)
+                .withMaxBlockRecords(Rnd.rndInt(1, 30))
+                .withMaxBlockBytes(Rnd.rndInt(1, 10000))
+                .withCompressionLevel(Rnd.rndInt(-1, 10));
+    }
+
+    private static <T> byte[] write(BlockContainer<T> container, List<T> records) {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        try (BlockWriter<T> writer = container.writer(bos)) {
+            records.forEach(writer::write);
+        }
+        return bos.toByteArray();
+    }
+
+    private static ByteBuffer wrapRandomly(byte[] bytes) {
+        int offset = Rnd.rndInt(0, 10);
+        ByteBuffer buffer = Rnd.rndBoolean()
+                ? ByteBuffer.allocate(offset + bytes.length)
+                : ByteBuffer.allocateDirect(offset + bytes.length);
+        buffer.position(offset);
+        buffer.put(bytes);
+        buffer.position(offset);
+        return buffer;
+    }
+}
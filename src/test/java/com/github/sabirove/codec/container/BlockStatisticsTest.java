@@ -0,0 +1,160 @@
+/*
+ * Copyright 2019 Sabirov Evgenii (sabirov.e@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.sabirove.codec.container;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import com.github.sabirove.codec.Codec;
+import com.github.sabirove.codec.CodecBuilder;
+import com.github.sabirove.codec.function.CodecFunctions;
+import com.github.sabirove.codec.test_util.Rnd;
+import com.github.sabirove.codec.util.Varint;
+import org.junit.jupiter.api.RepeatedTest;
+import org.junit.jupiter.api.Test;
+
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BlockStatisticsTest {
+    private static final Codec<Long> LONG_CODEC = CodecBuilder
+            .withFunction(CodecFunctions.longSerializing(true))
+            .build();
+    private static final BlockStatistic<Long, LongRange> RANGE = BlockStatistics.longRange(Long::longValue);
+    private static final BlockStatistic<Long, LongBloomFilter> BLOOM =
+            BlockStatistics.bloomFilter(v -> v * 31, 100, 0.01);
+    private static final BlockContainer<Long> CONTAINER = BlockContainer.of(LONG_CODEC)
+            .withMaxBlockRecords(100)
+            .withStatistics(RANGE, BLOOM);
+
+    @RepeatedTest(100)
+    void testRangePushdown() {
+        //roughly increasing timestamps
+        List<Long> records = LongStream.range(0, Rnd.rndInt(1, 3000))
+                .map(i -> i * 10 + Rnd.rndInt(-50, 50))
+                .boxed()
+                .collect(Collectors.toList());
+        byte[] bytes = write(CONTAINER, records);
+        long from = Rnd.rndInt(-100, 30000);
+        long to = from + Rnd.rndInt(0, 2000);
+        Predicate<BlockStats> filter = stats -> stats.get(RANGE).overlaps(from, to);
+        List<Long> expected = records.stream().filter(v -> v >= from && v <= to).collect(Collectors.toList());
+
+        List<Long> scanned = new ArrayList<>();
+        try (BlockReader<Long> reader = CONTAINER.reader(new ByteArrayInputStream(bytes), filter)) {
+            while (reader.hasNext()) {
+                scanned.add(reader.read());
+            }
+        }
+        assertEquals(expected, scanned.stream().filter(v -> v >= from && v <= to).collect(Collectors.toList()));
+
+        BlockFile<Long> file = CONTAINER.open(ByteBuffer.wrap(bytes));
+        List<BlockInfo> matching = file.blocks(filter);
+        assertEquals(scanned, matching.stream().flatMap(b -> file.read(b).stream()).collect(Collectors.toList()));
+        for (BlockInfo block : file.blocks()) {
+            LongRange range = block.stats().get(RANGE);
+            List<Long> blockRecords = file.read(block);
+            assertEquals(blockRecords.stream().mapToLong(Long::longValue).min().getAsLong(), range.min());
+            assertEquals(blockRecords.stream().mapToLong(Long::longValue).max().getAsLong(), range.max());
+            if (!matching.contains(block)) {
+                blockRecords.forEach(v -> assertFalse(v >= from && v <= to));
+            }
+        }
+    }
+
+    @RepeatedTest(100)
+    void testBloomFilterPushdown() {
+        List<Long> records = Rnd.rnd().longs(Rnd.rndInt(1, 3000)).boxed().collect(Collectors.toList());
+        BlockFile<Long> file = CONTAINER.open(ByteBuffer.wrap(write(CONTAINER, records)));
+
+        //no false negatives
+        for (BlockInfo block : file.blocks()) {
+            LongBloomFilter bloom = block.stats().get(BLOOM);
+            file.read(block).forEach(v -> assertTrue(bloom.mightContain(v * 31)));
+        }
+        long present = Rnd.rndElem(records.toArray(new Long[0]));
+        List<BlockInfo> matching = file.blocks(stats -> stats.get(BLOOM).mightContain(present * 31));
+        assertTrue(matching.stream().anyMatch(b -> file.read(b).contains(present)));
+
+        //false positives: sized for 1% at the block of 100 records
+        long absent = Rnd.rndLong();
+        int falsePositives = 0;
+        for (int i = 0; i < 100; i++) {
+            long key = absent + i;
+            falsePositives += file.blocks(stats -> stats.get(BLOOM).mightContain(key)).size();
+        }
+        assertTrue(falsePositives <= Math.max(10, file.blocks().size() * 100 / 20), "" + falsePositives);
+    }
+
+    @Test
+    void testMissingStatistics() {
+        List<Long> records = Rnd.rnd().longs(100).boxed().collect(Collectors.toList());
+        byte[] bytes = write(BlockContainer.of(LONG_CODEC).withMaxBlockRecords(10), records);
+        BlockFile<Long> file = CONTAINER.open(ByteBuffer.wrap(bytes));
+        assertEquals(10, file.blocks().size());
+        file.blocks().forEach(b -> assertNull(b.stats().get(RANGE)));
+
+        BlockFile<Long> withStats = CONTAINER.open(ByteBuffer.wrap(write(CONTAINER, records)));
+        assertNull(withStats.blocks().get(0).stats().get(BlockStatistics.longRange(v -> 0)));
+    }
+
+    @Test
+    void testCorruptedStatisticsAreDetected() {
+        BlockContainer<Long> container = BlockContainer.of(LONG_CODEC).withStatistics(BLOOM);
+        byte[] bytes = write(container, Rnd.rnd().longs(100).boxed().collect(Collectors.toList()));
+        ByteArrayInputStream in = new ByteArrayInputStream(bytes);
+        in.skip(BlockContainer.HEADER_LENGTH);
+        Varint.readUnsignedVarInt(in); //records
+        Varint.readUnsignedVarInt(in); //raw length
+        Varint.readUnsignedVarInt(in); //compressed length
+        in.skip(4); //checksum
+        Varint.readUnsignedVarInt(in); //stats length
+        Varint.readUnsignedVarInt(in); //bloom filter hashes
+        //huge bloom filter length: the header is parsed before the block checksum is verified
+        int offset = bytes.length - in.available();
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        Varint.writeUnsignedVarInt(Integer.MAX_VALUE, bos);
+        System.arraycopy(bos.toByteArray(), 0, bytes, offset, bos.size());
+
+        try (BlockReader<Long> reader = container.reader(new ByteArrayInputStream(bytes), stats -> true)) {
+            assertThrows(UncheckedIOException.class, reader::hasNext);
+        }
+        assertThrows(UncheckedIOException.class, () -> container.open(ByteBuffer.wrap(bytes)));
+    }
+
+    @Test
+    void testInvalidArguments() {
+        assertThrows(IllegalArgumentException.class, () -> BlockStatistics.bloomFilter(v -> 0, 0, 0.1));
+        assertThrows(IllegalArgumentException.class, () -> BlockStatistics.bloomFilter(v -> 0, 10, 1));
+        assertThrows(IllegalArgumentException.class, () -> CONTAINER.withStatistics(RANGE, null));
+    }
+
+    private static <T> byte[] write(BlockContainer<T> container, List<T> records) {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        try (BlockWriter<T> writer = container.writer(bos)) {
+            records.forEach(writer::write);
+        }
+        return bos.toByteArray();
+    }
+}
@@ -0,0 +1,167 @@
+/*
+ * Copyright 2019 Sabirov Evgenii (sabirov.e@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.sabirove.codec.container;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import com.github.sabirove.codec.Codec;
+import com.github.sabirove.codec.CodecBuilder;
+import com.github.sabirove.codec.function.CodecFunctions;
+import com.github.sabirove.codec.test_util.CodecAndGen;
+import com.github.sabirove.codec.test_util.Rnd;
+import com.github.sabirove.codec.test_util.RndCodec;
+import com.github.sabirove.codec.test_util.TestUtil;
+import org.junit.jupiter.api.RepeatedTest;
+import org.junit.jupiter.api.Test;
+
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RecordContainerTest {
+    private static final Codec<String> STRING_CODEC = CodecBuilder
+            .withFunction(CodecFunctions.stringSerializing())
+            .build();
+
+    @RepeatedTest(300)
+    <T> void testRandomRecords() {
+        CodecAndGen<T> codecGen = RndCodec.rndCodec();
+        RecordContainer<T> container = RecordContainer.of(codecGen.codec).withSyncInterval(Rnd.rndInt(1, 500));
+        List<T> expected = Stream.generate(codecGen.gen).limit(Rnd.rndInt(50)).collect(Collectors.toList());
+        int[] flags = expected.stream().mapToInt(v -> Rnd.rndInt(0, 128)).toArray();
+
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        try (RecordWriter<T> writer = container.writer(bos)) {
+            for (int i = 0; i < expected.size(); i++) {
+                writer.write(expected.get(i), flags[i]);
+            }
+            assertEquals(writer.position(), bos.size());
+        }
+
+        try (RecordReader<T> reader = container.reader(new ByteArrayInputStream(bos.toByteArray()))) {
+            for (int i = 0; i < expected.size(); i++) {
+                assertTrue(reader.hasNext());
+                if (Rnd.rndBoolean()) {
+                    reader.skip();
+                } else {
+                    TestUtil.assertEq(expected.get(i), reader.read());
+                }
+                assertEquals(flags[i], reader.flags());
+            }
+            assertFalse(reader.hasNext());
+            assertEquals(bos.size(), reader.position());
+            assertThrows(NoSuchElementException.class, reader::read);
+        }
+    }
+
+    @RepeatedTest(300)
+    void testSplitsReadEveryRecordOnce() {
+        RecordContainer<String> container = RecordContainer.of(STRING_CODEC).withSyncInterval(Rnd.rndInt(1, 300));
+        List<String> expected = Rnd.rndList(300, () -> Rnd.rndString(50));
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        byte[] syncMarker;
+        try (RecordWriter<String> writer = container.writer(bos)) {
+            expected.forEach(writer::write);
+            syncMarker = writer.syncMarker();
+        }
+        byte[] bytes = bos.toByteArray();
+
+        int[] bounds = Rnd.rnd().ints(Rnd.rndInt(10), 0, bytes.length + 1).sorted().toArray();
+        int[] splits = new int[bounds.length + 2];
+        System.arraycopy(bounds, 0, splits, 1, bounds.length);
+        splits[splits.length - 1] = bytes.length;
+
+        List<String> actual = new ArrayList<>();
+        for (int i = 0; i + 1 < splits.length; i++) {
+            int start = splits[i];
+            int end = splits[i + 1];
+            ByteArrayInputStream in = new ByteArrayInputStream(bytes, start, bytes.length - start);
+            try (RecordReader<String> reader = container.reader(in, syncMarker, start)) {
+                while (reader.hasNext() && reader.lastSyncPosition() < end) {
+                    actual.add(reader.read());
+                }
+            }
+        }
+        assertEquals(expected, actual);
+    }
+
+    @RepeatedTest(300)
+    void testResyncAfterCorruption() {
+        RecordContainer<String> container = RecordContainer.of(STRING_CODEC).withSyncInterval(Rnd.rndInt(1, 300));
+        List<String> expected = Stream.generate(() -> Rnd.rndString(50))
+                .limit(Rnd.rndInt(1, 300))
+                .collect(Collectors.toList());
+        List<Long> positions = new ArrayList<>();
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        try (RecordWriter<String> writer = container.writer(bos)) {
+            expected.forEach(s -> {
+                positions.add(writer.position());
+                writer.write(s);
+            });
+            //make sure there is the sync point past any corrupted frame
+            writer.sync();
+            writer.write("last");
+            expected.add("last");
+        }
+        byte[] bytes = bos.toByteArray();
+        int corrupted = Rnd.rndInt(positions.size());
+        //invalid flags of the frame (sync point might precede the frame)
+        int frameStart = Math.toIntExact(positions.get(corrupted));
+        bytes[bytes[frameStart] == (byte) 0x80 ? frameStart + 17 : frameStart] = (byte) 0xFF;
+
+        List<String> actual = new ArrayList<>();
+        try (RecordReader<String> reader = container.reader(new ByteArrayInputStream(bytes))) {
+            while (true) {
+                try {
+                    if (!reader.hasNext()) {
+                        break;
+                    }
+                    actual.add(reader.read());
+                } catch (UncheckedIOException e) {
+                    assertTrue(reader.sync());
+                }
+            }
+        }
+        assertEquals(expected.subList(0, corrupted), actual.subList(0, corrupted));
+        List<String> rest = actual.subList(corrupted, actual.size());
+        assertEquals(expected.subList(expected.size() - rest.size(), expected.size()), rest);
+        assertEquals("last", rest.get(rest.size() - 1));
+    }
+
+    @Test
+    void testInvalidUsage() {
+        RecordContainer<String> container = RecordContainer.of(STRING_CODEC).withMaxRecordSize(10);
+        RecordWriter<String> writer = container.writer(new ByteArrayOutputStream());
+        assertThrows(IllegalArgumentException.class, () -> writer.write("a", 128));
+        assertThrows(IllegalArgumentException.class, () -> writer.write("a", -1));
+        assertThrows(IllegalArgumentException.class, () -> writer.write("01234567890"));
+        assertThrows(IllegalArgumentException.class, () -> container.withSyncInterval(0));
+        assertThrows(IllegalArgumentException.class,
+                () -> container.reader(new ByteArrayInputStream(new byte[0]), new byte[15], 0));
+
+        byte[] garbage = Arrays.copyOf("not a container".getBytes(), 30);
+        assertThrows(UncheckedIOException.class, () -> container.reader(new ByteArrayInputStream(garbage)));
+        assertFalse(container.reader(new ByteArrayInputStream(garbage), new byte[16], 0).hasNext());
+    }
+}
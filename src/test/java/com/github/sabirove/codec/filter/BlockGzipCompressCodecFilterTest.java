@@ -0,0 +1,124 @@
+/*
+ * Copyright 2019 Sabirov Evgenii (sabirov.e@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.sabirove.codec.filter;
+
+import java.io.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import com.github.sabirove.codec.test_util.Rnd;
+import com.github.sabirove.codec.util.SafeInputStream;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.RepeatedTest;
+import org.junit.jupiter.api.Test;
+
+
+import static org.junit.jupiter.api.Assertions.*;
+
+final class BlockGzipCompressCodecFilterTest extends CompressCodecFilterTestCase {
+    private static final ExecutorService EXECUTOR = Executors.newFixedThreadPool(4);
+
+    @AfterAll
+    static void shutdown() {
+        EXECUTOR.shutdown();
+    }
+
+    @Override
+    protected CodecFilter getFilter() {
+        return CodecFilters.compressWithBlockGzip(Rnd.rndInt(512, 3000), Rnd.rndInt(1, 5), EXECUTOR);
+    }
+
+    @RepeatedTest(50)
+    void testParallelRoundTrip() throws IOException {
+        byte[] input = Rnd.rndBytes(1_000_000);
+        for (int i = 0; i < input.length; i++) {
+            input[i] = (byte) (input[i] % 16); //compress-able
+        }
+        CodecFilter filter = CodecFilters.compressWithBlockGzip(Rnd.rndInt(1, 100_000), Rnd.rndInt(1, 10), EXECUTOR);
+        byte[] compressed = compress(filter, input);
+
+        //standard multi-member GZIP stream
+        assertArrayEquals(input, readFully(new GZIPInputStream(new ByteArrayInputStream(compressed)), input.length));
+        assertArrayEquals(input, readFully(filter.filter(new ByteArrayInputStream(compressed)), input.length));
+    }
+
+    @Test
+    void testStandardGzipFallback() throws IOException {
+        CodecFilter filter = CodecFilters.compressWithBlockGzip(1024, EXECUTOR);
+        byte[] input = Rnd.rndBytes(10_000, 20_000);
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        try (OutputStream os = new GZIPOutputStream(bos)) {
+            os.write(input);
+        }
+        assertArrayEquals(input, readFully(filter.filter(new ByteArrayInputStream(bos.toByteArray())), input.length));
+
+        byte[] empty = compress(filter, new byte[0]);
+        assertEquals(-1, new GZIPInputStream(new ByteArrayInputStream(empty)).read());
+        assertEquals(-1, filter.filter(new ByteArrayInputStream(empty)).read());
+    }
+
+    @RepeatedTest(20)
+    void testCorruptedMemberIsDetected() throws IOException {
+        CodecFilter filter = CodecFilters.compressWithBlockGzip(Rnd.rndInt(100, 1000), EXECUTOR);
+        byte[] input = Rnd.rndBytes(10_000, 20_000);
+        byte[] compressed = compress(filter, input);
+        //flip a byte of the first member's deflate data or trailer (past the 20 bytes header)
+        int memberSize = (compressed[16] & 0xFF) | (compressed[17] & 0xFF) << 8;
+        compressed[Rnd.rndInt(20, memberSize)] ^= (byte) Rnd.rndInt(1, 256);
+
+        assertThrows(IOException.class, () -> readFully(filter.filter(new ByteArrayInputStream(compressed)), 1));
+    }
+
+    @RepeatedTest(20)
+    void testCorruptedSizeIsDetected() throws IOException {
+        CodecFilter filter = CodecFilters.compressWithBlockGzip(Rnd.rndInt(100, 1000), EXECUTOR);
+        byte[] compressed = compress(filter, Rnd.rndBytes(10_000, 20_000));
+        int memberSize = (compressed[16] & 0xFF) | (compressed[17] & 0xFF) << 8;
+        //huge member size (header extra field) or uncompressed size (ISIZE trailer) is not allocated
+        int huge = Integer.MAX_VALUE - Rnd.rndInt(0, 100);
+        int off = Rnd.rndBoolean() ? 16 : memberSize - 4;
+        for (int i = 0; i < 4; i++) {
+            compressed[off + i] = (byte) (huge >>> (8 * i));
+        }
+
+        assertThrows(IOException.class, () -> readFully(filter.filter(new ByteArrayInputStream(compressed)), 1));
+    }
+
+    private static byte[] compress(CodecFilter filter, byte[] input) throws IOException {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        try (OutputStream os = filter.filter(bos)) {
+            int off = 0;
+            while (off < input.length) {
+                int len = Math.min(input.length - off, Rnd.rndInt(1, 50_000));
+                os.write(input, off, len);
+                off += len;
+            }
+        }
+        return bos.toByteArray();
+    }
+
+    private static byte[] readFully(InputStream in, int length) throws IOException {
+        try (InputStream safe = new SafeInputStream(in)) {
+            byte[] bytes = new byte[length];
+            assertEquals(length, Math.max(0, safe.read(bytes)));
+            assertEquals(-1, safe.read());
+            return bytes;
+        }
+    }
+}
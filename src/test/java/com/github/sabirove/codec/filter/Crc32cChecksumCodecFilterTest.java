@@ -0,0 +1,83 @@
+/*
+ * Copyright 2019 Sabirov Evgenii (sabirov.e@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.sabirove.codec.filter;
+
+import java.io.*;
+import java.util.Arrays;
+
+import com.github.sabirove.codec.test_util.Rnd;
+import com.github.sabirove.codec.util.SafeInputStream;
+import com.github.sabirove.codec.util.Varint;
+import org.junit.jupiter.api.RepeatedTest;
+
+
+import static org.junit.jupiter.api.Assertions.*;
+
+final class Crc32cChecksumCodecFilterTest extends CodecFilterTestCase {
+    @Override
+    protected CodecFilter getFilter() {
+        return CodecFilters.checksumCrc32c(Rnd.rndInt(1, 10000));
+    }
+
+    @Override
+    protected void testEncoded(byte[] input, byte[] encoded) {
+        //blocks of at least 1 byte each carrying 4 bytes checksum + 1 byte terminator
+        assertTrue(encoded.length > input.length);
+    }
+
+    @RepeatedTest(100)
+    void testCorruptionIsDetected() throws IOException {
+        int blockSize = Rnd.rndInt(1, 2000);
+        CodecFilter filter = CodecFilters.checksumCrc32c(blockSize);
+        byte[] input = Rnd.rndBytes(1, 9000);
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        try (OutputStream os = filter.filter(bos)) {
+            os.write(input);
+        }
+        byte[] encoded = bos.toByteArray();
+
+        //flip a byte of the random data block
+        int blocks = (input.length - 1) / blockSize + 1;
+        int block = Rnd.rndInt(0, blocks);
+        int blockLength = Math.min(blockSize, input.length - block * blockSize);
+        int blockOffset = block * (Varint.unsignedVarIntSize(blockSize) + blockSize + 4);
+        int dataOffset = blockOffset + Varint.unsignedVarIntSize(blockLength);
+        encoded[dataOffset + Rnd.rndInt(0, blockLength)] ^= (byte) Rnd.rndInt(1, 256);
+
+        InputStream in = new SafeInputStream(filter.filter(new ByteArrayInputStream(encoded)));
+        byte[] decoded = new byte[block * blockSize];
+        assertEquals(decoded.length, Math.max(0, in.read(decoded)));
+        assertArrayEquals(Arrays.copyOf(input, decoded.length), decoded);
+        IOException e = assertThrows(IOException.class, () -> in.read(new byte[blockLength]));
+        assertTrue(e.getMessage().contains("block=" + block), e.getMessage());
+    }
+
+    @RepeatedTest(10)
+    void testTruncationIsDetected() throws IOException {
+        CodecFilter filter = CodecFilters.checksumCrc32c(Rnd.rndInt(1, 2000));
+        byte[] input = Rnd.rndBytes(1, 9000);
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        try (OutputStream os = filter.filter(bos)) {
+            os.write(input);
+        }
+        byte[] encoded = bos.toByteArray();
+        int length = Rnd.rndInt(0, encoded.length);
+
+        InputStream in = new SafeInputStream(filter.filter(new ByteArrayInputStream(encoded, 0, length)));
+        assertThrows(IOException.class, () -> in.read(new byte[input.length + 1]));
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright 2020 Sabirov Evgenii (sabirov.e@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.sabirove.codec.filter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+
+/**
+ * Not a rigorous benchmark (no JMH): rough throughput and ratio comparison of LZ4 with 'Deflate'
+ * on the repetitive text-like payload after a warm up, the results are printed.
+ * <p>
+ * Excluded from the unit tests, run with {@code ./gradlew benchmark}.
+ */
+@Tag("benchmark")
+final class Lz4CompressCodecFilterBenchmark {
+
+    @Test
+    void benchmarkAgainstDeflate() throws IOException {
+        byte[] input = Lz4CompressCodecFilterTest.textInput(4 * 1024 * 1024);
+        CodecFilter[] filters = {
+                CodecFilters.compressWithLz4(),
+                deflate(Deflater.BEST_SPEED),
+                CodecFilters.compressWithDeflate()
+        };
+        String[] names = {"LZ4", "Deflate (level 1)", "Deflate (default level)"};
+        for (int i = 0; i < filters.length; i++) {
+            for (int warmUp = 0; warmUp < 3; warmUp++) {
+                roundTrip(filters[i], input);
+            }
+            long[] nanos = new long[2];
+            byte[] compressed = null;
+            for (int run = 0; run < 3; run++) {
+                compressed = roundTrip(filters[i], input, nanos);
+            }
+            System.out.printf("%-24s ratio=%.2f compress=%4d MB/s decompress=%4d MB/s%n", names[i],
+                    (double) input.length / compressed.length, mbps(3L * input.length, nanos[0]),
+                    mbps(3L * input.length, nanos[1]));
+        }
+    }
+
+    private static CodecFilter deflate(int level) {
+        return CodecFilter.of(os -> new DeflaterOutputStream(os, new Deflater(level), true), InflaterInputStream::new);
+    }
+
+    private static void roundTrip(CodecFilter filter, byte[] input) throws IOException {
+        roundTrip(filter, input, new long[2]);
+    }
+
+    private static byte[] roundTrip(CodecFilter filter, byte[] input, long[] nanos) throws IOException {
+        long start = System.nanoTime();
+        ByteArrayOutputStream bos = new ByteArrayOutputStream(input.length);
+        try (OutputStream os = filter.filter(bos)) {
+            os.write(input);
+        }
+        byte[] compressed = bos.toByteArray();
+        long split = System.nanoTime();
+        byte[] output = Lz4CompressCodecFilterTest.readFully(filter, compressed, input.length);
+        nanos[0] += split - start;
+        nanos[1] += System.nanoTime() - split;
+        assertArrayEquals(input, output);
+        return compressed;
+    }
+
+    private static long mbps(long bytes, long nanos) {
+        return bytes * 1000 / Math.max(1, nanos);
+    }
+}
@@ -0,0 +1,217 @@
+/*
+ * Copyright 2020 Sabirov Evgenii (sabirov.e@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.sabirove.codec.filter;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import com.github.sabirove.codec.test_util.Rnd;
+import com.github.sabirove.codec.util.SafeInputStream;
+import org.junit.jupiter.api.RepeatedTest;
+import org.junit.jupiter.api.Test;
+
+
+import static org.junit.jupiter.api.Assertions.*;
+
+//LZ4 has no entropy coding: the low variety input of CompressCodecFilterTestCase doesn't compress, text does
+final class Lz4CompressCodecFilterTest extends CodecFilterTestCase {
+    private static final String[] WORDS = {
+            "id", "name", "value", "timestamp", "status", "ok", "error", "user", "session", "request", "{", "}", ":"
+    };
+
+    @Override
+    protected CodecFilter getFilter() {
+        return CodecFilters.compressWithLz4();
+    }
+
+    @Override
+    protected byte[] getInputBytes() {
+        return textInput(Rnd.rndInt(2048, 8192));
+    }
+
+    @Override
+    protected void testEncoded(byte[] input, byte[] encoded) {
+        assertTrue(encoded.length < input.length);
+    }
+
+    @RepeatedTest(100)
+    void testRoundTrip() throws IOException {
+        byte[] input = rndInput(Rnd.rndInt(0, 300_000));
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        try (OutputStream os = getFilter().filter(bos)) {
+            int off = 0;
+            while (off < input.length) {
+                if (Rnd.rndInt(0, 10) == 0) {
+                    os.write(input[off++]);
+                } else {
+                    int len = Math.min(input.length - off, Rnd.rndInt(1, 100_000));
+                    os.write(input, off, len);
+                    off += len;
+                }
+                if (Rnd.rndInt(0, 10) == 0) {
+                    os.flush();
+                }
+            }
+        }
+        assertArrayEquals(input, readFully(getFilter(), bos.toByteArray(), input.length));
+    }
+
+    @Test
+    void testEmptyFrame() throws IOException {
+        byte[] expected = {0x04, 0x22, 0x4D, 0x18, 0x64, 0x40, (byte) 0xA7, 0, 0, 0, 0, 0x05, 0x5D, (byte) 0xCC, 0x02};
+        assertArrayEquals(expected, compress(new byte[0]));
+        assertArrayEquals(new byte[0], readFully(getFilter(), expected, 0));
+    }
+
+    @Test
+    void testForeignFrames() throws IOException {
+        byte[] content = "aaaaaaaaaaaaaaabcdef".getBytes(StandardCharsets.US_ASCII);
+        //'a' literal + 14 bytes match at offset 1 + "bcdef" literals
+        byte[] block = {0x1A, 'a', 0x01, 0x00, 0x50, 'b', 'c', 'd', 'e', 'f'};
+
+        //linked blocks with the block checksums and the content size
+        ByteArrayOutputStream frame = new ByteArrayOutputStream();
+        writeHeader(frame, 0x40 | 0x10 | 0x08, 0x70, content.length * 2L);
+        writeBlock(frame, block, true, false);
+        //the second block only references the first one: 20 bytes match at offset 20
+        writeBlock(frame, new byte[]{0x0F, 0x14, 0x00, 0x01, 0x00}, true, false);
+        writeIntLE(frame, 0);
+
+        //skippable frame followed by the independent blocks frame with the uncompressed block
+        ByteArrayOutputStream skippable = new ByteArrayOutputStream();
+        writeIntLE(skippable, 0x184D2A5A);
+        writeIntLE(skippable, 3);
+        skippable.write(new byte[3]);
+        ByteArrayOutputStream stored = new ByteArrayOutputStream();
+        writeHeader(stored, 0x60, 0x40, -1);
+        writeBlock(stored, content, false, true);
+        writeIntLE(stored, 0);
+
+        byte[] concatenated = concat(frame.toByteArray(), skippable.toByteArray(), stored.toByteArray());
+        byte[] expected = concat(content, content, content);
+        assertArrayEquals(expected, readFully(getFilter(), concatenated, expected.length));
+    }
+
+    @RepeatedTest(50)
+    void testCorruptionIsDetected() throws IOException {
+        byte[] input = rndInput(Rnd.rndInt(1000, 100_000));
+        byte[] compressed = compress(input);
+        compressed[Rnd.rndInt(0, compressed.length)] ^= (byte) Rnd.rndInt(1, 256);
+
+        ByteArrayOutputStream decoded = new ByteArrayOutputStream();
+        try (InputStream in = getFilter().filter(new ByteArrayInputStream(compressed))) {
+            byte[] buf = new byte[4096];
+            for (int n; (n = in.read(buf)) >= 0; ) {
+                decoded.write(buf, 0, n);
+            }
+        } catch (IOException e) {
+            return;
+        }
+        //corrupted match offset might still reference the same bytes: the content is intact then
+        assertArrayEquals(input, decoded.toByteArray());
+    }
+
+    @Test
+    void testBlockDecompressionBounds() {
+        byte[] dst = new byte[100];
+        byte[] outOfWindow = {0x10, 'a', 0x02, 0x00, 0x00};
+        //match offset pointing before the start of the output
+        assertThrows(IOException.class, () -> Lz4.decompress(outOfWindow, 0, 5, dst, 0, 0, 100));
+        //literals exceeding the output
+        assertThrows(IOException.class, () -> Lz4.decompress(new byte[]{0x30, 'a', 'b', 'c'}, 0, 4, dst, 0, 0, 2));
+        //truncated literals
+        assertThrows(IOException.class, () -> Lz4.decompress(new byte[]{0x30, 'a'}, 0, 2, dst, 0, 0, 100));
+    }
+
+    private static byte[] rndInput(int length) {
+        switch (Rnd.rndInt(0, 3)) {
+            case 0:
+                return Rnd.rndBytes(length, length + 1);
+            case 1:
+                byte[] bytes = new byte[length];
+                for (int i = 0; i < length; ) {
+                    int run = Math.min(length - i, Rnd.rndInt(1, 300));
+                    Arrays.fill(bytes, i, i + run, (byte) Rnd.rndInt(0, 4));
+                    i += run;
+                }
+                return bytes;
+            default:
+                return textInput(length);
+        }
+    }
+
+    static byte[] textInput(int length) {
+        StringBuilder sb = new StringBuilder(length + 20);
+        while (sb.length() < length) {
+            sb.append(WORDS[Rnd.rndInt(0, WORDS.length)]);
+            sb.append(Rnd.rndInt(0, 3) == 0 ? Integer.toString(Rnd.rndInt(0, 10_000)) : " ");
+        }
+        return Arrays.copyOf(sb.toString().getBytes(StandardCharsets.US_ASCII), length);
+    }
+
+    private static byte[] compress(byte[] input) throws IOException {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        try (OutputStream os = CodecFilters.compressWithLz4().filter(bos)) {
+            os.write(input);
+        }
+        return bos.toByteArray();
+    }
+
+    static byte[] readFully(CodecFilter filter, byte[] compressed, int length) throws IOException {
+        try (InputStream safe = new SafeInputStream(filter.filter(new ByteArrayInputStream(compressed)))) {
+            byte[] bytes = new byte[length];
+            assertEquals(length, Math.max(0, safe.read(bytes)));
+            assertEquals(-1, safe.read());
+            return bytes;
+        }
+    }
+
+    private static void writeHeader(ByteArrayOutputStream os, int flg, int bd, long contentSize) {
+        writeIntLE(os, 0x184D2204);
+        byte[] descriptor = new byte[contentSize >= 0 ? 10 : 2];
+        descriptor[0] = (byte) flg;
+        descriptor[1] = (byte) bd;
+        for (int i = 2; i < descriptor.length; i++) {
+            descriptor[i] = (byte) (contentSize >>> (8 * (i - 2)));
+        }
+        os.write(descriptor, 0, descriptor.length);
+        os.write(XxHash32.hash(descriptor, 0, descriptor.length) >>> 8);
+    }
+
+    private static void writeBlock(ByteArrayOutputStream os, byte[] data, boolean checksum, boolean stored) {
+        writeIntLE(os, data.length | (stored ? 0x80000000 : 0));
+        os.write(data, 0, data.length);
+        if (checksum) {
+            writeIntLE(os, XxHash32.hash(data, 0, data.length));
+        }
+    }
+
+    private static void writeIntLE(ByteArrayOutputStream os, int value) {
+        for (int i = 0; i < 4; i++) {
+            os.write(value >>> (8 * i));
+        }
+    }
+
+    private static byte[] concat(byte[]... arrays) {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        for (byte[] array : arrays) {
+            bos.write(array, 0, array.length);
+        }
+        return bos.toByteArray();
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright 2019 Sabirov Evgenii (sabirov.e@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.sabirove.codec.filter;
+
+import java.io.*;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import com.github.sabirove.codec.test_util.Rnd;
+import com.github.sabirove.codec.util.SafeInputStream;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.RepeatedTest;
+import org.junit.jupiter.api.Test;
+
+
+import static org.junit.jupiter.api.Assertions.*;
+
+final class ParallelGzipCompressCodecFilterTest extends CompressCodecFilterTestCase {
+    private static final ExecutorService EXECUTOR = Executors.newFixedThreadPool(4);
+
+    @AfterAll
+    static void shutdown() {
+        EXECUTOR.shutdown();
+    }
+
+    @Override
+    protected CodecFilter getFilter() {
+        return CodecFilters.compressWithGzipParallel(Rnd.rndInt(512, 3000), Rnd.rndInt(1, 5), EXECUTOR);
+    }
+
+    @RepeatedTest(50)
+    void testStandardGzipStream() throws IOException {
+        byte[] input = textLike(Rnd.rndInt(0, 1_000_000));
+        CodecFilter filter = CodecFilters.compressWithGzipParallel(Rnd.rndInt(1, 200_000), EXECUTOR);
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        try (OutputStream os = filter.filter(bos)) {
+            int off = 0;
+            while (off < input.length) {
+                int len = Math.min(input.length - off, Rnd.rndInt(1, 50_000));
+                os.write(input, off, len);
+                off += len;
+                if (Rnd.rndInt(10) == 0) {
+                    os.flush();
+                }
+            }
+        }
+        byte[] decoded = new byte[input.length];
+        try (InputStream in = new SafeInputStream(new GZIPInputStream(new ByteArrayInputStream(bos.toByteArray())))) {
+            assertEquals(input.length, Math.max(0, in.read(decoded)));
+            assertEquals(-1, in.read());
+        }
+        assertArrayEquals(input, decoded);
+    }
+
+    @Test
+    void testCompressionRatioIsComparable() throws IOException {
+        byte[] input = textLike(4_000_000);
+        ByteArrayOutputStream parallel = new ByteArrayOutputStream();
+        try (OutputStream os = CodecFilters.compressWithGzipParallel(128 * 1024, EXECUTOR).filter(parallel)) {
+            os.write(input);
+        }
+        ByteArrayOutputStream serial = new ByteArrayOutputStream();
+        try (OutputStream os = new GZIPOutputStream(serial)) {
+            os.write(input);
+        }
+        //dictionary carry over keeps the ratio within a percent or so of the single-threaded one
+        assertTrue(parallel.size() < serial.size() * 1.02, parallel.size() + " vs " + serial.size());
+    }
+
+    @RepeatedTest(20)
+    void testFailedWriteIsReportedOnClose() throws IOException {
+        int limit = Rnd.rndInt(10, 1000);
+        OutputStream failing = new OutputStream() {
+            private int size;
+
+            @Override
+            public void write(int b) throws IOException {
+                if (++size > limit) {
+                    throw new IOException("no space left");
+                }
+            }
+        };
+        OutputStream os = CodecFilters.compressWithGzipParallel(Rnd.rndInt(100, 1000), 8, EXECUTOR).filter(failing);
+        //the blocks are written out once the in flight limit is reached or on close
+        try {
+            os.write(Rnd.rndBytes(10_000, 20_000));
+        } catch (IOException e) {
+            return;
+        }
+        assertThrows(IOException.class, os::close);
+    }
+
+    @Test
+    void testInvalidArguments() {
+        assertThrows(IllegalArgumentException.class, () -> CodecFilters.compressWithGzipParallel(0, EXECUTOR));
+        assertThrows(IllegalArgumentException.class, () -> CodecFilters.compressWithGzipParallel(1, 0, EXECUTOR));
+        assertThrows(IllegalArgumentException.class, () -> CodecFilters.compressWithGzipParallel(1, null));
+    }
+
+    private static byte[] textLike(int length) {
+        String[] words = {"codec", "filter", "stream", "block", "deflate", "gzip", "parallel", "value", " ", "\n"};
+        ByteArrayOutputStream bos = new ByteArrayOutputStream(length + 16);
+        while (bos.size() < length) {
+            byte[] word = Rnd.rndElem(words).getBytes();
+            bos.write(word, 0, word.length);
+            if (Rnd.rndInt(20) == 0) {
+                bos.write(Rnd.rndInt(0, 256));
+            }
+        }
+        return Arrays.copyOf(bos.toByteArray(), length);
+    }
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright 2020 Sabirov Evgenii (sabirov.e@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.sabirove.codec.filter;
+
+import java.nio.charset.StandardCharsets;
+
+import com.github.sabirove.codec.test_util.Rnd;
+import org.junit.jupiter.api.RepeatedTest;
+import org.junit.jupiter.api.Test;
+
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class XxHash32Test {
+
+    @Test
+    void testKnownValues() {
+        assertEquals(0x02CC5D05, hash(""));
+        assertEquals(0x550D7456, hash("a"));
+        assertEquals(0x32D153FF, hash("abc"));
+        assertEquals(0xE2293B2F, hash("Nobody inspects the spammish repetition"));
+    }
+
+    @RepeatedTest(500)
+    void testStreamingUpdates() {
+        byte[] bytes = Rnd.rndBytes(1000);
+        int expected = XxHash32.hash(bytes, 0, bytes.length);
+
+        XxHash32 actual = new XxHash32();
+        int off = 0;
+        while (off < bytes.length) {
+            if (Rnd.rndBoolean()) {
+                actual.update(bytes[off++]);
+            } else {
+                int len = Rnd.rndInt(0, Math.min(40, bytes.length - off) + 1);
+                actual.update(bytes, off, len);
+                off += len;
+            }
+        }
+        assertEquals(expected, (int) actual.getValue());
+
+        actual.reset();
+        actual.update(bytes, 0, bytes.length);
+        assertEquals(expected, (int) actual.getValue());
+    }
+
+    private static int hash(String s) {
+        byte[] bytes = s.getBytes(StandardCharsets.US_ASCII);
+        return XxHash32.hash(bytes, 0, bytes.length);
+    }
+}
@@ -16,11 +16,13 @@
 
 package com.github.sabirove.codec.function;
 
-import java.io.EOFException;
-import java.io.IOException;
+import java.io.*;
 import java.util.Arrays;
 import java.util.concurrent.ThreadLocalRandom;
 
+import com.github.sabirove.codec.Codec;
+import com.github.sabirove.codec.CodecBuilder;
+import com.github.sabirove.codec.DecoderStream;
 import com.github.sabirove.codec.test_util.Rnd;
 import com.github.sabirove.codec.test_util.TestInputStream;
 import com.github.sabirove.codec.test_util.TestOutputStream;
@@ -101,4 +103,37 @@ final class BinaryChunkedCodecFunctionTest extends CodecFunctionTestCase<byte[]>
         assertEquals(34, function.read(TestInputStream.from(tos2))[0]);
     }
 
+    @RepeatedTest(100)
+    void testReadChunkIntoBuffer() {
+        byte[] data = Rnd.rndBytes(CHUNK_SIZE * 20);
+        Codec<byte[]> codec = CodecBuilder.withFunction(CodecFunctions.binaryChunked(CHUNK_SIZE, false)).build();
+        int off = Rnd.rndInt(0, 10);
+        byte[] buf = new byte[off + CHUNK_SIZE];
+        ByteArrayOutputStream copy = new ByteArrayOutputStream();
+        try (DecoderStream<byte[]> decoder = codec.wrap(new ByteArrayInputStream(data))) {
+            assertThrows(IllegalArgumentException.class, () -> decoder.readChunk(buf, off + 1));
+            int read;
+            while ((read = decoder.readChunk(buf, off)) != -1) {
+                assertTrue(read == CHUNK_SIZE || read == data.length % CHUNK_SIZE);
+                copy.write(buf, off, read);
+            }
+            assertEquals(-1, decoder.readChunk(buf));
+        }
+        assertArrayEquals(data, copy.toByteArray());
+    }
+
+    @RepeatedTest(100)
+    void testReadChunkStrict() {
+        byte[] data = Rnd.rndBytes(1, CHUNK_SIZE);
+        BinaryChunkedCodecFunction function = CodecFunctions.binaryChunkedFunction(CHUNK_SIZE, true);
+        Codec<byte[]> codec = CodecBuilder.withFunction(function).build();
+        byte[] buf = new byte[CHUNK_SIZE];
+        TestUtil.assertThrowsIO(EOFException.class, () -> function.readChunk(new TestInputStream(data), buf, 0));
+        try (DecoderStream<byte[]> decoder = codec.wrap(new ByteArrayInputStream(data))) {
+            assertThrows(UncheckedIOException.class, () -> decoder.readChunk(buf));
+        }
+        Codec<String> unsupported = CodecBuilder.withFunction(CodecFunctions.stringSerializing()).build();
+        DecoderStream<String> decoder = unsupported.wrap(new ByteArrayInputStream(data));
+        assertThrows(IllegalStateException.class, () -> decoder.readChunk(buf));
+    }
 }
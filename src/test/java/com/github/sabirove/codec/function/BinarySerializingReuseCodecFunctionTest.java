@@ -0,0 +1,148 @@
+/*
+ * Copyright 2020 Sabirov Evgenii (sabirov.e@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.sabirove.codec.function;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Serializable;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import com.github.sabirove.codec.Codec;
+import com.github.sabirove.codec.CodecBuilder;
+import com.github.sabirove.codec.DecoderStream;
+import com.github.sabirove.codec.EncoderStream;
+import com.github.sabirove.codec.test_util.Rnd;
+import com.github.sabirove.codec.util.StateInputStream;
+import com.github.sabirove.codec.util.StateOutputStream;
+import com.github.sabirove.codec.util.StateStreamSpec;
+import org.junit.jupiter.api.RepeatedTest;
+
+
+import static org.junit.jupiter.api.Assertions.*;
+
+final class BinarySerializingReuseCodecFunctionTest
+        extends CodecFunctionTestCase<BinarySerializingReuseCodecFunctionTest.Tick> {
+
+    static final class Tick implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        String symbol;
+        long time;
+        double price;
+        int[] sizes;
+
+        static Tick random() {
+            Tick tick = new Tick();
+            tick.symbol = Rnd.rndElem(new String[]{"AAA", "BBB", "CCC"});
+            tick.time = Rnd.rndLong();
+            tick.price = Rnd.rndDouble();
+            tick.sizes = Rnd.rndInts(10);
+            return tick;
+        }
+
+        static void write(StateOutputStream out, Tick tick) {
+            out.putString(tick.symbol)
+                    .putSignedVarLong(tick.time)
+                    .putDouble(tick.price)
+                    .putInts(tick.sizes);
+        }
+
+        static Tick read(StateInputStream in) {
+            Tick tick = new Tick();
+            fill(in, tick);
+            return tick;
+        }
+
+        static void fill(StateInputStream in, Tick tick) {
+            tick.symbol = in.getString();
+            tick.time = in.getSignedVarLong();
+            tick.price = in.getDouble();
+            tick.sizes = in.getInts();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            Tick tick = (Tick) o;
+            return time == tick.time
+                    && Double.compare(tick.price, price) == 0
+                    && Objects.equals(symbol, tick.symbol)
+                    && Arrays.equals(sizes, tick.sizes);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(symbol, time, price);
+        }
+    }
+
+    private final boolean stateful = Rnd.rndBoolean();
+
+    @Override
+    CodecFunction<Tick> getFunction() {
+        return stateful
+                ? CodecFunctions.binarySerializing(Tick::write, Tick::read, Tick::fill,
+                StateStreamSpec.ofDefault().withStringDictionary(2))
+                : CodecFunctions.binarySerializing(Tick::write, Tick::read, Tick::fill);
+    }
+
+    @Override
+    Tick generateInput() {
+        return Tick.random();
+    }
+
+    @RepeatedTest(100)
+    void testDecoderStreamReusesInstance() {
+        Codec<Tick> codec = CodecBuilder.withFunction(getFunction()).build();
+        List<Tick> ticks = Stream.generate(Tick::random).limit(Rnd.rndInt(1, 100)).collect(Collectors.toList());
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        try (EncoderStream<Tick> encoder = codec.wrap(bos)) {
+            ticks.forEach(encoder::write);
+        }
+        Tick reuse = new Tick();
+        try (DecoderStream<Tick> decoder = codec.wrap(new ByteArrayInputStream(bos.toByteArray()))) {
+            for (Tick expected : ticks) {
+                assertSame(reuse, decoder.read(reuse));
+                assertEquals(expected, reuse);
+            }
+            assertThrows(UncheckedIOException.class, () -> decoder.read(reuse));
+        }
+    }
+
+    @RepeatedTest(10)
+    void testNoFillerReadsNewInstance() {
+        Codec<Tick> codec = CodecBuilder.withFunction(CodecFunctions.binarySerializing(Tick::write, Tick::read))
+                .build();
+        Tick expected = Tick.random();
+        Tick reuse = new Tick();
+        try (DecoderStream<Tick> decoder = codec.wrap(new ByteArrayInputStream(codec.encode(expected)))) {
+            Tick actual = decoder.read(reuse);
+            assertNotSame(reuse, actual);
+            assertEquals(expected, actual);
+        }
+    }
+}
@@ -0,0 +1,155 @@
+/*
+ * Copyright 2020 Sabirov Evgenii (sabirov.e@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.sabirove.codec.function;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Serializable;
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import com.github.sabirove.codec.Codec;
+import com.github.sabirove.codec.CodecBuilder;
+import com.github.sabirove.codec.DecoderStream;
+import com.github.sabirove.codec.EncoderStream;
+import com.github.sabirove.codec.test_util.Rnd;
+import com.github.sabirove.codec.util.StateInputStream;
+import com.github.sabirove.codec.util.StateOutputStream;
+import com.github.sabirove.codec.util.StateStreamSpec;
+import org.junit.jupiter.api.RepeatedTest;
+
+
+import static org.junit.jupiter.api.Assertions.*;
+
+final class BinarySerializingStatefulCodecFunctionTest
+        extends CodecFunctionTestCase<BinarySerializingStatefulCodecFunctionTest.Event> {
+
+    private static final String[] TENANTS = Stream.generate(() -> Rnd.rndString(32))
+            .limit(5)
+            .toArray(String[]::new);
+    private static final UUID[] IDS = Stream.generate(Rnd::rndUUID)
+            .limit(10)
+            .toArray(UUID[]::new);
+    private static final StateStreamSpec SPEC = StateStreamSpec.ofDefault()
+            .withStringDictionary(TENANTS.length)
+            .withSharedValues(IDS.length, false);
+
+    static final class Event implements Serializable {
+        private static final long serialVersionUID = 1L;
+        final String tenant;
+        final UUID id;
+        final long timestamp;
+
+        Event(String tenant, UUID id, long timestamp) {
+            this.tenant = tenant;
+            this.id = id;
+            this.timestamp = timestamp;
+        }
+
+        static Event random() {
+            return new Event(Rnd.rndElem(TENANTS), Rnd.rndElem(IDS), Rnd.rndLong());
+        }
+
+        static void write(StateOutputStream out, Event event) {
+            out.putString(event.tenant)
+                    .putShared(event.id, StateOutputStream::putUUID)
+                    .putLong(event.timestamp);
+        }
+
+        static Event read(StateInputStream in) {
+            return new Event(in.getString(), in.getShared(StateInputStream::getUUID), in.getLong());
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            Event event = (Event) o;
+            return timestamp == event.timestamp &&
+                    tenant.equals(event.tenant) &&
+                    id.equals(event.id);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(tenant, id, timestamp);
+        }
+    }
+
+    @Override
+    CodecFunction<Event> getFunction() {
+        return CodecFunctions.binarySerializing(Event::write, Event::read, SPEC);
+    }
+
+    @Override
+    Event generateInput() {
+        return Event.random();
+    }
+
+    @RepeatedTest(100)
+    void testSharedInstancesAcrossValues() {
+        testSharedInstances(SPEC, false);
+    }
+
+    @RepeatedTest(100)
+    void testSharedInstancesResetOnFlush() {
+        testSharedInstances(SPEC.withResetOnFlush(), true);
+    }
+
+    private static void testSharedInstances(StateStreamSpec spec, boolean resetOnFlush) {
+        Codec<Event> codec = CodecBuilder.withFunction(CodecFunctions.binarySerializing(Event::write, Event::read, spec))
+                .build();
+        Codec<Event> plainCodec = CodecBuilder.withFunction(CodecFunctions.<Event>binarySerializing(
+                (out, e) -> out.putString(e.tenant).putUUID(e.id).putLong(e.timestamp),
+                in -> new Event(in.getString(), in.getUUID(), in.getLong())
+        )).build();
+        List<Event> events = Stream.generate(Event::random)
+                .limit(Rnd.rndInt(50, 200))
+                .collect(Collectors.toList());
+        int flushEvery = Rnd.rndInt(1, 20);
+
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        try (EncoderStream<Event> encoder = codec.wrap(bos)) {
+            for (int i = 0; i < events.size(); i++) {
+                encoder.write(events.get(i));
+                if (i % flushEvery == 0) {
+                    encoder.flush();
+                }
+            }
+        }
+        ByteArrayOutputStream plainBos = new ByteArrayOutputStream();
+        try (EncoderStream<Event> encoder = plainCodec.wrap(plainBos)) {
+            events.forEach(encoder::write);
+        }
+        if (!resetOnFlush) {
+            assertTrue(bos.size() < plainBos.size());
+        }
+
+        Map<UUID, UUID> firstRead = new HashMap<>();
+        try (DecoderStream<Event> decoder = codec.wrap(new ByteArrayInputStream(bos.toByteArray()))) {
+            for (Event expected : events) {
+                Event actual = decoder.read();
+                assertEquals(expected, actual);
+                UUID first = firstRead.putIfAbsent(actual.id, actual.id);
+                if (first != null && !resetOnFlush) {
+                    assertSame(first, actual.id);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright 2020 Sabirov Evgenii (sabirov.e@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.sabirove.codec.function;
+
+import java.io.ByteArrayOutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ReadOnlyBufferException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import com.github.sabirove.codec.Codec;
+import com.github.sabirove.codec.CodecBuilder;
+import com.github.sabirove.codec.DecoderStream;
+import com.github.sabirove.codec.EncoderStream;
+import com.github.sabirove.codec.test_util.Rnd;
+import com.github.sabirove.codec.util.ByteBufferInputStream;
+import com.github.sabirove.codec.util.Varint;
+import org.junit.jupiter.api.RepeatedTest;
+
+
+import static org.junit.jupiter.api.Assertions.*;
+
+final class BinaryViewCodecFunctionTest extends CodecFunctionTestCase<ByteBuffer> {
+
+    @Override
+    CodecFunction<ByteBuffer> getFunction() {
+        return CodecFunctions.binaryView();
+    }
+
+    @Override
+    ByteBuffer generateInput() {
+        byte[] bytes = Rnd.rndBytes(4096);
+        ByteBuffer buffer = Rnd.rndBoolean() ? ByteBuffer.allocateDirect(bytes.length) : ByteBuffer.allocate(bytes.length);
+        buffer.put(bytes).flip();
+        buffer.position(Rnd.rndInt(0, buffer.limit() + 1));
+        return buffer;
+    }
+
+    @RepeatedTest(100)
+    void testSameFormatAsBinary() {
+        byte[] bytes = Rnd.rndBytes(4096);
+        Codec<byte[]> binary = CodecBuilder.withFunction(CodecFunctions.binary()).build();
+        Codec<ByteBuffer> view = CodecBuilder.withFunction(CodecFunctions.binaryView()).build();
+        ByteBuffer value = generateInput();
+        assertArrayEquals(binary.encode(bytes), view.encode(ByteBuffer.wrap(bytes)));
+        int position = value.position();
+        assertEquals(value, ByteBuffer.wrap(binary.decode(view.encode(value))));
+        assertEquals(position, value.position());
+    }
+
+    @RepeatedTest(100)
+    void testZeroCopySlices() {
+        Codec<ByteBuffer> codec = CodecBuilder.withFunction(CodecFunctions.binaryView()).build();
+        List<byte[]> values = Stream.generate(() -> Rnd.rndBytes(1024))
+                .limit(Rnd.rndInt(1, 50))
+                .collect(Collectors.toList());
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        try (EncoderStream<ByteBuffer> encoder = codec.wrap(bos)) {
+            values.forEach(v -> encoder.write(ByteBuffer.wrap(v)));
+        }
+        byte[] encoded = bos.toByteArray();
+        ByteBuffer source = Rnd.rndBoolean()
+                ? ByteBuffer.wrap(encoded)
+                : (ByteBuffer) ByteBuffer.allocateDirect(encoded.length).put(encoded).flip();
+
+        try (DecoderStream<ByteBuffer> decoder = codec.wrap(new ByteBufferInputStream(source))) {
+            int offset = 0;
+            for (byte[] expected : values) {
+                ByteBuffer actual = decoder.read();
+                assertTrue(actual.isReadOnly());
+                assertThrows(ReadOnlyBufferException.class, () -> actual.put((byte) 0));
+                assertEquals(ByteBuffer.wrap(expected), actual);
+                offset += Varint.unsignedVarIntSize(expected.length);
+                if (expected.length > 0) {
+                    //the view references the source data
+                    byte flipped = (byte) ~source.get(offset);
+                    source.put(offset, flipped);
+                    assertEquals(flipped, actual.get(0));
+                }
+                offset += expected.length;
+            }
+            assertThrows(UncheckedIOException.class, decoder::read);
+        }
+        assertEquals(0, source.position());
+    }
+
+    @RepeatedTest(100)
+    void testDecodeByteBuffer() {
+        Codec<ByteBuffer> codec = CodecBuilder.withFunction(CodecFunctions.binaryView()).build();
+        byte[] value = Rnd.rndBytes(4096);
+        byte[] encoded = codec.encode(ByteBuffer.wrap(value));
+        ByteBuffer actual = codec.decode(ByteBuffer.wrap(encoded));
+        //decoding from the array goes through the same zero-copy path
+        ByteBuffer fromArray = codec.decode(encoded);
+        assertEquals(ByteBuffer.wrap(value), actual);
+        assertEquals(ByteBuffer.wrap(value), fromArray);
+        if (value.length > 0) {
+            Arrays.fill(encoded, (byte) 0);
+            assertEquals(ByteBuffer.wrap(new byte[value.length]), actual);
+            assertEquals(ByteBuffer.wrap(new byte[value.length]), fromArray);
+        }
+    }
+
+    @RepeatedTest(10)
+    void testIllegalReadRange() {
+        ByteBufferInputStream in = new ByteBufferInputStream(Rnd.rndBytes(1, 100));
+        byte[] b = new byte[10];
+        assertThrows(IndexOutOfBoundsException.class, () -> in.read(b, -1, 1));
+        assertThrows(IndexOutOfBoundsException.class, () -> in.read(b, 0, -1));
+        assertThrows(IndexOutOfBoundsException.class, () -> in.read(b, Rnd.rndInt(1, 11), 10));
+        assertEquals(0, in.read(b, 10, 0));
+    }
+}
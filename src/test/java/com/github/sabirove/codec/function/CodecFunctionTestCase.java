@@ -16,6 +16,7 @@
 
 package com.github.sabirove.codec.function;
 
+import java.io.ByteArrayOutputStream;
 import java.io.EOFException;
 import java.io.IOException;
 import java.util.List;
@@ -29,6 +30,7 @@ import com.github.sabirove.codec.test_util.TestUtil;
 import org.junit.jupiter.api.RepeatedTest;
 
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 abstract class CodecFunctionTestCase<T> {
@@ -39,18 +41,20 @@ abstract class CodecFunctionTestCase<T> {
 
     @RepeatedTest(100)
     final void runTest() throws IOException {
-        CodecFunction<T> function = getFunction();
+        CodecFunction<T> encoder = getFunction().forStream();
         List<T> inputs = Stream.generate(this::generateInput)
                 .limit(Rnd.rndInt(100))
                 .collect(Collectors.toList());
         TestOutputStream tos = new TestOutputStream();
         for (T input : inputs) {
-            function.write(input, tos);
+            encoder.write(input, tos);
             tos.assertNotFlushed();
             tos.assertNotClosed();
         }
+        encoder.flush(tos);
         TestInputStream tis = TestInputStream.from(tos);
 
+        CodecFunction<T> function = getFunction().forStream();
         for (T expected : inputs) {
             T actual = function.read(tis);
             tis.assertNotClosed();
@@ -60,4 +64,68 @@ abstract class CodecFunctionTestCase<T> {
 
         TestUtil.assertThrowsIO(EOFException.class, () -> function.read(tis));
     }
+
+    @RepeatedTest(100)
+    final void runSkipTest() throws IOException {
+        CodecFunction<T> encoder = getFunction().forStream();
+        List<T> inputs = Stream.generate(this::generateInput)
+                .limit(Rnd.rndInt(100))
+                .collect(Collectors.toList());
+        TestOutputStream tos = new TestOutputStream();
+        for (T input : inputs) {
+            encoder.write(input, tos);
+        }
+        encoder.flush(tos);
+        TestInputStream tis = TestInputStream.from(tos);
+
+        CodecFunction<T> function = getFunction().forStream();
+        for (T expected : inputs) {
+            if (Rnd.rndBoolean()) {
+                function.skip(tis);
+            } else {
+                TestUtil.assertEq(expected, function.read(tis));
+            }
+            tis.assertNotClosed();
+        }
+        tis.assertEOF();
+
+        TestUtil.assertThrowsIO(EOFException.class, () -> function.skip(tis));
+    }
+
+    @RepeatedTest(100)
+    final void runSizeOfTest() throws IOException {
+        CodecFunction<T> encoder = getFunction().forStream();
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        for (int i = Rnd.rndInt(100); i > 0; i--) {
+            T input = generateInput();
+            int size = encoder.sizeOf(input);
+            int before = bos.size();
+            encoder.write(input, bos);
+            if (size >= 0) {
+                assertEquals(size, bos.size() - before);
+            }
+        }
+    }
+
+    @RepeatedTest(100)
+    final void runReadIntoTest() throws IOException {
+        CodecFunction<T> encoder = getFunction().forStream();
+        List<T> inputs = Stream.generate(this::generateInput)
+                .limit(Rnd.rndInt(100))
+                .collect(Collectors.toList());
+        TestOutputStream tos = new TestOutputStream();
+        for (T input : inputs) {
+            encoder.write(input, tos);
+        }
+        encoder.flush(tos);
+        TestInputStream tis = TestInputStream.from(tos);
+
+        CodecFunction<T> function = getFunction().forStream();
+        T reuse = generateInput();
+        for (T expected : inputs) {
+            reuse = function.readInto(tis, reuse);
+            TestUtil.assertEq(expected, reuse);
+        }
+        tis.assertEOF();
+    }
 }
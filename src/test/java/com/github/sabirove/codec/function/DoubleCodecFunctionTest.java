@@ -0,0 +1,80 @@
+/*
+ * Copyright 2020 Sabirov Evgenii (sabirov.e@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.sabirove.codec.function;
+
+import java.io.*;
+
+import com.github.sabirove.codec.Codec;
+import com.github.sabirove.codec.CodecBuilder;
+import com.github.sabirove.codec.DecoderStream;
+import com.github.sabirove.codec.EncoderStream;
+import com.github.sabirove.codec.test_util.Rnd;
+import org.junit.jupiter.api.RepeatedTest;
+import org.junit.jupiter.api.Test;
+
+
+import static org.junit.jupiter.api.Assertions.*;
+
+final class DoubleCodecFunctionTest extends CodecFunctionTestCase<Double> {
+
+    @Override
+    CodecFunction<Double> getFunction() {
+        return CodecFunctions.doubleSerializing();
+    }
+
+    @Override
+    Double generateInput() {
+        return Rnd.rndDouble();
+    }
+
+    @RepeatedTest(100)
+    void testPrimitiveStreams() {
+        double[] values = Rnd.rndDoubles(1000);
+        Codec<Double> codec = CodecBuilder.withFunction(CodecFunctions.doubleSerializing()).build();
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        try (EncoderStream<Double> encoder = codec.wrap(bos)) {
+            for (double value : values) {
+                encoder.writeDouble(value);
+            }
+        }
+        try (DecoderStream<Double> decoder = codec.wrap(new ByteArrayInputStream(bos.toByteArray()))) {
+            for (double value : values) {
+                assertEquals(value, decoder.readDouble());
+            }
+            assertThrows(UncheckedIOException.class, decoder::readDouble);
+        }
+    }
+
+    @RepeatedTest(100)
+    void testFixedEncodingMatchesDataOutput() throws IOException {
+        double value = Rnd.rndDouble();
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        CodecFunctions.doubleSerializing().writeDouble(value, bos);
+        ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        new DataOutputStream(expected).writeDouble(value);
+        assertArrayEquals(expected.toByteArray(), bos.toByteArray());
+    }
+
+    @Test
+    void testUnsupportedFunction() {
+        Codec<String> codec = CodecBuilder.withFunction(CodecFunctions.stringSerializing()).build();
+        EncoderStream<String> encoder = codec.wrap(new ByteArrayOutputStream());
+        assertThrows(IllegalStateException.class, () -> encoder.writeDouble((double) 1));
+        DecoderStream<String> decoder = codec.wrap(new ByteArrayInputStream(new byte[8]));
+        assertThrows(IllegalStateException.class, decoder::readDouble);
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright 2020 Sabirov Evgenii (sabirov.e@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.sabirove.codec.function;
+
+import java.io.*;
+
+import com.github.sabirove.codec.Codec;
+import com.github.sabirove.codec.CodecBuilder;
+import com.github.sabirove.codec.DecoderStream;
+import com.github.sabirove.codec.EncoderStream;
+import com.github.sabirove.codec.test_util.Rnd;
+import org.junit.jupiter.api.RepeatedTest;
+import org.junit.jupiter.api.Test;
+
+
+import static org.junit.jupiter.api.Assertions.*;
+
+final class IntCodecFunctionTest extends CodecFunctionTestCase<Integer> {
+    private final boolean varLength = Rnd.rndBoolean();
+
+    @Override
+    CodecFunction<Integer> getFunction() {
+        return CodecFunctions.intSerializing(varLength);
+    }
+
+    @Override
+    Integer generateInput() {
+        return Rnd.rndInt();
+    }
+
+    @RepeatedTest(100)
+    void testPrimitiveStreams() {
+        int[] values = Rnd.rndInts(1000);
+        Codec<Integer> codec = CodecBuilder.withFunction(CodecFunctions.intSerializing(varLength)).build();
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        try (EncoderStream<Integer> encoder = codec.wrap(bos)) {
+            for (int value : values) {
+                encoder.writeInt(value);
+            }
+        }
+        try (DecoderStream<Integer> decoder = codec.wrap(new ByteArrayInputStream(bos.toByteArray()))) {
+            for (int value : values) {
+                assertEquals(value, decoder.readInt());
+            }
+            assertThrows(UncheckedIOException.class, decoder::readInt);
+        }
+    }
+
+    @RepeatedTest(100)
+    void testFixedEncodingMatchesDataOutput() throws IOException {
+        int value = Rnd.rndInt();
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        CodecFunctions.intSerializing(false).writeInt(value, bos);
+        ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        new DataOutputStream(expected).writeInt(value);
+        assertArrayEquals(expected.toByteArray(), bos.toByteArray());
+    }
+
+    @Test
+    void testUnsupportedFunction() {
+        Codec<String> codec = CodecBuilder.withFunction(CodecFunctions.stringSerializing()).build();
+        EncoderStream<String> encoder = codec.wrap(new ByteArrayOutputStream());
+        assertThrows(IllegalStateException.class, () -> encoder.writeInt(1));
+        DecoderStream<String> decoder = codec.wrap(new ByteArrayInputStream(new byte[8]));
+        assertThrows(IllegalStateException.class, decoder::readInt);
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright 2020 Sabirov Evgenii (sabirov.e@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.sabirove.codec.function;
+
+import java.io.InvalidClassException;
+import java.io.UncheckedIOException;
+import java.io.Serializable;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.*;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+import com.github.sabirove.codec.Codec;
+import com.github.sabirove.codec.CodecBuilder;
+import com.github.sabirove.codec.test_util.Rnd;
+import com.github.sabirove.codec.test_util.State;
+import org.junit.jupiter.api.RepeatedTest;
+import org.junit.jupiter.api.Test;
+
+
+import static org.junit.jupiter.api.Assertions.*;
+
+final class JavaSerializingAllowListCodecFunctionTest extends CodecFunctionTestCase<State> {
+    private static final Set<Class<?>> ALLOWED = new HashSet<>(Arrays.asList(
+            String.class, TimeUnit.class, LocalTime.class, LocalDate.class, LocalDateTime.class,
+            ZonedDateTime.class, ZoneOffset.class, ZoneId.class, Instant.class, Date.class, UUID.class,
+            BigInteger.class, BigDecimal.class, ArrayList.class, HashMap.class, Integer.class, Long.class
+    ));
+
+    static final class Holder implements Serializable {
+        private static final long serialVersionUID = 1L;
+        final Object value;
+
+        Holder(Object value) {
+            this.value = value;
+        }
+    }
+
+    static final class Handler implements InvocationHandler, Serializable {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) {
+            return method.getName().equals("toString") ? "proxy" : null;
+        }
+    }
+
+    private final boolean session = Rnd.rndBoolean();
+
+    @Override
+    CodecFunction<State> getFunction() {
+        return !session
+                ? CodecFunctions.javaSerializing(State.class, ALLOWED)
+                : CodecFunctions.javaSerializing(State.class, Rnd.rndInt(1, 20), Rnd.rndInt(1, 100_000), ALLOWED);
+    }
+
+    @Override
+    State generateInput() {
+        return State.random();
+    }
+
+    @RepeatedTest(10)
+    void testRepeatedDecodingWithCachedClasses() {
+        Codec<State> codec = CodecBuilder.withFunction(CodecFunctions.javaSerializing(State.class, ALLOWED)).build();
+        for (int i = 0; i < 10; i++) {
+            State state = State.random();
+            assertEquals(state, codec.decode(codec.encode(state)));
+        }
+    }
+
+    @Test
+    void testNotAllowedClass() {
+        Codec<Holder> codec = CodecBuilder.withFunction(
+                CodecFunctions.javaSerializing(Holder.class, Collections.singleton(String.class))).build();
+        Holder allowed = new Holder("value");
+        assertEquals(allowed.value, codec.decode(codec.encode(allowed)).value);
+        Holder notAllowed = new Holder(new ArrayList<>(Collections.singleton("value")));
+        byte[] encoded = codec.encode(notAllowed);
+        UncheckedIOException e = assertThrows(UncheckedIOException.class, () -> codec.decode(encoded));
+        assertTrue(e.getCause() instanceof InvalidClassException);
+    }
+
+    @Test
+    void testSiblingAndSuperClassesAreNotAllowed() {
+        Set<Class<?>> allowed = new HashSet<>(Arrays.asList(String.class, ArrayList.class));
+        Codec<Holder> codec = CodecBuilder.withFunction(CodecFunctions.javaSerializing(Holder.class, allowed)).build();
+        Holder list = new Holder(new ArrayList<>(Collections.singleton("value")));
+        assertEquals(list.value, codec.decode(codec.encode(list)).value);
+
+        Object[] notAllowed = {
+                new PriorityQueue<>(Collections.singleton("value")), new Hashtable<>(), new StringBuilder("value"),
+                1, Thread.State.NEW, new LinkedList<>()
+        };
+        for (Object value : notAllowed) {
+            byte[] encoded = codec.encode(new Holder(value));
+            UncheckedIOException e = assertThrows(UncheckedIOException.class, () -> codec.decode(encoded));
+            assertTrue(e.getCause() instanceof InvalidClassException);
+        }
+    }
+
+    @Test
+    void testProxyInterfacesAreChecked() {
+        Object proxy = Proxy.newProxyInstance(
+                getClass().getClassLoader(), new Class<?>[]{Runnable.class}, new Handler());
+        Codec<Holder> notAllowed = CodecBuilder.withFunction(CodecFunctions.javaSerializing(Holder.class,
+                Collections.singleton(Handler.class))).build();
+        byte[] encoded = notAllowed.encode(new Holder(proxy));
+        UncheckedIOException e = assertThrows(UncheckedIOException.class, () -> notAllowed.decode(encoded));
+        assertTrue(e.getCause() instanceof InvalidClassException);
+
+        Codec<Holder> allowed = CodecBuilder.withFunction(CodecFunctions.javaSerializing(Holder.class,
+                new HashSet<>(Arrays.asList(Handler.class, Runnable.class)))).build();
+        assertEquals("proxy", allowed.decode(encoded).value.toString());
+    }
+}
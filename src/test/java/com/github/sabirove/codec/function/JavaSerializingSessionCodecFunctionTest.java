@@ -0,0 +1,69 @@
+/*
+ * Copyright 2020 Sabirov Evgenii (sabirov.e@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.sabirove.codec.function;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import com.github.sabirove.codec.Codec;
+import com.github.sabirove.codec.CodecBuilder;
+import com.github.sabirove.codec.DecoderStream;
+import com.github.sabirove.codec.EncoderStream;
+import com.github.sabirove.codec.test_util.Rnd;
+import com.github.sabirove.codec.test_util.State;
+import org.junit.jupiter.api.RepeatedTest;
+
+
+import static org.junit.jupiter.api.Assertions.*;
+
+final class JavaSerializingSessionCodecFunctionTest extends CodecFunctionTestCase<State> {
+
+    @Override
+    CodecFunction<State> getFunction() {
+        return CodecFunctions.javaSerializing(State.class, Rnd.rndInt(1, 20), Rnd.rndInt(1, 100_000));
+    }
+
+    @Override
+    State generateInput() {
+        return State.random();
+    }
+
+    @RepeatedTest(20)
+    void testSessionFootprint() {
+        List<State> values = Stream.generate(State::random)
+                .limit(Rnd.rndInt(10, 50))
+                .collect(Collectors.toList());
+        byte[] session = encode(values, getFunction());
+        byte[] perValue = encode(values, CodecFunctions.javaSerializing(State.class));
+        assertTrue(session.length < perValue.length);
+
+        Codec<State> codec = CodecBuilder.withFunction(getFunction()).build();
+        try (DecoderStream<State> decoder = codec.wrap(new ByteArrayInputStream(session))) {
+            values.forEach(expected -> assertEquals(expected, decoder.read()));
+        }
+    }
+
+    private static byte[] encode(List<State> values, CodecFunction<State> function) {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        try (EncoderStream<State> encoder = CodecBuilder.withFunction(function).build().wrap(bos)) {
+            values.forEach(encoder::write);
+        }
+        return bos.toByteArray();
+    }
+}
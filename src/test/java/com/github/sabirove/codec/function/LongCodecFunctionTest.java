@@ -0,0 +1,81 @@
+/*
+ * Copyright 2020 Sabirov Evgenii (sabirov.e@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.sabirove.codec.function;
+
+import java.io.*;
+
+import com.github.sabirove.codec.Codec;
+import com.github.sabirove.codec.CodecBuilder;
+import com.github.sabirove.codec.DecoderStream;
+import com.github.sabirove.codec.EncoderStream;
+import com.github.sabirove.codec.test_util.Rnd;
+import org.junit.jupiter.api.RepeatedTest;
+import org.junit.jupiter.api.Test;
+
+
+import static org.junit.jupiter.api.Assertions.*;
+
+final class LongCodecFunctionTest extends CodecFunctionTestCase<Long> {
+    private final boolean varLength = Rnd.rndBoolean();
+
+    @Override
+    CodecFunction<Long> getFunction() {
+        return CodecFunctions.longSerializing(varLength);
+    }
+
+    @Override
+    Long generateInput() {
+        return Rnd.rndLong();
+    }
+
+    @RepeatedTest(100)
+    void testPrimitiveStreams() {
+        long[] values = Rnd.rndLongs(1000);
+        Codec<Long> codec = CodecBuilder.withFunction(CodecFunctions.longSerializing(varLength)).build();
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        try (EncoderStream<Long> encoder = codec.wrap(bos)) {
+            for (long value : values) {
+                encoder.writeLong(value);
+            }
+        }
+        try (DecoderStream<Long> decoder = codec.wrap(new ByteArrayInputStream(bos.toByteArray()))) {
+            for (long value : values) {
+                assertEquals(value, decoder.readLong());
+            }
+            assertThrows(UncheckedIOException.class, decoder::readLong);
+        }
+    }
+
+    @RepeatedTest(100)
+    void testFixedEncodingMatchesDataOutput() throws IOException {
+        long value = Rnd.rndLong();
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        CodecFunctions.longSerializing(false).writeLong(value, bos);
+        ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        new DataOutputStream(expected).writeLong(value);
+        assertArrayEquals(expected.toByteArray(), bos.toByteArray());
+    }
+
+    @Test
+    void testUnsupportedFunction() {
+        Codec<String> codec = CodecBuilder.withFunction(CodecFunctions.stringSerializing()).build();
+        EncoderStream<String> encoder = codec.wrap(new ByteArrayOutputStream());
+        assertThrows(IllegalStateException.class, () -> encoder.writeLong((long) 1));
+        DecoderStream<String> decoder = codec.wrap(new ByteArrayInputStream(new byte[8]));
+        assertThrows(IllegalStateException.class, decoder::readLong);
+    }
+}
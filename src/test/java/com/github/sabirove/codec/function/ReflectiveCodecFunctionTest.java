@@ -0,0 +1,211 @@
+/*
+ * Copyright 2020 Sabirov Evgenii (sabirov.e@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.sabirove.codec.function;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Serializable;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import com.github.sabirove.codec.Codec;
+import com.github.sabirove.codec.CodecBuilder;
+import com.github.sabirove.codec.DecoderStream;
+import com.github.sabirove.codec.EncoderStream;
+import com.github.sabirove.codec.test_util.Rnd;
+import org.junit.jupiter.api.RepeatedTest;
+import org.junit.jupiter.api.Test;
+
+
+import static org.junit.jupiter.api.Assertions.*;
+
+final class ReflectiveCodecFunctionTest extends CodecFunctionTestCase<ReflectiveCodecFunctionTest.Order> {
+
+    static class Base implements Serializable {
+        private static final long serialVersionUID = 1L;
+        private long id;
+        protected String owner;
+    }
+
+    static final class Line implements Serializable {
+        private static final long serialVersionUID = 1L;
+        private String sku;
+        private int quantity;
+        private Line next;
+
+        private Line() { }
+
+        Line(String sku, int quantity, Line next) {
+            this.sku = sku;
+            this.quantity = quantity;
+            this.next = next;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Line)) return false;
+            Line line = (Line) o;
+            return quantity == line.quantity && Objects.equals(sku, line.sku) && Objects.equals(next, line.next);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(sku, quantity);
+        }
+    }
+
+    static final class Order extends Base {
+        private static final long serialVersionUID = 1L;
+        private static final long STATIC_IGNORED = 1;
+        private final int count;
+        private final double price;
+        private final boolean flag;
+        private final char code;
+        private final TimeUnit unit;
+        private final Integer boxed;
+        private final Instant created;
+        private final byte[] payload;
+        private final List<Line> lines;
+        private final Map<String, Set<Long>> tags;
+        private final Line[] extra;
+        private byte level;
+        private short shard;
+        private float ratio;
+        private transient int cached;
+
+        private Order() {
+            this(0, 0, false, '0', null, null, null, null, null, null, null);
+        }
+
+        Order(int count, double price, boolean flag, char code, TimeUnit unit, Integer boxed, Instant created,
+              byte[] payload, List<Line> lines, Map<String, Set<Long>> tags, Line[] extra) {
+            this.count = count;
+            this.price = price;
+            this.flag = flag;
+            this.code = code;
+            this.unit = unit;
+            this.boxed = boxed;
+            this.created = created;
+            this.payload = payload;
+            this.lines = lines;
+            this.tags = tags;
+            this.extra = extra;
+        }
+
+        static Order random() {
+            Order order = new Order(
+                    Rnd.rndInt(), Rnd.rndDouble(), Rnd.rndBoolean(), Rnd.rndChar(),
+                    Rnd.rndBoolean() ? Rnd.rndEnum(TimeUnit.class) : null,
+                    Rnd.rndBoolean() ? Rnd.rndInt() : null,
+                    Rnd.rndInstant(),
+                    Rnd.rndBoolean() ? Rnd.rndBytes(100) : null,
+                    Rnd.rndList(10, () -> new Line(Rnd.rndString(10), Rnd.rndInt(),
+                            Rnd.rndBoolean() ? new Line(null, Rnd.rndInt(), null) : null)),
+                    Rnd.rndMap(5, () -> Rnd.rndString(5),
+                            () -> new HashSet<>(Rnd.rndList(5, () -> Rnd.rndBoolean() ? Rnd.rndLong() : null))),
+                    Rnd.rndArray(3, () -> Rnd.rndBoolean() ? new Line("x", 1, null) : null, Line[]::new));
+            ((Base) order).id = Rnd.rndLong();
+            order.owner = Rnd.rndBoolean() ? Rnd.rndString(20) : null;
+            order.level = (byte) Rnd.rndInt();
+            order.shard = (short) Rnd.rndInt();
+            order.ratio = (float) Rnd.rndDouble();
+            order.cached = Rnd.rndInt();
+            return order;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Order)) return false;
+            Order that = (Order) o;
+            return ((Base) this).id == ((Base) that).id && Objects.equals(owner, that.owner)
+                    && count == that.count && Double.compare(price, that.price) == 0 && flag == that.flag
+                    && code == that.code && unit == that.unit && Objects.equals(boxed, that.boxed)
+                    && created.equals(that.created) && Arrays.equals(payload, that.payload)
+                    && lines.equals(that.lines) && tags.equals(that.tags) && Arrays.equals(extra, that.extra)
+                    && level == that.level && shard == that.shard && Float.compare(ratio, that.ratio) == 0;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(count, price);
+        }
+    }
+
+    static final class NoDefaultConstructor {
+        final int value;
+
+        NoDefaultConstructor(int value) {
+            this.value = value;
+        }
+    }
+
+    static final class RawObjectField {
+        Object value;
+    }
+
+    @Override
+    CodecFunction<Order> getFunction() {
+        return CodecFunctions.reflective(Order.class);
+    }
+
+    @Override
+    Order generateInput() {
+        return Order.random();
+    }
+
+    @RepeatedTest(100)
+    void testReadIntoReusesInstance() {
+        Codec<Order> codec = CodecBuilder.withFunction(getFunction()).build();
+        List<Order> orders = Stream.generate(Order::random).limit(Rnd.rndInt(1, 20)).collect(Collectors.toList());
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        try (EncoderStream<Order> encoder = codec.wrap(bos)) {
+            orders.forEach(encoder::write);
+        }
+        Order reuse = Order.random();
+        try (DecoderStream<Order> decoder = codec.wrap(new ByteArrayInputStream(bos.toByteArray()))) {
+            for (Order expected : orders) {
+                assertSame(reuse, decoder.read(reuse));
+                assertEquals(expected, reuse);
+            }
+        }
+    }
+
+    @RepeatedTest(100)
+    void testTransientFieldsAreSkipped() {
+        Codec<Order> codec = CodecBuilder.withFunction(getFunction()).build();
+        Order order = Order.random();
+        assertEquals(0, codec.decode(codec.encode(order)).cached);
+    }
+
+    @RepeatedTest(100)
+    void testSmallerThanJavaSerialization() {
+        Codec<Order> codec = CodecBuilder.withFunction(getFunction()).build();
+        Codec<Order> javaCodec = CodecBuilder.withFunction(CodecFunctions.javaSerializing(Order.class)).build();
+        Order order = Order.random();
+        assertTrue(codec.encode(order).length < javaCodec.encode(order).length);
+    }
+
+    @Test
+    void testUnsupportedTypes() {
+        assertThrows(IllegalArgumentException.class, () -> CodecFunctions.reflective(NoDefaultConstructor.class));
+        assertThrows(IllegalArgumentException.class, () -> CodecFunctions.reflective(RawObjectField.class));
+        assertThrows(IllegalArgumentException.class, () -> CodecFunctions.reflective(Serializable.class));
+        assertThrows(IllegalArgumentException.class, () -> CodecFunctions.reflective(TimeUnit.class));
+    }
+}
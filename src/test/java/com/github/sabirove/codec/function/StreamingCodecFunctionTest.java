@@ -0,0 +1,188 @@
+/*
+ * Copyright 2020 Sabirov Evgenii (sabirov.e@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.sabirove.codec.function;
+
+import java.io.*;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+
+import com.github.sabirove.codec.Codec;
+import com.github.sabirove.codec.CodecBuilder;
+import com.github.sabirove.codec.DecoderStream;
+import com.github.sabirove.codec.EncoderStream;
+import com.github.sabirove.codec.filter.CodecFilters;
+import com.github.sabirove.codec.test_util.Rnd;
+import com.github.sabirove.codec.test_util.RndCodec;
+import org.junit.jupiter.api.RepeatedTest;
+import org.junit.jupiter.api.Test;
+
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StreamingCodecFunctionTest {
+
+    @RepeatedTest(300)
+    void testRandomReadsAndSkips() throws IOException {
+        Codec<InputStream> codec = CodecBuilder.withFunction(CodecFunctions.streaming())
+                .withFilter(RndCodec.rndFilterChain())
+                .build();
+        List<byte[]> values = Stream.generate(() -> Rnd.rndBytes(30000))
+                .limit(Rnd.rndInt(20))
+                .collect(Collectors.toList());
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        try (EncoderStream<InputStream> encoder = codec.wrap(bos)) {
+            values.forEach(v -> encoder.write(new ByteArrayInputStream(v)));
+        }
+
+        try (DecoderStream<InputStream> decoder = codec.wrap(new ByteArrayInputStream(bos.toByteArray()))) {
+            for (byte[] expected : values) {
+                switch (Rnd.rndInt(0, 4)) {
+                    case 0:
+                        decoder.skip(1);
+                        break;
+                    case 1:
+                        decoder.read();
+                        break;
+                    case 2:
+                        int prefix = Rnd.rndInt(0, expected.length + 1);
+                        InputStream view = decoder.read();
+                        assertArrayEquals(Arrays.copyOf(expected, prefix), readFully(view, prefix));
+                        break;
+                    default:
+                        assertArrayEquals(expected, readFully(decoder.read(), Integer.MAX_VALUE));
+                }
+            }
+            assertThrows(UncheckedIOException.class, decoder::read);
+        }
+    }
+
+    @Test
+    void testPreviousViewIsDetached() throws IOException {
+        Codec<InputStream> codec = CodecBuilder.withFunction(CodecFunctions.streaming()).build();
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        try (EncoderStream<InputStream> encoder = codec.wrap(bos)) {
+            encoder.write(new ByteArrayInputStream(new byte[]{1, 2, 3}));
+            encoder.write(new ByteArrayInputStream(new byte[]{4}));
+        }
+        try (DecoderStream<InputStream> decoder = codec.wrap(new ByteArrayInputStream(bos.toByteArray()))) {
+            InputStream first = decoder.read();
+            assertEquals(1, first.read());
+            InputStream second = decoder.read();
+            assertThrows(IOException.class, first::read);
+            assertEquals(4, second.read());
+            assertEquals(-1, second.read());
+        }
+    }
+
+    @Test
+    void testTruncatedValue() {
+        Codec<InputStream> codec = CodecBuilder.withFunction(CodecFunctions.streaming()).build();
+        byte[] encoded = codec.encode(new ByteArrayInputStream(Rnd.rndBytes(100, 200)));
+        byte[] truncated = Arrays.copyOf(encoded, encoded.length - 10);
+        try (DecoderStream<InputStream> decoder = codec.wrap(new ByteArrayInputStream(truncated))) {
+            InputStream view = decoder.read();
+            assertThrows(EOFException.class, () -> readFully(view, Integer.MAX_VALUE));
+        }
+    }
+
+    @Test
+    void testSingleValueDecode() throws IOException {
+        byte[] value = Rnd.rndBytes(100, 200);
+        Codec<InputStream> plain = CodecBuilder.withFunction(CodecFunctions.streaming()).build();
+        byte[] encoded = plain.encode(new ByteArrayInputStream(value));
+        assertArrayEquals(value, readFully(plain.decode(encoded), Integer.MAX_VALUE));
+
+        Codec<InputStream> deflated = CodecBuilder.withFunction(CodecFunctions.streaming())
+                .withFilter(CodecFilters.compressWithDeflate())
+                .build();
+        byte[] compressed = deflated.encode(new ByteArrayInputStream(value));
+        assertThrows(IllegalStateException.class, () -> deflated.decode(compressed));
+        try (DecoderStream<InputStream> decoder = deflated.wrap(new ByteArrayInputStream(compressed))) {
+            assertArrayEquals(value, readFully(decoder.read(), Integer.MAX_VALUE));
+        }
+    }
+
+    @Test
+    void testLargeValue() throws IOException {
+        Codec<InputStream> codec = CodecBuilder.withFunction(CodecFunctions.streaming())
+                .withFilter(CodecFilters.compressWithDeflate())
+                .build();
+        long size = 64L << 20;
+        CheckedInputStream source = new CheckedInputStream(new PatternInputStream(size), new CRC32());
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        try (EncoderStream<InputStream> encoder = codec.wrap(bos)) {
+            encoder.write(source);
+        }
+        try (DecoderStream<InputStream> decoder = codec.wrap(new ByteArrayInputStream(bos.toByteArray()))) {
+            CheckedInputStream decoded = new CheckedInputStream(decoder.read(), new CRC32());
+            byte[] buf = new byte[4096];
+            long total = 0;
+            int read;
+            while ((read = decoded.read(buf)) != -1) {
+                total += read;
+            }
+            assertEquals(size, total);
+            assertEquals(source.getChecksum().getValue(), decoded.getChecksum().getValue());
+        }
+    }
+
+    private static byte[] readFully(InputStream in, int limit) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buf = new byte[Rnd.rndInt(1, 5000)];
+        while (out.size() < limit) {
+            int read = in.read(buf, 0, Math.min(buf.length, limit - out.size()));
+            if (read == -1) {
+                break;
+            }
+            out.write(buf, 0, read);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Generates the bytes on the fly so that the value is never held in memory as a whole.
+     */
+    private static final class PatternInputStream extends InputStream {
+        private final long size;
+        private long position;
+
+        PatternInputStream(long size) {
+            this.size = size;
+        }
+
+        @Override
+        public int read() {
+            return position < size ? (int) (position++ * 31 >>> 7) & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (position >= size) {
+                return -1;
+            }
+            int read = (int) Math.min(len, size - position);
+            for (int i = 0; i < read; i++) {
+                b[off + i] = (byte) (position++ * 31 >>> 7);
+            }
+            return read;
+        }
+    }
+}
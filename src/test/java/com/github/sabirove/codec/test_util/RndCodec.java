@@ -22,7 +22,9 @@ import com.github.sabirove.codec.filter.CodecBufferSpec;
 import com.github.sabirove.codec.filter.CodecFilter;
 import com.github.sabirove.codec.filter.CodecFilters;
 import com.github.sabirove.codec.function.CodecFunctions;
+import com.github.sabirove.codec.util.StateStreamSpec;
 
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.util.function.Supplier;
 import java.util.stream.Stream;
@@ -34,10 +36,12 @@ public class RndCodec {
     private static final CodecFilter[] FILTER_VARIETY = {
             CodecFilters.compressWithDeflate(),
             CodecFilters.compressWithGzip(),
+            CodecFilters.compressWithLz4(),
             CodecFilters.encodeWithBase64(),
             CodecFilters.encodeWithBase64Mime(),
             CodecFilters.encodeWithBase64Url(),
-            CodecFilters.encryptWithAes()
+            CodecFilters.encryptWithAes(),
+            CodecFilters.checksumCrc32c(4096)
     };
 
     @SuppressWarnings("unchecked")
@@ -57,8 +61,11 @@ public class RndCodec {
 
     private static final FuncAndGen<?>[] FUNC_VS_GEN_VARIETY = new FuncAndGen[] {
             new FuncAndGen<>(CodecFunctions.binarySerializing(State::write, State::read), State::random),
+            new FuncAndGen<>(CodecFunctions.binarySerializing(State::write, State::read,
+                    StateStreamSpec.ofDefault().withStringDictionary(16).withResetOnFlush()), State::random),
             new FuncAndGen<>(CodecFunctions.javaSerializing(State.class), State::random),
             new FuncAndGen<>(CodecFunctions.binary(), () -> rndBytes(21321)),
+            new FuncAndGen<>(CodecFunctions.binaryView(), () -> ByteBuffer.wrap(rndBytes(21321))),
             new FuncAndGen<>(CodecFunctions.binaryChunked(64, true), () -> rndBytes(64, 65)),
             new FuncAndGen<>(CodecFunctions.stringSerializing(), () -> rndString(14835, StandardCharsets.UTF_8))
     };
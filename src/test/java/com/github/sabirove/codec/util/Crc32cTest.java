@@ -0,0 +1,69 @@
+/*
+ * Copyright 2019 Sabirov Evgenii (sabirov.e@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.sabirove.codec.util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.zip.Checksum;
+
+import com.github.sabirove.codec.test_util.Rnd;
+import org.junit.jupiter.api.RepeatedTest;
+import org.junit.jupiter.api.Test;
+
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class Crc32cTest {
+
+    @Test
+    void testKnownValues() {
+        assertEquals(0x00000000L, crc(new Crc32c(), new byte[0]));
+        assertEquals(0xE3069283L, crc(new Crc32c(), "123456789".getBytes(StandardCharsets.US_ASCII)));
+        assertEquals(0x8A9136AAL, crc(new Crc32c(), new byte[32]));
+        byte[] ones = new byte[32];
+        Arrays.fill(ones, (byte) 0xFF);
+        assertEquals(0x62A8AB43L, crc(new Crc32c(), ones));
+        assertEquals(0xE3069283L, crc(Crc32c.create(), "123456789".getBytes(StandardCharsets.US_ASCII)));
+    }
+
+    @RepeatedTest(500)
+    void testRandomRanges() {
+        byte[] bytes = Rnd.rndBytes(1000);
+        int off = Rnd.rndInt(0, bytes.length + 1);
+        int len = Rnd.rndInt(0, bytes.length - off + 1);
+        Checksum expected = Crc32c.create();
+        expected.update(bytes, off, len);
+
+        Checksum actual = new Crc32c();
+        int split = off + Rnd.rndInt(0, len + 1);
+        actual.update(bytes, off, split - off);
+        if (split < off + len) {
+            actual.update(bytes[split]);
+            actual.update(bytes, split + 1, off + len - split - 1);
+        }
+        assertEquals(expected.getValue(), actual.getValue());
+
+        actual.reset();
+        actual.update(bytes, off, len);
+        assertEquals(expected.getValue(), actual.getValue());
+    }
+
+    private static long crc(Checksum checksum, byte[] bytes) {
+        checksum.update(bytes, 0, bytes.length);
+        return checksum.getValue();
+    }
+}
@@ -55,6 +55,23 @@ class SafeInputStreamTest {
         assertEquals(-1, sis.read());
     }
 
+    @RepeatedTest(50)
+    void testFramedSkip() throws IOException {
+        FramedInputStream fis = new FramedInputStream();
+        int total = Stream.generate(() -> Rnd.rndBytes(128))
+                .limit(100)
+                .peek(fis::offer)
+                .mapToInt(b -> b.length)
+                .sum();
+        int skip = Rnd.rndInt(total + 1);
+
+        SafeInputStream sis = new SafeInputStream(fis);
+        assertEquals(skip, sis.skip(skip));
+        SafeInputStream.skipFully(sis, total - skip);
+        assertEquals(0, sis.skip(1));
+        assertThrows(EOFException.class, () -> SafeInputStream.skipFully(sis, 1));
+    }
+
     @Test
     void testEmptyRead() throws IOException {
         ByteArrayInputStream bis = new ByteArrayInputStream(new byte[0]);
@@ -17,6 +17,7 @@
 package com.github.sabirove.codec.util;
 
 import java.io.*;
+import java.time.Instant;
 import java.util.*;
 import java.util.concurrent.TimeUnit;
 import java.util.function.*;
@@ -30,6 +31,9 @@ import org.junit.jupiter.api.RepeatedTest;
 
 import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 @SuppressWarnings({"resource", "rawtypes"})
 class StateInputOutputStreamTest {
@@ -84,29 +88,262 @@ class StateInputOutputStreamTest {
 
         //read and assert
         for (int i = 0; i < objects.size(); i++) {
-            Object actual = specs.get(i).reader.apply(sis);
-            Object expected = objects.get(i);
-            if (actual instanceof char[]) {
-                assertArrayEquals((char[]) expected, (char[]) actual);
-            } else if (actual instanceof byte[]) {
-                assertArrayEquals((byte[]) expected, (byte[]) actual);
+            assertObject(objects.get(i), specs.get(i).reader.apply(sis));
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    @RepeatedTest(500)
+    void testCountingMode() {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        StateOutputStream sos = new StateOutputStream(bos);
+        StateOutputStream counting = StateOutputStream.counting();
+        for (int i = Rnd.rndInt(50); i > 0; i--) {
+            Spec spec = specs.get(Rnd.rndInt(0, specs.size()));
+            Object o = spec.generator.get();
+            spec.writer.apply(sos, o);
+            spec.writer.apply(counting, o);
+            assertEquals(bos.size(), counting.size());
+        }
+        assertThrows(IllegalStateException.class, sos::size);
+    }
+
+    @SuppressWarnings("unchecked")
+    @RepeatedTest(500)
+    void testRandomObjectsSkipping() {
+        List<Spec> specs = IntStream.generate(() -> Rnd.rndInt(0, this.specs.size()))
+                .limit(Rnd.rndInt(50))
+                .mapToObj(this.specs::get)
+                .collect(Collectors.toList());
+
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        StateOutputStream sos = new StateOutputStream(bos);
+        List<Object> objects = new ArrayList<>(specs.size());
+        for (Spec spec : specs) {
+            Object o = spec.generator.get();
+            spec.writer.apply(sos, o);
+            objects.add(o);
+        }
+
+        ByteArrayInputStream bis = new ByteArrayInputStream(bos.toByteArray());
+        StateInputStream sis = new StateInputStream(bis);
+        for (int i = 0; i < objects.size(); i++) {
+            if (Rnd.rndBoolean()) {
+                specs.get(i).skipper.accept(sis);
             } else {
-                assertEquals(expected, actual);
+                assertObject(objects.get(i), specs.get(i).reader.apply(sis));
             }
         }
+        TestUtil.assertThrowsIO(EOFException.class, sis::getByte);
+    }
+
+    @RepeatedTest(100)
+    void testStateProjection() {
+        List<State> states = Stream.generate(State::random)
+                .limit(Rnd.rndInt(100))
+                .collect(Collectors.toList());
+
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        StateOutputStream sos = new StateOutputStream(bos);
+        for (int i = 0; i < states.size(); i++) {
+            State.write(sos, states.get(i));
+            sos.putInt(i);
+        }
+
+        ByteArrayInputStream bis = new ByteArrayInputStream(bos.toByteArray());
+        StateInputStream sis = new StateInputStream(bis);
+        for (int i = 0; i < states.size(); i++) {
+            sis.skipString()
+                    .skipEnum()
+                    .skipByte()
+                    .skipShort()
+                    .skipInt()
+                    .skipLong()
+                    .skipFloat()
+                    .skipDouble()
+                    .skipChar()
+                    .skipBoolean()
+                    .skipBytes()
+                    .skipShorts()
+                    .skipInts()
+                    .skipLongs()
+                    .skipFloats()
+                    .skipDoubles()
+                    .skipChars()
+                    .skipBooleans()
+                    .skipLocalTime()
+                    .skipLocalDate()
+                    .skipLocalDateTime()
+                    .skipZonedDateTime()
+                    .skipZoneOffset()
+                    .skipInstant()
+                    .skipDate()
+                    .skipUUID()
+                    .skipBigInteger()
+                    .skipBigDecimal()
+                    .skipCollection(StateInputStream::skipString)
+                    .skipArray(StateInputStream::skipInt)
+                    .skipMap(StateInputStream::skipString, StateInputStream::skipLong);
+            assertEquals(i, sis.getInt());
+        }
+        TestUtil.assertThrowsIO(EOFException.class, sis::skipByte);
+    }
+
+    private static void assertObject(Object expected, Object actual) {
+        if (actual instanceof char[]) {
+            assertArrayEquals((char[]) expected, (char[]) actual);
+        } else if (actual instanceof byte[]) {
+            assertArrayEquals((byte[]) expected, (byte[]) actual);
+        } else if (actual instanceof boolean[]) {
+            assertArrayEquals((boolean[]) expected, (boolean[]) actual);
+        } else if (actual instanceof Object[]) {
+            assertArrayEquals((Object[]) expected, (Object[]) actual);
+        } else {
+            assertEquals(expected, actual);
+        }
+    }
+
+    @RepeatedTest(500)
+    void testBitsSerialization() {
+        int[] widths = IntStream.generate(() -> Rnd.rndInt(1, Long.SIZE + 1))
+                .limit(Rnd.rndInt(100))
+                .toArray();
+        long[] values = LongStream.generate(Rnd::rndLong)
+                .limit(widths.length)
+                .toArray();
+        boolean[] booleans = Rnd.rndBooleans(100);
+
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        StateOutputStream sos = new StateOutputStream(bos);
+        for (int i = 0; i < widths.length; i++) {
+            sos.putBits(values[i], widths[i]);
+        }
+        sos.alignBits().putInt(42);
+        for (boolean b : booleans) {
+            sos.putBit(b);
+        }
+        sos.flush();
+
+        int totalBits = IntStream.of(widths).sum();
+        assertEquals((totalBits + 7) / 8 + Integer.BYTES + (booleans.length + 7) / 8, bos.size());
+
+        ByteArrayInputStream bis = new ByteArrayInputStream(bos.toByteArray());
+        StateInputStream sis = new StateInputStream(bis);
+        for (int i = 0; i < widths.length; i++) {
+            long mask = widths[i] == Long.SIZE ? -1L : (1L << widths[i]) - 1;
+            assertEquals(values[i] & mask, sis.getBits(widths[i]));
+        }
+        assertEquals(42, sis.alignBits().getInt());
+        for (boolean b : booleans) {
+            assertEquals(b, sis.getBit());
+        }
+        sis.alignBits();
+        TestUtil.assertThrowsIO(EOFException.class, sis::getByte);
+    }
+
+    @RepeatedTest(100)
+    void testPackedValuesAfterPendingBits() {
+        int width = Rnd.rndInt(1, Byte.SIZE);
+        boolean[] booleans = Rnd.rndBooleans(100);
+        BitSet bitSet = BitSet.valueOf(Rnd.rndLongs(9));
+
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        StateOutputStream sos = new StateOutputStream(bos);
+        sos.putBits(1, width).putPackedBooleans(booleans);
+        sos.putBits(1, width).putBitSet(bitSet);
+        sos.putBits(1, width).putPackedBooleans(booleans).flush();
+
+        StateInputStream sis = new StateInputStream(new ByteArrayInputStream(bos.toByteArray()));
+        assertEquals(1, sis.getBits(width));
+        assertArrayEquals(booleans, sis.getPackedBooleans());
+        assertEquals(1, sis.getBits(width));
+        assertEquals(bitSet, sis.getBitSet());
+        assertEquals(1, sis.getBits(width));
+        sis.skipPackedBooleans();
+        TestUtil.assertThrowsIO(EOFException.class, sis::getByte);
+    }
+
+    @RepeatedTest(500)
+    void testStringDictionarySerialization() {
+        String[] pool = Stream.generate(() -> Rnd.rndString(64))
+                .limit(Rnd.rndInt(1, 20))
+                .toArray(String[]::new);
+        List<CharSequence> strings = Stream.generate(() -> Rnd.rndElem(pool))
+                .limit(Rnd.rndInt(200))
+                .map(str -> Rnd.rndBoolean() ? str : new StringBuilder(str))
+                .collect(Collectors.toList());
+        int maxSize = Rnd.rndInt(1, 25);
+
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        StateOutputStream sos = new StateOutputStream(bos).withStringDictionary(maxSize);
+        ByteArrayOutputStream plainBos = new ByteArrayOutputStream();
+        StateOutputStream plainSos = new StateOutputStream(plainBos);
+        for (CharSequence str : strings) {
+            sos.putString(str).putInt(str.length());
+            plainSos.putString(str).putInt(str.length());
+        }
+        assertTrue(bos.size() <= plainBos.size() + strings.size());
+
+        ByteArrayInputStream bis = new ByteArrayInputStream(bos.toByteArray());
+        StateInputStream sis = new StateInputStream(bis).withStringDictionary(maxSize);
+        Map<String, String> firstRead = new HashMap<>();
+        for (CharSequence str : strings) {
+            String actual = sis.getString();
+            assertEquals(str.toString(), actual);
+            assertEquals(str.length(), sis.getInt());
+            String first = firstRead.putIfAbsent(actual, actual);
+            if (first != null && pool.length <= maxSize) {
+                assertSame(first, actual);
+            }
+        }
+        TestUtil.assertThrowsIO(EOFException.class, sis::getByte);
+    }
+
+    @RepeatedTest(500)
+    void testNestedSharedValuesSerialization() {
+        UUID[] ids = Stream.generate(Rnd::rndUUID)
+                .limit(Rnd.rndInt(1, 10))
+                .toArray(UUID[]::new);
+        List<List<UUID>> groups = Stream.generate(() -> Rnd.rndList(5, () -> Rnd.rndElem(ids)))
+                .limit(Rnd.rndInt(1, 5))
+                .collect(Collectors.toList());
+        List<List<UUID>> values = Stream.generate(() -> groups.get(Rnd.rndInt(groups.size())))
+                .limit(Rnd.rndInt(100))
+                .collect(Collectors.toList());
+        int maxSize = Rnd.rndInt(1, 20);
+        boolean identity = Rnd.rndBoolean();
+
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        StateOutputStream sos = new StateOutputStream(bos).withSharedValues(maxSize, identity);
+        for (List<UUID> value : values) {
+            sos.putShared(value, (s, l) -> s.putCollection(l, (s2, id) -> s2.putShared(id, StateOutputStream::putUUID)));
+            if (Rnd.rndInt(10) == 0) {
+                sos.resetReferences();
+            }
+        }
+
+        ByteArrayInputStream bis = new ByteArrayInputStream(bos.toByteArray());
+        StateInputStream sis = new StateInputStream(bis).withSharedValues(maxSize);
+        for (List<UUID> expected : values) {
+            assertEquals(expected, sis.getShared(s -> s.getCollection(s2 -> s2.getShared(StateInputStream::getUUID))));
+        }
+        TestUtil.assertThrowsIO(EOFException.class, sis::getByte);
     }
 
     private static final class Spec<T> {
         final Supplier<T> generator;
         final BiFunction<StateOutputStream, T, StateOutputStream> writer;
         final Function<StateInputStream, T> reader;
+        final Consumer<StateInputStream> skipper;
 
         Spec(Supplier<T> generator,
              BiFunction<StateOutputStream, T, StateOutputStream> writer,
-             Function<StateInputStream, T> reader) {
+             Function<StateInputStream, T> reader,
+             Consumer<StateInputStream> skipper) {
             this.generator = generator;
             this.writer = writer;
             this.reader = reader;
+            this.skipper = skipper;
         }
     }
 
@@ -114,72 +351,136 @@ class StateInputOutputStreamTest {
             new Spec<>(
                     Rnd::rndBigDecimal,
                     StateOutputStream::putBigDecimal,
-                    StateInputStream::getBigDecimal
+                    StateInputStream::getBigDecimal,
+                    StateInputStream::skipBigDecimal
             ),
             new Spec<>(
                     () -> Rnd.rndMap(20, () -> Rnd.rndString(1024), Rnd::rndBoolean),
                     (s, m) -> s.putMap(m, StateOutputStream::putString, StateOutputStream::putBoolean),
-                    s -> s.getMap(StateInputStream::getString, StateInputStream::getBoolean)
+                    s -> s.getMap(StateInputStream::getString, StateInputStream::getBoolean),
+                    s -> s.skipMap(StateInputStream::skipString, StateInputStream::skipBoolean)
             ),
             new Spec<>(
                     Rnd::rndLong,
                     StateOutputStream::putSignedVarLong,
-                    StateInputStream::getSignedVarLong
+                    StateInputStream::getSignedVarLong,
+                    StateInputStream::skipVarint
+            ),
+            new Spec<>(
+                    Rnd::rndInt,
+                    StateOutputStream::putSignedVarInt,
+                    StateInputStream::getSignedVarInt,
+                    StateInputStream::skipVarint
             ),
             new Spec<>(
                     () -> Rnd.rndInt(0, Integer.MAX_VALUE),
                     StateOutputStream::putUnsignedVarInt,
-                    StateInputStream::getUnsignedVarInt
+                    StateInputStream::getUnsignedVarInt,
+                    StateInputStream::skipVarint
             ),
             new Spec<>(
                     () -> Rnd.rndBytes(9999),
                     StateOutputStream::putBytes,
-                    StateInputStream::getBytes
+                    StateInputStream::getBytes,
+                    StateInputStream::skipBytes
             ),
             new Spec<>(
                     () -> Rnd.rndString(3467),
                     StateOutputStream::putString,
-                    StateInputStream::getString
+                    StateInputStream::getString,
+                    StateInputStream::skipString
             ),
             new Spec<>(
                     () -> Rnd.rndChars(744),
                     StateOutputStream::putChars,
-                    StateInputStream::getChars
+                    StateInputStream::getChars,
+                    StateInputStream::skipChars
             ),
             new Spec<>(
                     Rnd::rndUUID,
                     StateOutputStream::putUUID,
-                    StateInputStream::getUUID
+                    StateInputStream::getUUID,
+                    StateInputStream::skipUUID
             ),
             new Spec<>(
                     Rnd::rndDouble,
                     StateOutputStream::putDouble,
-                    StateInputStream::getDouble
+                    StateInputStream::getDouble,
+                    StateInputStream::skipDouble
             ),
             new Spec<>(
                     Rnd::rndLong,
                     StateOutputStream::putLong,
-                    StateInputStream::getLong
+                    StateInputStream::getLong,
+                    StateInputStream::skipLong
             ),
             new Spec<>(
                     Rnd::rndShort,
                     StateOutputStream::putShort,
-                    StateInputStream::getShort
+                    StateInputStream::getShort,
+                    StateInputStream::skipShort
             ),
             new Spec<>(
                     Rnd::rndLocalDateTime,
                     StateOutputStream::putLocalDateTime,
-                    StateInputStream::getLocalDateTime
+                    StateInputStream::getLocalDateTime,
+                    StateInputStream::skipLocalDateTime
             ),
             new Spec<>(
                     () -> Rnd.rndEnum(TimeUnit.class),
                     StateOutputStream::putEnum,
-                    (s) -> s.getEnum(TimeUnit.class)
+                    (s) -> s.getEnum(TimeUnit.class),
+                    StateInputStream::skipEnum
+            ),
+            new Spec<>(
+                    () -> Rnd.rndBooleans(517),
+                    StateOutputStream::putPackedBooleans,
+                    StateInputStream::getPackedBooleans,
+                    StateInputStream::skipPackedBooleans
+            ),
+            new Spec<>(
+                    () -> BitSet.valueOf(Rnd.rndLongs(9)),
+                    StateOutputStream::putBitSet,
+                    StateInputStream::getBitSet,
+                    StateInputStream::skipBitSet
             ),
             new Spec<>(
                     () -> Rnd.rndList(175, Rnd::rndFloat),
                     (s, l) -> s.putCollection(l, StateOutputStream::putFloat),
-                    s -> s.getCollection(StateInputStream::getFloat)
+                    s -> s.getCollection(StateInputStream::getFloat),
+                    s -> s.skipCollection(StateInputStream::skipFloat)
+            ),
+            new Spec<>(
+                    () -> Rnd.rndList(175, Rnd::rndUUID),
+                    (s, l) -> s.putCollection(l, StateOutputStream::putUUID),
+                    s -> s.getCollection(size -> new LinkedList<>(), StateInputStream::getUUID),
+                    s -> s.skipCollection(StateInputStream::skipUUID)
+            ),
+            new Spec<>(
+                    () -> Rnd.rndArray(175, Rnd::rndInstant, Instant[]::new),
+                    (s, a) -> s.putArray(a, StateOutputStream::putInstant),
+                    s -> s.getArray(Instant[]::new, StateInputStream::getInstant),
+                    s -> s.skipArray(StateInputStream::skipInstant)
+            ),
+            new Spec<>(
+                    () -> Rnd.rndArray(175, Rnd::rndLong, Long[]::new),
+                    (s, a) -> s.putArray(a, StateOutputStream::putSignedVarLong),
+                    s -> s.getArray(Long.class, StateInputStream::getSignedVarLong),
+                    s -> s.skipArray(StateInputStream::skipVarint)
+            ),
+            new Spec<>(
+                    () -> new LinkedHashMap<>(Rnd.rndMap(30, Rnd::rndInt, () -> Rnd.rndString(64))),
+                    (s, m) -> s.putMap(m, StateOutputStream::putInt, StateOutputStream::putString),
+                    s -> s.getMap(LinkedHashMap::new, StateInputStream::getInt, StateInputStream::getString),
+                    s -> s.skipMap(StateInputStream::skipInt, StateInputStream::skipString)
+            ),
+            new Spec<>(
+                    () -> new EnumMap<>(Rnd.rndMap(5, () -> Rnd.rndEnum(TimeUnit.class), Rnd::rndDouble)),
+                    (s, m) -> s.putMap(m, StateOutputStream::putEnum, StateOutputStream::putDouble),
+                    s -> s.getMap(size -> new EnumMap<>(TimeUnit.class),
+                            in -> in.getEnum(TimeUnit.class),
+                            StateInputStream::getDouble),
+                    s -> s.skipMap(StateInputStream::skipEnum, StateInputStream::skipDouble)
             ));
 
 }
@@ -0,0 +1,154 @@
+/*
+ * Copyright 2020 Sabirov Evgenii (sabirov.e@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.sabirove.codec.util;
+
+import java.io.ByteArrayOutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+
+import com.github.sabirove.codec.test_util.Rnd;
+import org.junit.jupiter.api.RepeatedTest;
+import org.junit.jupiter.api.Test;
+
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StateRecordViewTest {
+    private static final StateRecordLayout LAYOUT = StateRecordLayout.of(
+            StateInputStream::skipString,
+            StateInputStream::skipVarint,
+            StateInputStream::skipInts,
+            StateInputStream::skipPackedBooleans,
+            s -> s.skipMap(StateInputStream::skipString, StateInputStream::skipUUID),
+            StateInputStream::skipDouble
+    );
+
+    private static final List<Function<StateInputStream, Object>> READERS = Arrays.asList(
+            StateInputStream::getString,
+            StateInputStream::getSignedVarLong,
+            StateInputStream::getInts,
+            StateInputStream::getPackedBooleans,
+            s -> s.getMap(StateInputStream::getString, StateInputStream::getUUID),
+            StateInputStream::getDouble
+    );
+
+    @RepeatedTest(500)
+    void testRandomFieldAccess() {
+        Object[] fields = randomFields();
+        byte[] record = write(fields);
+        ByteBuffer buffer = wrapRandomly(record);
+        StateRecordView view = LAYOUT.view(buffer);
+        int position = buffer.position();
+
+        IntStream.generate(() -> Rnd.rndInt(0, fields.length))
+                .limit(Rnd.rndInt(20))
+                .forEach(i -> assertField(fields[i], view.get(i, READERS.get(i))));
+        assertEquals(record.length, view.offset(LAYOUT.fieldCount()));
+        for (int i = fields.length - 1; i >= 0; i--) {
+            assertField(fields[i], view.get(i, READERS.get(i)));
+        }
+        assertEquals(position, buffer.position());
+        assertEquals(ByteBuffer.wrap(record), view.bytes());
+    }
+
+    @Test
+    void testOffsetsAreCached() {
+        AtomicInteger skips = new AtomicInteger();
+        StateRecordLayout layout = StateRecordLayout.of(
+                s -> {
+                    skips.incrementAndGet();
+                    s.skipString();
+                },
+                s -> {
+                    skips.incrementAndGet();
+                    s.skipInt();
+                },
+                StateInputStream::skipLong);
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        new StateOutputStream(bos).putString("key").putInt(42).putLong(-1L);
+        StateRecordView view = layout.view(bos.toByteArray());
+
+        assertEquals("key", view.get(0, StateInputStream::getString));
+        assertEquals(0, skips.get());
+        assertEquals(-1L, (long) view.get(2, StateInputStream::getLong));
+        assertEquals(2, skips.get());
+        assertEquals(42, (int) view.get(1, StateInputStream::getInt));
+        assertEquals(-1L, (long) view.get(2, StateInputStream::getLong));
+        assertEquals(2, skips.get());
+        assertEquals(bos.size(), view.offset(3));
+        assertEquals(2, skips.get());
+    }
+
+    @Test
+    void testInvalidAccess() {
+        byte[] record = write(randomFields());
+        StateRecordView view = LAYOUT.view(Arrays.copyOf(record, record.length - 9));
+        assertThrows(UncheckedIOException.class, () -> view.get(5, StateInputStream::getDouble));
+        assertThrows(IndexOutOfBoundsException.class, () -> view.get(6, StateInputStream::getDouble));
+        assertThrows(IndexOutOfBoundsException.class, () -> view.get(-1, StateInputStream::getDouble));
+        assertThrows(IllegalArgumentException.class, StateRecordLayout::of);
+    }
+
+    private static Object[] randomFields() {
+        Map<String, UUID> map = Rnd.rndMap(20, () -> Rnd.rndString(10), Rnd::rndUUID);
+        return new Object[]{
+                Rnd.rndString(100), Rnd.rndLong(), Rnd.rndInts(50), Rnd.rndBooleans(70), map, Rnd.rndDouble()
+        };
+    }
+
+    private static byte[] write(Object[] fields) {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        new StateOutputStream(bos)
+                .putString((String) fields[0])
+                .putSignedVarLong((Long) fields[1])
+                .putInts((int[]) fields[2])
+                .putPackedBooleans((boolean[]) fields[3])
+                .putMap(mapOf(fields[4]), StateOutputStream::putString, StateOutputStream::putUUID)
+                .putDouble((Double) fields[5]);
+        return bos.toByteArray();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, UUID> mapOf(Object value) {
+        return (Map<String, UUID>) value;
+    }
+
+    private static ByteBuffer wrapRandomly(byte[] record) {
+        int offset = Rnd.rndInt(0, 10);
+        ByteBuffer buffer = Rnd.rndBoolean()
+                ? ByteBuffer.allocate(offset + record.length)
+                : ByteBuffer.allocateDirect(offset + record.length);
+        buffer.position(offset);
+        buffer.put(record);
+        buffer.position(offset);
+        return buffer;
+    }
+
+    private static void assertField(Object expected, Object actual) {
+        if (expected instanceof int[]) {
+            assertArrayEquals((int[]) expected, (int[]) actual);
+        } else if (expected instanceof boolean[]) {
+            assertArrayEquals((boolean[]) expected, (boolean[]) actual);
+        } else {
+            assertEquals(expected, actual);
+        }
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright 2020 Sabirov Evgenii (sabirov.e@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.sabirove.codec.util;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+
+import com.github.sabirove.codec.test_util.Rnd;
+import org.junit.jupiter.api.RepeatedTest;
+import org.junit.jupiter.api.Test;
+
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class Utf8Test {
+
+    @Test
+    void testEdgeCases() {
+        utf8Test("");
+        utf8Test("ascii only");
+        utf8Test("latin-1: \u00e9\u00e8\u00ff");
+        utf8Test("cyrillic: \u043f\u0440\u0438\u0432\u0435\u0442");
+        utf8Test("surrogate pair: \ud83d\ude00");
+        utf8Test("unpaired high surrogate: \ud83d");
+        utf8Test("unpaired low surrogate: \ude00 and pair \ud83d\ude00");
+        utf8Test("\ud83d\ud83d\ude00\ude00");
+        //multi-byte sequences crossing the encoding chunk boundaries
+        utf8Test(new String(new char[1000]).replace('\0', '\u00e9'));
+        utf8Test(new String(new char[509]).replace('\0', 'a') + "\ud83d\ude00\u043f");
+    }
+
+    @RepeatedTest(500)
+    void testRandomChars() {
+        utf8Test(new String(Rnd.rndChars(1024)));
+    }
+
+    @RepeatedTest(500)
+    void testRandomStrings() {
+        utf8Test(Rnd.rndString(1024));
+    }
+
+    private static void utf8Test(String value) {
+        byte[] expected = value.getBytes(StandardCharsets.UTF_8);
+        CharSequence builder = new StringBuilder(value);
+
+        assertEquals(expected.length, Utf8.encodedLength(value));
+        assertEquals(expected.length, Utf8.encodedLength(builder));
+
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        Utf8.write(value, bos);
+        assertArrayEquals(expected, bos.toByteArray());
+
+        bos.reset();
+        Utf8.write(builder, bos);
+        assertArrayEquals(expected, bos.toByteArray());
+
+        bos.reset();
+        new StateOutputStream(bos).putString(builder);
+        ByteArrayOutputStream legacy = new ByteArrayOutputStream();
+        new StateOutputStream(legacy).putBytes(expected);
+        assertArrayEquals(legacy.toByteArray(), bos.toByteArray());
+    }
+}
@@ -19,6 +19,7 @@ package com.github.sabirove.codec.util;
 import java.io.*;
 import java.util.function.BiConsumer;
 import java.util.function.Function;
+import java.util.function.ToIntFunction;
 
 import org.junit.jupiter.api.Test;
 
@@ -101,29 +102,35 @@ class VarintTest {
     }
 
     private static void unsignedVarIntTest(int value, int expectedLength) {
-        intTest(value, expectedLength, Varint::writeUnsignedVarInt, Varint::readUnsignedVarInt);
+        intTest(value, expectedLength, Varint::writeUnsignedVarInt, Varint::readUnsignedVarInt,
+                Varint::unsignedVarIntSize);
     }
 
     private static void signedVarIntTest(int value, int expectedLength) {
-        intTest(value, expectedLength, Varint::writeSignedVarInt, Varint::readSignedVarInt);
+        intTest(value, expectedLength, Varint::writeSignedVarInt, Varint::readSignedVarInt,
+                Varint::signedVarIntSize);
     }
 
     private static void unsignedVarLongTest(long value, int expectedLength) {
-        longTest(value, expectedLength, Varint::writeUnsignedVarLong, Varint::readUnsignedVarLong);
+        longTest(value, expectedLength, Varint::writeUnsignedVarLong, Varint::readUnsignedVarLong,
+                Varint::unsignedVarLongSize);
     }
 
     private static void signedVarLongTest(long value, int expectedLength) {
-        longTest(value, expectedLength, Varint::writeSignedVarLong, Varint::readSignedVarLong);
+        longTest(value, expectedLength, Varint::writeSignedVarLong, Varint::readSignedVarLong,
+                Varint::signedVarLongSize);
     }
 
     private static void intTest(int value,
                                 int expectedLength,
                                 BiConsumer<Integer, OutputStream> writer,
-                                Function<InputStream, Integer> reader) {
+                                Function<InputStream, Integer> reader,
+                                ToIntFunction<Integer> size) {
         ByteArrayOutputStream out = new ByteArrayOutputStream();
         writer.accept(value, out);
         byte[] bytes = out.toByteArray();
         assertEquals(expectedLength, bytes.length);
+        assertEquals(expectedLength, size.applyAsInt(value));
         ByteArrayInputStream bis = new ByteArrayInputStream(bytes);
         assertEquals(value, (int) reader.apply(bis));
     }
@@ -131,11 +138,13 @@ class VarintTest {
     private static void longTest(long value,
                                  int expectedLength,
                                  BiConsumer<Long, OutputStream> writer,
-                                 Function<InputStream, Long> reader) {
+                                 Function<InputStream, Long> reader,
+                                 ToIntFunction<Long> size) {
         ByteArrayOutputStream out = new ByteArrayOutputStream();
         writer.accept(value, out);
         byte[] bytes = out.toByteArray();
         assertEquals(expectedLength, bytes.length);
+        assertEquals(expectedLength, size.applyAsInt(value));
         ByteArrayInputStream bis = new ByteArrayInputStream(bytes);
         assertEquals(value, (long) reader.apply(bis));
     }